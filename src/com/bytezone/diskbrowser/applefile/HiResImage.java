@@ -248,6 +248,20 @@ public abstract class HiResImage extends AbstractFile
     monochrome = value;
   }
 
+  // ---------------------------------------------------------------------------------//
+  public static boolean isColourQuirks ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return colourQuirks;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public static boolean isMonochrome ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return monochrome;
+  }
+
   // byte +120 is the first screen hole
   /*-
    * Files of type $08 and any auxiliary type less than or equal to $3FFF contain a
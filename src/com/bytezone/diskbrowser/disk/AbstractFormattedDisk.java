@@ -9,7 +9,9 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.BitSet;
 import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.JTree;
 import javax.swing.tree.DefaultMutableTreeNode;
@@ -36,6 +38,12 @@ public abstract class AbstractFormattedDisk implements FormattedDisk
   protected List<SectorType> sectorTypesList = new ArrayList<> ();
   protected List<AppleFileSource> fileEntries = new ArrayList<> ();
 
+  // uniqueName lookups, built from fileEntries and the catalog tree when first needed
+  private final Map<String, AppleFileSource> fileIndex = new HashMap<> ();
+  private final Map<String, DefaultMutableTreeNode> nodeIndex = new HashMap<> ();
+  private final List<DefaultMutableTreeNode> volumeNodes = new ArrayList<> ();
+  private int indexedEntries;
+
   public SectorType[] sectorTypes;
 
   protected BootSector bootSector;
@@ -49,7 +57,7 @@ public abstract class AbstractFormattedDisk implements FormattedDisk
   protected Dimension gridLayout;
 
   protected BitSet freeBlocks;
-  protected BitSet usedBlocks; // still to be populated - currently using stillAvailable ()
+  protected BitSet usedBlocks;             // filled by subclasses (only DosDisk so far)
 
   // ---------------------------------------------------------------------------------//
   public AbstractFormattedDisk (Disk disk)
@@ -194,6 +202,12 @@ public abstract class AbstractFormattedDisk implements FormattedDisk
   public void setParent (FormattedDisk disk)
   // ---------------------------------------------------------------------------------//
   {
+    // the parent takes the volume node out of this tree, so keep it for indexing
+    Enumeration<TreeNode> children = getCatalogTreeRoot ().children ();
+    while (children.hasMoreElements ())
+      volumeNodes.add ((DefaultMutableTreeNode) children.nextElement ());
+
+    indexNodes ();
     parent = disk;
   }
 
@@ -290,10 +304,81 @@ public abstract class AbstractFormattedDisk implements FormattedDisk
   public AppleFileSource getFile (String uniqueName)
   // ---------------------------------------------------------------------------------//
   {
-    for (AppleFileSource afs : fileEntries)
-      if (afs.getUniqueName ().equals (uniqueName))
-        return afs;
-    return null;
+    if (indexedEntries != fileEntries.size ())        // entries added since last time
+    {
+      fileIndex.clear ();
+      for (AppleFileSource afs : fileEntries)
+        fileIndex.putIfAbsent (afs.getUniqueName (), afs);
+      indexedEntries = fileEntries.size ();
+    }
+
+    return fileIndex.get (uniqueName);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public DefaultMutableTreeNode getNode (String uniqueName)
+  // ---------------------------------------------------------------------------------//
+  {
+    DefaultMutableTreeNode node = nodeIndex.get (uniqueName);
+    if (isNode (node, uniqueName))
+      return node;
+
+    indexNodes ();            // the tree has changed since it was indexed
+    node = nodeIndex.get (uniqueName);
+
+    return isNode (node, uniqueName) ? node : null;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private boolean isNode (DefaultMutableTreeNode node, String uniqueName)
+  // ---------------------------------------------------------------------------------//
+  {
+    return node != null && node.getUserObject () instanceof AppleFileSource afs
+        && uniqueName.equals (afs.getUniqueName ());
+  }
+
+  // first node with each name in breadth-first order, the same one a search would find
+  // ---------------------------------------------------------------------------------//
+  private void indexNodes ()
+  // ---------------------------------------------------------------------------------//
+  {
+    nodeIndex.clear ();
+
+    if (volumeNodes.isEmpty ())
+      indexNodes (getCatalogTreeRoot ());
+    else
+      for (DefaultMutableTreeNode volumeNode : volumeNodes)   // now in the parent's tree
+        indexNodes (volumeNode);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void indexNodes (DefaultMutableTreeNode root)
+  // ---------------------------------------------------------------------------------//
+  {
+    Enumeration<TreeNode> children = root.breadthFirstEnumeration ();
+    while (children.hasMoreElements ())
+    {
+      DefaultMutableTreeNode node = (DefaultMutableTreeNode) children.nextElement ();
+      if (node.getUserObject () instanceof AppleFileSource afs
+          && afs.getUniqueName () != null)
+        nodeIndex.putIfAbsent (afs.getUniqueName (), node);
+    }
+  }
+
+  // main file that goes with a double hi-res .AUX file
+  // ---------------------------------------------------------------------------------//
+  protected AppleFileSource getAuxPartner (AppleFileSource auxFile)
+  // ---------------------------------------------------------------------------------//
+  {
+    String name = auxFile.getUniqueName ();
+    if (!name.endsWith (".AUX"))
+      return null;
+
+    String partner = name.substring (0, name.length () - 4);
+    AppleFileSource afs = getFile (partner);
+
+    return afs != null ? afs : getFile (partner + ".BIN");
   }
 
   // ---------------------------------------------------------------------------------//
@@ -345,7 +430,7 @@ public abstract class AbstractFormattedDisk implements FormattedDisk
   public SectorType getSectorType (int block)
   // ---------------------------------------------------------------------------------//
   {
-    return getSectorType (disk.getDiskAddress (block));
+    return sectorTypes[block];        // no DiskAddress, the layout asks for every block
   }
 
   // ---------------------------------------------------------------------------------//
@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.zip.CRC32;
@@ -270,6 +271,27 @@ public class AppleDisk implements Disk
     checkSectorsForData ();
   }
 
+  // used by archives that are browsed directly, the file is shown as 512-byte blocks
+  // ---------------------------------------------------------------------------------//
+  public AppleDisk (File file, byte[] buffer)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.file = file;
+
+    sectors = 8;
+    sectorSize = 512;
+    trackSize = sectors * sectorSize;
+    tracks = Math.max (1, (buffer.length - 1) / trackSize + 1);
+    blocks = tracks * sectors;
+
+    // NuFX and Binary2 read the archive in whole tracks, so it doesn't need copying
+    diskBuffer = buffer.length == blocks * sectorSize ? buffer
+        : Arrays.copyOf (buffer, blocks * sectorSize);
+    hasData = new boolean[blocks];
+
+    checkSectorsForData ();
+  }
+
   // ---------------------------------------------------------------------------------//
   public AppleDisk (NibFile disk)       // not used yet
   // ---------------------------------------------------------------------------------//
@@ -20,7 +20,9 @@ import com.bytezone.diskbrowser.nib.NibFile;
 import com.bytezone.diskbrowser.nib.V2dFile;
 import com.bytezone.diskbrowser.nib.WozFile;
 import com.bytezone.diskbrowser.nufx.Binary2;
+import com.bytezone.diskbrowser.nufx.Binary2Disk;
 import com.bytezone.diskbrowser.nufx.NuFX;
+import com.bytezone.diskbrowser.nufx.NuFXDisk;
 import com.bytezone.diskbrowser.pascal.PascalDisk;
 import com.bytezone.diskbrowser.prodos.ProdosDisk;
 import com.bytezone.diskbrowser.utilities.FileFormatException;
@@ -41,6 +43,21 @@ public class DiskFactory
 
   private static NuFX nuFX;
   private static Binary2 binary2;
+  private static ProgressListener progressListener;     // only while creating a disk
+
+  // the steps in creating a disk, reported to a ProgressListener
+  public enum Stage
+  {
+    READ, DECOMPRESS, DECODE, PROBE, CATALOG
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public interface ProgressListener
+  // ---------------------------------------------------------------------------------//
+  {
+    // may throw an unchecked exception to abandon the disk
+    void stageStarted (Stage stage);
+  }
 
   // ---------------------------------------------------------------------------------//
   private DiskFactory ()
@@ -56,7 +73,32 @@ public class DiskFactory
   }
 
   // ---------------------------------------------------------------------------------//
-  public static FormattedDisk createDisk (String pathName)
+  public static synchronized FormattedDisk createDisk (String pathName,
+      ProgressListener listener)
+  // ---------------------------------------------------------------------------------//
+  {
+    progressListener = listener;
+    try
+    {
+      return createDisk (pathName);
+    }
+    finally
+    {
+      progressListener = null;
+    }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private static void stageStarted (Stage stage)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (progressListener != null)
+      progressListener.stageStarted (stage);
+  }
+
+  // the nuFX and binary2 fields are shared, so only one disk is created at a time
+  // ---------------------------------------------------------------------------------//
+  public static synchronized FormattedDisk createDisk (String pathName)
   // ---------------------------------------------------------------------------------//
   {
     if (debug)
@@ -69,6 +111,8 @@ public class DiskFactory
     if (!file.exists ())
       return null;
 
+    stageStarted (Stage.READ);
+
     String suffix = pathName.substring (pathName.lastIndexOf (".") + 1).toLowerCase ();
     Boolean compressed = false;
     Path originalPath = Paths.get (pathName);
@@ -77,6 +121,7 @@ public class DiskFactory
     {
       if (debug)
         System.out.println (" ** gzip **");
+      stageStarted (Stage.DECOMPRESS);
       try
       {
         InputStream in = new GZIPInputStream (new FileInputStream (pathName));
@@ -106,6 +151,7 @@ public class DiskFactory
     {
       if (debug)
         System.out.println (" ** zip **");
+      stageStarted (Stage.DECOMPRESS);
       try
       {
         ZipFile zipFile = new ZipFile (pathName);
@@ -152,12 +198,22 @@ public class DiskFactory
     {
       if (debug)
         System.out.println (" ** sdk/shk/bxy **");
+      stageStarted (Stage.DECODE);
       try
       {
         nuFX = new NuFX (file.toPath ());
         if (nuFX.getTotalDisks () == 0 && nuFX.getTotalFiles () == 0)
           return null;
 
+        if (nuFX.getTotalDisks () == 0)         // files only, browse the archive itself
+        {
+          AppleDisk appleDisk = new AppleDisk (file, nuFX.getBuffer ());
+          FormattedDisk disk = new NuFXDisk (appleDisk, nuFX);
+          if (compressed)
+            disk.setOriginalPath (originalPath);
+          return check (disk);
+        }
+
         byte[] diskBuffer = nuFX.getDiskBuffer ();
         if (diskBuffer == null)
           return null;
@@ -187,20 +243,15 @@ public class DiskFactory
     {
       if (debug)
         System.out.println (" ** bny **");
+      stageStarted (Stage.DECODE);
       try
       {
         binary2 = new Binary2 (file.toPath ());
-        byte[] diskBuffer = binary2.getDiskBuffer ();
-
-        File tmp = File.createTempFile (suffix, null);
-        FileOutputStream fos = new FileOutputStream (tmp);
-        fos.write (diskBuffer);
-        fos.close ();
-
-        tmp.deleteOnExit ();
-        file = tmp;
-        suffix = "dsk";
-        compressed = true;
+        AppleDisk appleDisk = new AppleDisk (file, binary2.getBuffer ());
+        FormattedDisk disk = new Binary2Disk (appleDisk, binary2);
+        if (compressed)
+          disk.setOriginalPath (originalPath);
+        return check (disk);
       }
       catch (Exception e)
       {
@@ -223,6 +274,8 @@ public class DiskFactory
     FormattedDisk disk = null;
     FormattedDisk disk2 = null;
 
+    stageStarted (Stage.PROBE);
+
     if (suffix.equals ("hdv"))
     {
       if (debug)
@@ -324,6 +377,7 @@ public class DiskFactory
     {
       if (debug)
         System.out.println ("Checking woz");
+      stageStarted (Stage.DECODE);
       try
       {
         WozFile wozFile = new WozFile (file);
@@ -372,6 +426,7 @@ public class DiskFactory
 
     if (suffix.equals ("v2d"))
     {
+      stageStarted (Stage.DECODE);
       V2dFile v2dDisk = new V2dFile (file);
       AppleDisk appleDisk256 = new AppleDisk (v2dDisk, 35, 16);
       disk = checkDos (appleDisk256);
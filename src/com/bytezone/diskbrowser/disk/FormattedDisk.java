@@ -5,6 +5,7 @@ import java.nio.file.Path;
 import java.util.List;
 
 import javax.swing.JTree;
+import javax.swing.tree.DefaultMutableTreeNode;
 
 import com.bytezone.diskbrowser.applefile.AbstractFile;
 import com.bytezone.diskbrowser.applefile.AppleFileSource;
@@ -48,6 +49,8 @@ public interface FormattedDisk
 
   public AppleFileSource getFile (String uniqueName);
 
+  public DefaultMutableTreeNode getNode (String uniqueName);
+
   public int clearOrphans ();
 
   public void setSectorFree (int block, boolean free);
@@ -208,6 +208,14 @@ public class HybridDisk implements FormattedDisk
     return disks.get (currentDisk).getFile (uniqueName);
   }
 
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public DefaultMutableTreeNode getNode (String uniqueName)
+  // ---------------------------------------------------------------------------------//
+  {
+    return disks.get (currentDisk).getNode (uniqueName);
+  }
+
   // ---------------------------------------------------------------------------------//
   @Override
   public int clearOrphans ()
@@ -1,6 +1,6 @@
 package com.bytezone.diskbrowser.disk;
 
-import java.util.List;
+import java.util.BitSet;
 
 import com.bytezone.diskbrowser.applefile.AbstractFile;
 
@@ -8,29 +8,31 @@ import com.bytezone.diskbrowser.applefile.AbstractFile;
 public class SectorList extends AbstractFile
 // -----------------------------------------------------------------------------------//
 {
-  List<DiskAddress> sectors;
+  BitSet blocks;
   FormattedDisk formattedDisk;
 
   // ---------------------------------------------------------------------------------//
-  public SectorList (FormattedDisk formattedDisk, List<DiskAddress> sectors)
+  public SectorList (FormattedDisk formattedDisk, BitSet blocks)
   // ---------------------------------------------------------------------------------//
   {
     super ("noname", null);
 
-    this.sectors = sectors;
+    this.blocks = blocks;
     this.formattedDisk = formattedDisk;
 
     Disk disk = formattedDisk.getDisk ();
+    int blockSize = disk.getBlockSize ();
     int ptr = 0;
-    buffer = new byte[sectors.size () * disk.getBlockSize ()];
+    buffer = new byte[blocks.cardinality () * blockSize];
 
-    for (DiskAddress da : sectors)
+    for (int block = blocks.nextSetBit (0); block >= 0;
+        block = blocks.nextSetBit (block + 1))
     {
-      if (!disk.isValidAddress (da))
+      if (!disk.isValidAddress (block))
         break;
-      byte[] tempBuffer = disk.readBlock (da);
-      System.arraycopy (tempBuffer, 0, buffer, ptr, disk.getBlockSize ());
-      ptr += disk.getBlockSize ();
+      byte[] tempBuffer = disk.readBlock (block);
+      System.arraycopy (tempBuffer, 0, buffer, ptr, blockSize);
+      ptr += blockSize;
     }
   }
 
@@ -43,16 +45,20 @@ public class SectorList extends AbstractFile
     text.append (
         "-----  ------------------  ---------------------------------------------\n");
 
-    for (DiskAddress da : sectors)
+    Disk disk = formattedDisk.getDisk ();
+    for (int block = blocks.nextSetBit (0); block >= 0;
+        block = blocks.nextSetBit (block + 1))
     {
+      if (!disk.isValidAddress (block))
+        break;
+      DiskAddress da = disk.getDiskAddress (block);
       SectorType sectorType = formattedDisk.getSectorType (da);
       String owner = formattedDisk.getSectorFilename (da);
       if (owner == null)
         owner = "";
-      text.append (
-          String.format (" %04X  %-18s  %s%n", da.getBlockNo (), sectorType.name, owner));
+      text.append (String.format (" %04X  %-18s  %s%n", block, sectorType.name, owner));
     }
 
     return text.toString ();
   }
-}
\ No newline at end of file
+}
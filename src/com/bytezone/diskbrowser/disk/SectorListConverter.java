@@ -1,72 +1,69 @@
 package com.bytezone.diskbrowser.disk;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.BitSet;
 
+// Converts a set of blocks to and from the text that is saved in the preferences,
+// eg "3;7-12;40"
 // -----------------------------------------------------------------------------------//
 public class SectorListConverter
 // -----------------------------------------------------------------------------------//
 {
-  public final List<DiskAddress> sectors;
+  public final BitSet blocks;
   public final String sectorText;
 
   // ---------------------------------------------------------------------------------//
-  public SectorListConverter (String text, Disk disk)
+  public SectorListConverter (String text, int totalBlocks)
   // ---------------------------------------------------------------------------------//
   {
-    sectors = new ArrayList<> ();
+    blocks = new BitSet ();
     sectorText = text;
 
+    // older versions saved an empty selection as "-2", so anything that isn't a
+    // block on this disk is ignored
     for (String s : text.split (";"))
     {
-      int pos = s.indexOf ('-');
-      if (pos > 0)
+      if (s.isEmpty ())
+        continue;
+
+      try
       {
-        int lo = Integer.parseInt (s.substring (0, pos));
-        int hi = Integer.parseInt (s.substring (pos + 1));
-        for (int i = lo; i <= hi; i++)
-          sectors.add (disk.getDiskAddress (i));
+        int pos = s.indexOf ('-', 1);
+        int lo = Integer.parseInt (pos > 0 ? s.substring (0, pos) : s);
+        int hi = pos > 0 ? Integer.parseInt (s.substring (pos + 1)) : lo;
+
+        lo = Math.max (lo, 0);
+        hi = Math.min (hi, totalBlocks - 1);
+        if (lo <= hi)
+          blocks.set (lo, hi + 1);
+      }
+      catch (NumberFormatException e)
+      {
+        System.out.printf ("Invalid block: %s%n", s);
       }
-      else
-        sectors.add (disk.getDiskAddress (Integer.parseInt (s)));
     }
   }
 
   // ---------------------------------------------------------------------------------//
-  public SectorListConverter (List<DiskAddress> sectors)
+  public SectorListConverter (BitSet blocks)
   // ---------------------------------------------------------------------------------//
   {
-    this.sectors = sectors;
+    this.blocks = blocks;
     StringBuilder text = new StringBuilder ();
 
-    int firstBlock = -2;
-    int runLength = 0;
-
-    for (DiskAddress da : sectors)
+    // each run of consecutive blocks is a single range
+    for (int lo = blocks.nextSetBit (0); lo >= 0; lo = blocks.nextSetBit (lo))
     {
-      if (da.getBlockNo () == firstBlock + 1 + runLength)
-      {
-        ++runLength;
-        continue;
-      }
+      int hi = blocks.nextClearBit (lo) - 1;
+      if (text.length () > 0)
+        text.append (';');
 
-      if (firstBlock >= 0)
-        addToText (text, firstBlock, runLength);
+      text.append (lo);
+      if (hi > lo)
+        text.append ('-').append (hi);
 
-      firstBlock = da.getBlockNo ();
-      runLength = 0;
+      lo = hi + 1;
     }
-    addToText (text, firstBlock, runLength);
-    sectorText = text.deleteCharAt (text.length () - 1).toString ();
-  }
 
-  // ---------------------------------------------------------------------------------//
-  private void addToText (StringBuilder text, int firstBlock, int runLength)
-  // ---------------------------------------------------------------------------------//
-  {
-    if (runLength == 0)
-      text.append (firstBlock + ";");
-    else
-      text.append (firstBlock + "-" + (firstBlock + runLength) + ";");
+    sectorText = text.toString ();
   }
-}
\ No newline at end of file
+}
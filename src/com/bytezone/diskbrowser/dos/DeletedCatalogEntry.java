@@ -1,7 +1,8 @@
 package com.bytezone.diskbrowser.dos;
 
+import java.util.List;
+
 import com.bytezone.diskbrowser.applefile.DefaultAppleFile;
-import com.bytezone.diskbrowser.disk.AppleDiskAddress;
 import com.bytezone.diskbrowser.disk.DiskAddress;
 import com.bytezone.diskbrowser.gui.DataSource;
 
@@ -9,95 +10,22 @@ import com.bytezone.diskbrowser.gui.DataSource;
 class DeletedCatalogEntry extends AbstractCatalogEntry
 // -----------------------------------------------------------------------------------//
 {
-  boolean allSectorsAvailable = true;
-  boolean debug = false;
+  final boolean allSectorsAvailable;
 
+  // the sectors were collected from the T/S lists by DosDisk, complete is false if
+  // they ran into a sector that something else now owns
   // ---------------------------------------------------------------------------------//
   DeletedCatalogEntry (DosDisk dosDisk, DiskAddress catalogSector, byte[] entryBuffer,
-      int dosVersion)
+      List<DiskAddress> tsSectors, List<DiskAddress> dataSectors, boolean complete)
   // ---------------------------------------------------------------------------------//
   {
     super (dosDisk, catalogSector, entryBuffer);
 
-    if (debug)
-    {
-      System.out.println ("Deleted file  : " + name);
-      System.out.printf ("Reported size : %d%n", reportedSize);
-    }
-
-    DiskAddress da = null;
-
-    // Get address of first TS-list sector
-    if (dosVersion >= 0x41)
-    {
-      int track = entryBuffer[0] & 0x3F;
-      int sector = entryBuffer[1] & 0x1F;
-      da = disk.getDiskAddress (track, sector);
-    }
-    else
-    {
-      int track = entryBuffer[32] & 0xFF;
-      int sector = entryBuffer[1] & 0xFF;
-      da = disk.getDiskAddress (track, sector);
-    }
-    int totalBlocks = 0;
-
-    if (reportedSize <= 1 || !disk.isValidAddress (da.getTrackNo (), da.getSectorNo ()))
-    {
-      if (debug)
-        System.out.println ("invalid catalog entry");
-      allSectorsAvailable = false;
-      return;
-    }
-
-    // Loop through all TS-list sectors
-    loop: while (!da.isZero () || ((AppleDiskAddress) da).zeroFlag ())
-    {
-      if (!dosDisk.stillAvailable (da))
-      {
-        allSectorsAvailable = false;
-        break;
-      }
-      tsSectors.add (da);
-      totalBlocks++;
-
-      DiskAddress sectorDA = da;
-      byte[] sectorBuffer = disk.readBlock (da);
-      for (int i = 12, max = disk.getBlockSize (); i < max; i += 2)
-      {
-        da = getValidAddress (sectorBuffer, i);
-        if (da == null)
-          break loop;
-        if (!da.isZero () && debug)
-          System.out.println (da);
-
-        if (!da.isZero () || ((AppleDiskAddress) da).zeroFlag ())
-        {
-          if (!dosDisk.stillAvailable (da))
-          {
-            allSectorsAvailable = false;
-            break loop;
-          }
-          dataSectors.add (da);
-          totalBlocks++;
-        }
-      }
-
-      DiskAddress nextDa = getValidAddress (sectorBuffer, 1);
-
-      if (nextDa == null)
-      {
-        System.out.printf ("Next T/S list in sector %s is invalid : %02X, %02X%n",
-            sectorDA, sectorBuffer[1], sectorBuffer[2]);
-        break;
-      }
-      da = nextDa;
-    }
+    this.tsSectors.addAll (tsSectors);
+    this.dataSectors.addAll (dataSectors);
 
-    if (debug)
-      System.out.printf ("Total blocks recoverable : %d%n", totalBlocks);
-    if (totalBlocks != reportedSize)
-      allSectorsAvailable = false;
+    allSectorsAvailable =
+        complete && tsSectors.size () + dataSectors.size () == reportedSize;
   }
 
   // ---------------------------------------------------------------------------------//
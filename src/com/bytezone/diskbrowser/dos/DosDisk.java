@@ -3,6 +3,8 @@ package com.bytezone.diskbrowser.dos;
 import java.awt.Color;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
 import javax.swing.tree.DefaultMutableTreeNode;
@@ -11,12 +13,18 @@ import com.bytezone.diskbrowser.applefile.AppleFileSource;
 import com.bytezone.diskbrowser.applefile.BootSector;
 import com.bytezone.diskbrowser.disk.AbstractFormattedDisk;
 import com.bytezone.diskbrowser.disk.AppleDisk;
+import com.bytezone.diskbrowser.disk.AppleDiskAddress;
 import com.bytezone.diskbrowser.disk.DefaultAppleFileSource;
 import com.bytezone.diskbrowser.disk.DefaultSector;
 import com.bytezone.diskbrowser.disk.Disk;
 import com.bytezone.diskbrowser.disk.DiskAddress;
+import com.bytezone.diskbrowser.disk.DiskFactory;
+import com.bytezone.diskbrowser.disk.FormattedDisk;
 import com.bytezone.diskbrowser.disk.SectorType;
 import com.bytezone.diskbrowser.gui.DataSource;
+import com.bytezone.diskbrowser.gui.ProdosPreferences;
+import com.bytezone.diskbrowser.prodos.ProdosDisk;
+import com.bytezone.diskbrowser.utilities.Utility;
 
 // -----------------------------------------------------------------------------------//
 public class DosDisk extends AbstractFormattedDisk
@@ -32,6 +40,7 @@ public class DosDisk extends AbstractFormattedDisk
 
   private int freeSectors;
   private int usedSectors;
+  private SectorSummary sectorSummary;
   private final int volumeNo;             // for multi-volume disks
 
   public final SectorType vtocSector = new SectorType ("VTOC", Color.magenta);
@@ -105,147 +114,241 @@ public class DosDisk extends AbstractFormattedDisk
     DefaultMutableTreeNode deletedFilesNode = new DefaultMutableTreeNode ();
     rootNode.add (volumeNode);
 
-    // flag the catalog sectors before any file mistakenly grabs them
+    // read the catalog once, flagging its sectors before any file mistakenly grabs them
+    List<DiskAddress> catalogSectors = new ArrayList<> ();
+    List<byte[]> catalogBuffers = new ArrayList<> ();
+
     da = disk.getDiskAddress (catalogStart.getBlockNo ());
     do
     {
-      if (!disk.isValidAddress (da))
-        break;
+      if (!disk.isValidAddress (da) || sectorTypes[da.getBlockNo ()] == catalogSector)
+        break;                                          // invalid or looping
       sectorBuffer = disk.readBlock (da);
       if (!disk.isValidAddress (sectorBuffer[1], sectorBuffer[2]))
         break;
 
       // The first byte is officially unused, but it always seems to contain 0x00 or 0xFF
       // See beautifulboot.dsk.
-      //      if (sectorBuffer[0] != 0 && (sectorBuffer[0] & 0xFF) != 0xFF && false)
-      //      {
-      //        System.out
-      //       .println ("Dos catalog sector buffer byte #0 invalid : " + sectorBuffer[0]);
-      //        break;
-      //      }
 
       sectorTypes[da.getBlockNo ()] = catalogSector;
+      catalogSectors.add (da);
+      catalogBuffers.add (sectorBuffer);
 
       int track = sectorBuffer[1] & 0xFF;
       int sector = sectorBuffer[2] & 0xFF;
+      if (dosVTOCSector.dosVersion >= 0x41)
+      {
+        track = track & 0x3F;
+        sector = sector & 0x1F;
+      }
+
       if (!disk.isValidAddress (track, sector))
         break;
 
-      da = disk.getDiskAddress (track, sector);
+      da = disk.getDiskAddress (sectorBuffer[1], sectorBuffer[2]);
 
-    } while (!da.isZero () && da.isValidAddress ());
+    } while (!da.isZero ());
 
-    // same loop, but now all the catalog sectors are properly flagged
-    da = disk.getDiskAddress (catalogStart.getBlockNo ());
-    loop: do
+    // live files first, so that deleted files only see the sectors nobody owns
+    addCatalogEntries (catalogSectors, catalogBuffers, false, volumeNode);
+    addCatalogEntries (catalogSectors, catalogBuffers, true, deletedFilesNode);
+
+    // link double hi-res files
+    for (AppleFileSource fe : fileEntries)
     {
-      if (!disk.isValidAddress (da))
-        break;
-      sectorBuffer = disk.readBlock (da);
-      if (!disk.isValidAddress (sectorBuffer[1], sectorBuffer[2]))
-        break;
+      AppleFileSource fe2 = getAuxPartner (fe);
+      if (fe2 != null)
+      {
+        ((CatalogEntry) fe2).link ((CatalogEntry) fe);
+        ((CatalogEntry) fe).link ((CatalogEntry) fe2);
+      }
+    }
+
+    classifySectors ();
+
+    if (deletedFilesNode.getDepth () > 0)
+    {
+      rootNode.add (deletedFilesNode);
+      deletedFilesNode.setUserObject (getDeletedList ());
+      makeNodeVisible (deletedFilesNode.getFirstLeaf ());
+    }
+
+    volumeNode.setUserObject (getCatalog ());
+    makeNodeVisible (volumeNode.getFirstLeaf ());
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void addCatalogEntries (List<DiskAddress> catalogSectors,
+      List<byte[]> catalogBuffers, boolean deleted, DefaultMutableTreeNode parentNode)
+  // ---------------------------------------------------------------------------------//
+  {
+    // deleted files can only be recovered from sectors that nothing else owns
+    BitSet availableBlocks = deleted ? getAvailableBlocks () : null;
+
+    for (int i = 0; i < catalogSectors.size (); i++)
+    {
+      DiskAddress da = catalogSectors.get (i);
+      byte[] sectorBuffer = catalogBuffers.get (i);
 
       for (int ptr = 11; ptr < 256; ptr += ENTRY_SIZE)
       {
         if (sectorBuffer[ptr] == 0)         // empty slot, no more catalog entries
-          break loop;
+          return;
+
+        if (((sectorBuffer[ptr] & 0x80) != 0) != deleted)
+          continue;
 
-        byte[] entryBuffer = new byte[ENTRY_SIZE];
-        System.arraycopy (sectorBuffer, ptr, entryBuffer, 0, ENTRY_SIZE);
-        int track = entryBuffer[0] & 0xFF;
-        boolean deletedFlag = (entryBuffer[0] & 0x80) != 0;
+        byte[] entryBuffer = Arrays.copyOfRange (sectorBuffer, ptr, ptr + ENTRY_SIZE);
+        AbstractCatalogEntry catalogEntry;
 
-        if (deletedFlag)              // deleted file
+        if (deleted)
         {
-          DeletedCatalogEntry deletedCatalogEntry =
-              new DeletedCatalogEntry (this, da, entryBuffer, dosVTOCSector.dosVersion);
-          deletedFileEntries.add (deletedCatalogEntry);
-          DefaultMutableTreeNode node = new DefaultMutableTreeNode (deletedCatalogEntry);
-          node.setAllowsChildren (false);
-          deletedFilesNode.add (node);
+          List<DiskAddress> tsSectors = new ArrayList<> ();
+          List<DiskAddress> dataSectors = new ArrayList<> ();
+          boolean complete = collectDeletedSectors (entryBuffer, availableBlocks,
+              tsSectors, dataSectors);
+          catalogEntry = new DeletedCatalogEntry (this, da, entryBuffer, tsSectors,
+              dataSectors, complete);
+          deletedFileEntries.add (catalogEntry);
         }
         else
         {
-          CatalogEntry catalogEntry = new CatalogEntry (this, da, entryBuffer);
+          catalogEntry = new CatalogEntry (this, da, entryBuffer);
           fileEntries.add (catalogEntry);
-          DefaultMutableTreeNode node = new DefaultMutableTreeNode (catalogEntry);
-          node.setAllowsChildren (false);
-          volumeNode.add (node);
         }
+
+        DefaultMutableTreeNode node = new DefaultMutableTreeNode (catalogEntry);
+        node.setAllowsChildren (false);
+        parentNode.add (node);
       }
+    }
+  }
 
-      int track = sectorBuffer[1] & 0xFF;
-      int sector = sectorBuffer[2] & 0xFF;
-      if (dosVTOCSector.dosVersion >= 0x41)
+  // ---------------------------------------------------------------------------------//
+  private BitSet getAvailableBlocks ()
+  // ---------------------------------------------------------------------------------//
+  {
+    BitSet availableBlocks = new BitSet (disk.getTotalBlocks ());
+    for (int blockNo = 0, max = disk.getTotalBlocks (); blockNo < max; blockNo++)
+      if (stillAvailable (blockNo))
+        availableBlocks.set (blockNo);
+
+    return availableBlocks;
+  }
+
+  // read the T/S lists of a deleted file, and return false if they can't be followed
+  // or they reach a sector that is no longer available
+  // ---------------------------------------------------------------------------------//
+  private boolean collectDeletedSectors (byte[] entryBuffer, BitSet availableBlocks,
+      List<DiskAddress> tsSectors, List<DiskAddress> dataSectors)
+  // ---------------------------------------------------------------------------------//
+  {
+    // DOS 3.3 moves the track of the first T/S list sector to the end of the name
+    int track = dosVTOCSector.dosVersion >= 0x41 ? entryBuffer[0] & 0x3F
+        : entryBuffer[32] & 0xFF;
+    int sector = dosVTOCSector.dosVersion >= 0x41 ? entryBuffer[1] & 0x1F
+        : entryBuffer[1] & 0xFF;
+
+    if (Utility.getShort (entryBuffer, 33) <= 1 || !disk.isValidAddress (track, sector))
+      return false;
+
+    DiskAddress da = disk.getDiskAddress (track, sector);
+    BitSet tsBlocks = new BitSet ();
+
+    while (!da.isZero () || ((AppleDiskAddress) da).zeroFlag ())
+    {
+      int blockNo = da.getBlockNo ();
+      if (!availableBlocks.get (blockNo) || tsBlocks.get (blockNo))   // owned or looping
+        return false;
+
+      tsBlocks.set (blockNo);
+      tsSectors.add (da);
+
+      byte[] sectorBuffer = disk.readBlock (da);
+      for (int i = 12, max = disk.getBlockSize (); i < max; i += 2)
       {
-        track = track & 0x3F;
-        sector = sector & 0x1F;
-      }
+        if (!disk.isValidAddress (sectorBuffer[i], sectorBuffer[i + 1]))
+          return true;                        // the size check will decide
 
-      if (!disk.isValidAddress (track, sector))
-        break;
+        DiskAddress dataDA = disk.getDiskAddress (sectorBuffer[i], sectorBuffer[i + 1]);
+        if (!dataDA.isZero () || ((AppleDiskAddress) dataDA).zeroFlag ())
+        {
+          if (!availableBlocks.get (dataDA.getBlockNo ()))
+            return false;
+          dataSectors.add (dataDA);
+        }
+      }
 
+      if (!disk.isValidAddress (sectorBuffer[1], sectorBuffer[2]))
+      {
+        System.out.printf ("Next T/S list in sector %s is invalid : %02X, %02X%n", da,
+            sectorBuffer[1], sectorBuffer[2]);
+        return true;
+      }
       da = disk.getDiskAddress (sectorBuffer[1], sectorBuffer[2]);
+    }
 
-    } while (!da.isZero ());
+    return true;
+  }
 
-    // link double hi-res files
-    for (AppleFileSource fe : fileEntries)
+  // one pass over the sector types to count free and used sectors, compare them with
+  // the VTOC, and label DOS sectors while we're here
+  // ---------------------------------------------------------------------------------//
+  private void classifySectors ()
+  // ---------------------------------------------------------------------------------//
+  {
+    BitSet recoverableBlocks = new BitSet (disk.getTotalBlocks ());
+    for (AppleFileSource afs : deletedFileEntries)
     {
-      String name = fe.getUniqueName ();
-      if (name.endsWith (".AUX"))
+      DeletedCatalogEntry deletedCatalogEntry = (DeletedCatalogEntry) afs;
+      if (deletedCatalogEntry.allSectorsAvailable)
       {
-        String partner1 = name.substring (0, name.length () - 4);
-        String partner2 = partner1 + ".BIN";
-        for (AppleFileSource fe2 : fileEntries)
-          if (fe2.getUniqueName ().equals (partner1)
-              || fe2.getUniqueName ().equals (partner2))
-          {
-            ((CatalogEntry) fe2).link ((CatalogEntry) fe);
-            ((CatalogEntry) fe).link ((CatalogEntry) fe2);
-          }
+        for (DiskAddress da : deletedCatalogEntry.tsSectors)
+          recoverableBlocks.set (da.getBlockNo ());
+        for (DiskAddress da : deletedCatalogEntry.dataSectors)
+          recoverableBlocks.set (da.getBlockNo ());
       }
     }
 
-    // add up all the free and used sectors, and label DOS sectors while we're here
+    sectorSummary = new SectorSummary ();
     int lastDosSector = dosVTOCSector.maxSectors * 3;       // first three tracks
-    for (DiskAddress da2 : disk)
+
+    for (int blockNo = 0, max = disk.getTotalBlocks (); blockNo < max; blockNo++)
     {
-      int blockNo = da2.getBlockNo ();
-      if (blockNo < lastDosSector) // in the DOS region
-      {
-        if (freeBlocks.get (blockNo))                       // according to the VTOC
-          ++freeSectors;
-        else
-        {
-          ++usedSectors;
-          if (sectorTypes[blockNo] == usedSector)
-            sectorTypes[blockNo] = dosSector;
-        }
-      }
+      boolean free = freeBlocks.get (blockNo);              // according to the VTOC
+
+      if (blockNo < lastDosSector && !free && sectorTypes[blockNo] == usedSector)
+        sectorTypes[blockNo] = dosSector;
+
+      boolean available = stillAvailable (blockNo);
+
+      if (blockNo < lastDosSector ? free : available)       // not specifically labelled
+        ++freeSectors;
       else
       {
-        if (stillAvailable (da2))       // free or used, ie not specifically labelled
-          ++freeSectors;
-        else
-          ++usedSectors;
+        ++usedSectors;
+        usedBlocks.set (blockNo);
       }
 
-      if (freeBlocks.get (blockNo) && !stillAvailable (da2))
+      if (free && !available)
         falsePositives++;
-      if (!freeBlocks.get (blockNo) && stillAvailable (da2))
+      if (!free && available)
         falseNegatives++;
-    }
 
-    if (deletedFilesNode.getDepth () > 0)
-    {
-      rootNode.add (deletedFilesNode);
-      deletedFilesNode.setUserObject (getDeletedList ());
-      makeNodeVisible (deletedFilesNode.getFirstLeaf ());
+      sectorSummary.add (sectorTypes[blockNo], recoverableBlocks.get (blockNo));
     }
 
-    volumeNode.setUserObject (getCatalog ());
-    makeNodeVisible (volumeNode.getFirstLeaf ());
+    sectorSummary.freeSectors = freeSectors;
+    sectorSummary.usedSectors = usedSectors;
+    sectorSummary.falsePositives = falsePositives;
+    sectorSummary.falseNegatives = falseNegatives;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public SectorSummary getSectorSummary ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return sectorSummary;
   }
 
   // ---------------------------------------------------------------------------------//
@@ -605,4 +708,106 @@ public class DosDisk extends AbstractFormattedDisk
     The code for this chip was included in the INTBASIC file, and could therefore be
     patched.
    */
+
+  // ---------------------------------------------------------------------------------//
+  public static void main (String[] args)
+  // ---------------------------------------------------------------------------------//
+  {
+    ProdosDisk.setProdosPreferences (new ProdosPreferences ());   // for hard disks
+
+    for (String fileName : args)
+    {
+      FormattedDisk formattedDisk = DiskFactory.createDisk (fileName);
+      if (formattedDisk instanceof DosDisk dosDisk)
+        System.out.printf ("%s%n%s%n%n", fileName, dosDisk.getSectorSummary ());
+      else
+        System.out.printf ("%s is not a DOS disk%n%n", fileName);
+    }
+  }
+
+  // Sector counts from the single classification pass, for reporting without the GUI
+  // ---------------------------------------------------------------------------------//
+  public class SectorSummary
+  // ---------------------------------------------------------------------------------//
+  {
+    int vtoc;
+    int catalog;
+    int tsList;
+    int data;
+    int dos;
+    int recoverable;
+    int unusedData;
+    int empty;
+
+    int freeSectors;
+    int usedSectors;
+    int falsePositives;
+    int falseNegatives;
+
+    // -------------------------------------------------------------------------------//
+    private void add (SectorType type, boolean recoverableSector)
+    // -------------------------------------------------------------------------------//
+    {
+      if (type == vtocSector)
+        ++vtoc;
+      else if (type == catalogSector)
+        ++catalog;
+      else if (type == tsListSector)
+        ++tsList;
+      else if (type == dataSector)
+        ++data;
+      else if (type == dosSector)
+        ++dos;
+      else if (recoverableSector)             // still holds part of a deleted file
+        ++recoverable;
+      else if (type == usedSector)
+        ++unusedData;
+      else
+        ++empty;
+    }
+
+    // -------------------------------------------------------------------------------//
+    public int getFreeSectors ()
+    // -------------------------------------------------------------------------------//
+    {
+      return freeSectors;
+    }
+
+    // -------------------------------------------------------------------------------//
+    public int getUsedSectors ()
+    // -------------------------------------------------------------------------------//
+    {
+      return usedSectors;
+    }
+
+    // -------------------------------------------------------------------------------//
+    public int getRecoverableSectors ()
+    // -------------------------------------------------------------------------------//
+    {
+      return recoverable;
+    }
+
+    // -------------------------------------------------------------------------------//
+    @Override
+    public String toString ()
+    // -------------------------------------------------------------------------------//
+    {
+      StringBuilder text = new StringBuilder ();
+
+      text.append (String.format ("VTOC ................. %4d%n", vtoc));
+      text.append (String.format ("Catalog .............. %4d%n", catalog));
+      text.append (String.format ("T/S list ............. %4d%n", tsList));
+      text.append (String.format ("Data ................. %4d%n", data));
+      text.append (String.format ("DOS .................. %4d%n", dos));
+      text.append (String.format ("Deleted, recoverable . %4d%n", recoverable));
+      text.append (String.format ("Unused (data) ........ %4d%n", unusedData));
+      text.append (String.format ("Unused (empty) ....... %4d%n", empty));
+      text.append (String.format ("Free sectors ......... %4d%n", freeSectors));
+      text.append (String.format ("Used sectors ......... %4d%n", usedSectors));
+      text.append (String.format ("False positives ...... %4d%n", falsePositives));
+      text.append (String.format ("False negatives ...... %4d", falseNegatives));
+
+      return text.toString ();
+    }
+  }
 }
\ No newline at end of file
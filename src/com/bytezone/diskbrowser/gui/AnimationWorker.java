@@ -56,7 +56,10 @@ public class AnimationWorker extends SwingWorker<Void, Integer>
   protected void process (List<Integer> chunks)
   // ---------------------------------------------------------------------------------//
   {
-    image.nextFrame ();
-    owner.update ();
+    synchronized (image)                      // the same lock as the OutputPanel
+    {
+      image.nextFrame ();
+      owner.update ();
+    }
   }
 }
\ No newline at end of file
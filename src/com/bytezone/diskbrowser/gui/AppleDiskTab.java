@@ -7,16 +7,13 @@ package com.bytezone.diskbrowser.gui;
  ****************************************************************************************/
 
 import java.awt.Font;
-import java.util.Enumeration;
 
 import javax.swing.JTree;
 import javax.swing.event.TreeSelectionEvent;
 import javax.swing.event.TreeSelectionListener;
 import javax.swing.tree.DefaultMutableTreeNode;
-import javax.swing.tree.TreeNode;
 
 import com.bytezone.diskbrowser.applefile.AppleFileSource;
-import com.bytezone.diskbrowser.disk.DiskFactory;
 import com.bytezone.diskbrowser.disk.FormattedDisk;
 import com.bytezone.diskbrowser.disk.HybridDisk;
 import com.bytezone.diskbrowser.gui.RedoHandler.RedoEvent;
@@ -108,14 +105,14 @@ class AppleDiskTab extends AbstractTab
     redoHandler.setCurrentData (redoData);
   }
 
+  // called with the reopened disk when the user gives ALT-R command
   // ---------------------------------------------------------------------------------//
-  @Override
-  public void refresh ()                  // called when the user gives ALT-R command
+  void refresh (FormattedDisk newDisk)
   // ---------------------------------------------------------------------------------//
   {
     Object o = getSelectedObject ();
     String currentFile = (o == null) ? null : ((AppleFileSource) o).getUniqueName ();
-    disk = DiskFactory.createDisk (disk.getAbsolutePath ());
+    disk = newDisk;
     setTree (disk.getCatalogTree ());
     setSelectionListener (tree);
     selectNode (currentFile);
@@ -154,26 +151,8 @@ class AppleDiskTab extends AbstractTab
   private DefaultMutableTreeNode findNode (String nodeName)
   // ---------------------------------------------------------------------------------//
   {
-    DefaultMutableTreeNode rootNode = getRootNode ();
-
-    // check for multi-volume disk (only search the current branch)
-    FormattedDisk fd = ((AppleFileSource) rootNode.getUserObject ()).getFormattedDisk ();
-    if (fd instanceof HybridDisk hd)
-    {
-      int volume = hd.getCurrentDiskNo ();
-      rootNode = (DefaultMutableTreeNode) rootNode.getChildAt (volume);
-    }
-
-    Enumeration<TreeNode> children = rootNode.breadthFirstEnumeration ();
-    while (children.hasMoreElements ())
-    {
-      DefaultMutableTreeNode node = (DefaultMutableTreeNode) children.nextElement ();
-      Object userObject = node.getUserObject ();
-      if (userObject instanceof AppleFileSource afs
-          && nodeName.equals (afs.getUniqueName ()))
-        return node;
-    }
-    return null;
+    // a multi-volume disk only searches the current volume
+    return disk.getNode (nodeName);
   }
 
   // ---------------------------------------------------------------------------------//
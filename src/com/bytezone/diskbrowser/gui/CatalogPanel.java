@@ -18,6 +18,7 @@ import java.util.EventObject;
 import java.util.List;
 import java.util.prefs.Preferences;
 
+import javax.swing.JPanel;
 import javax.swing.JTabbedPane;
 import javax.swing.JTree;
 import javax.swing.SwingConstants;
@@ -50,9 +51,11 @@ class CatalogPanel extends JTabbedPane implements RedoListener, SectorSelectionL
   private Font font;
   private FileSystemTab fileTab;
   private final List<AppleDiskTab> diskTabs = new ArrayList<> ();
-  private final DiskAndFileSelector selector = new DiskAndFileSelector ();
+  private final DiskOpener diskOpener = new DiskOpener ();
+  private final DiskAndFileSelector selector = new DiskAndFileSelector (diskOpener);
   private final RedoHandler redoHandler;
   private CloseTabAction closeTabAction;
+  private OutputPanel outputPanel;
   private File rootFolder;
   private boolean restored = false;
 
@@ -107,6 +110,9 @@ class CatalogPanel extends JTabbedPane implements RedoListener, SectorSelectionL
   public void activate ()
   // ---------------------------------------------------------------------------------//
   {
+    if (!restored)
+      return;           // restore will activate once the last disk has been opened
+
     if (fileTab == null)
     {
       System.out.println ("No file tab");
@@ -119,6 +125,14 @@ class CatalogPanel extends JTabbedPane implements RedoListener, SectorSelectionL
       setSelectedIndex (0);
   }
 
+  // shows the progress of any disk being opened
+  // ---------------------------------------------------------------------------------//
+  JPanel getProgressPanel ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return diskOpener.getProgressPanel ();
+  }
+
   // ---------------------------------------------------------------------------------//
   void setCloseTabAction (CloseTabAction action)
   // ---------------------------------------------------------------------------------//
@@ -126,6 +140,13 @@ class CatalogPanel extends JTabbedPane implements RedoListener, SectorSelectionL
     this.closeTabAction = action;
   }
 
+  // ---------------------------------------------------------------------------------//
+  void setOutputPanel (OutputPanel outputPanel)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.outputPanel = outputPanel;
+  }
+
   // called after a double-click in the fileTab
   // ---------------------------------------------------------------------------------//
   public void addDiskPanel (FormattedDisk disk, boolean activate)
@@ -154,12 +175,23 @@ class CatalogPanel extends JTabbedPane implements RedoListener, SectorSelectionL
   public void refreshTree ()
   // ---------------------------------------------------------------------------------//
   {
-    Tab tab = (Tab) getSelectedComponent ();
-    tab.refresh ();
+    Object tab = getSelectedComponent ();
 
-    // Any newly created disk needs to appear in the FileSystemTab's tree
-    if (tab instanceof AppleDiskTab appleDiskTab)
-      fileTab.replaceDisk (appleDiskTab.disk);
+    if (tab instanceof FileSystemTab fileSystemTab)
+      fileSystemTab.refresh ();
+    else if (tab instanceof AppleDiskTab appleDiskTab)
+      // reopened in the background, the tab keeps showing the old disk until then
+      diskOpener.open (new File (appleDiskTab.disk.getAbsolutePath ()), disk ->
+      {
+        if (disk == null || !diskTabs.contains (appleDiskTab))
+          return;
+
+        outputPanel.clearRenderCache ();        // it holds the old disk's files
+        appleDiskTab.refresh (disk);
+
+        // Any newly created disk needs to appear in the FileSystemTab's tree
+        fileTab.replaceDisk (disk);
+      }, null);
   }
 
   // ---------------------------------------------------------------------------------//
@@ -173,6 +205,7 @@ class CatalogPanel extends JTabbedPane implements RedoListener, SectorSelectionL
     int index = getSelectedIndex ();
     remove (index);
     diskTabs.remove (tab);
+    outputPanel.clearRenderCache ();
 
     for (int i = 1; i <= diskTabs.size (); i++)
       setTitleAt (i, "D" + i);
@@ -193,6 +226,9 @@ class CatalogPanel extends JTabbedPane implements RedoListener, SectorSelectionL
   public void quit (Preferences prefs)
   // ---------------------------------------------------------------------------------//
   {
+    if (!restored)
+      return;           // still opening the last disk, so keep the old settings
+
     if (fileTab == null)
     {
       prefs.put (prefsLastDiskUsed, "");
@@ -265,20 +301,32 @@ class CatalogPanel extends JTabbedPane implements RedoListener, SectorSelectionL
       System.out.println ("Last sectors : " + lastSectorsUsed);
     }
 
-    FormattedDisk fd1 = null;
-    DiskSelectedEvent diskEvent = null;
-    if (!lastDiskUsed.isEmpty ())
+    if (lastDiskUsed.isEmpty ())
     {
-      diskEvent = DiskSelectedEvent.create (this, lastDiskUsed);
-      if (diskEvent != null)
-      {
-        fd1 = diskEvent.getFormattedDisk ();
-        if (lastDosUsed >= 0 && fd1 instanceof HybridDisk hybridDisk)
-          hybridDisk.setCurrentDiskNo (lastDosUsed);
-      }
-    }
-    else
       System.out.println ("no disk selected");
+      restore (null, lastFileUsed, lastSectorsUsed);
+      return;
+    }
+
+    // let the main window appear while the disk is opened
+    diskOpener.open (new File (lastDiskUsed), fd ->
+    {
+      if (lastDosUsed >= 0 && fd instanceof HybridDisk hybridDisk)
+        hybridDisk.setCurrentDiskNo (lastDosUsed);
+      restore (fd, lastFileUsed, lastSectorsUsed);
+      activate ();
+    }, () ->
+    {
+      restore (null, "", "");
+      activate ();
+    });
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void restore (FormattedDisk fd, String lastFileUsed, String lastSectorsUsed)
+  // ---------------------------------------------------------------------------------//
+  {
+    DiskSelectedEvent diskEvent = fd == null ? null : new DiskSelectedEvent (this, fd);
 
     if (rootFolder != null)
       insertFileSystemTab (diskEvent);
@@ -286,8 +334,6 @@ class CatalogPanel extends JTabbedPane implements RedoListener, SectorSelectionL
     if (diskEvent != null)
     {
       AppleDiskTab tab = null;
-      FormattedDisk fd = diskEvent.getFormattedDisk ();
-      assert fd == fd1;
 
       if (!lastFileUsed.isEmpty ())
       {
@@ -465,7 +511,11 @@ class CatalogPanel extends JTabbedPane implements RedoListener, SectorSelectionL
         // lister.catalogLister.setNode (selectedNode);
       }
       else if (e.getClickCount () == 2)
-        addDiskPanel (node.getFormattedDisk (), true);
+        diskOpener.open (node, disk ->
+        {
+          if (disk != null)
+            addDiskPanel (disk, true);
+        });
     }
   }
 
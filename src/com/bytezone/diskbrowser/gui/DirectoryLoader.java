@@ -0,0 +1,233 @@
+package com.bytezone.diskbrowser.gui;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.DosFileAttributes;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.bytezone.diskbrowser.utilities.Utility;
+
+// Lists the visible entries of a folder, sorted with the folders last, reading each
+// entry's attributes in a single call. Listings are cached until a WatchService event
+// for the folder (or a refresh) discards them. Folders that can't be watched aren't
+// cached. Safe to call from any thread, but it may block on slow storage, so the tree
+// calls it in the background.
+// -----------------------------------------------------------------------------------//
+class DirectoryLoader
+// -----------------------------------------------------------------------------------//
+{
+  private static final boolean WINDOWS = File.separatorChar == '\\';
+
+  private static final Comparator<Entry> comparator = (thisEntry, thatEntry) ->
+  {
+    if (thisEntry.directory != thatEntry.directory)
+      return thisEntry.directory ? 1 : -1;
+    return thisEntry.file.getName ().compareToIgnoreCase (thatEntry.file.getName ());
+  };
+
+  private static final Map<Path, List<Entry>> cache = new ConcurrentHashMap<> ();
+  private static final AtomicLong invalidations = new AtomicLong ();
+
+  private static WatchService watchService;             // null until first needed
+  private static boolean watchUnavailable;
+  private static final Set<Path> watched = new HashSet<> ();
+
+  // ---------------------------------------------------------------------------------//
+  private DirectoryLoader ()
+  // ---------------------------------------------------------------------------------//
+  {
+  }
+
+  // ---------------------------------------------------------------------------------//
+  static class Entry
+  // ---------------------------------------------------------------------------------//
+  {
+    final File file;
+    final boolean directory;
+    final long size;
+    final long lastModified;
+
+    // -------------------------------------------------------------------------------//
+    Entry (File file, BasicFileAttributes attributes)
+    // -------------------------------------------------------------------------------//
+    {
+      this.file = file;
+      this.directory = attributes.isDirectory ();
+      this.size = attributes.size ();
+      this.lastModified = attributes.lastModifiedTime ().toMillis ();
+    }
+
+    // the entries that are shown in the disk tree
+    // -------------------------------------------------------------------------------//
+    boolean isTreeEntry ()
+    // -------------------------------------------------------------------------------//
+    {
+      return directory || isDisk ();
+    }
+
+    // -------------------------------------------------------------------------------//
+    boolean isDisk ()
+    // -------------------------------------------------------------------------------//
+    {
+      return !directory && size > 0 && Utility.validFileType (file.getName ());
+    }
+  }
+
+  // returns an empty list if the folder can't be read
+  // ---------------------------------------------------------------------------------//
+  static List<Entry> list (File directory)
+  // ---------------------------------------------------------------------------------//
+  {
+    Path path = directory.toPath ();
+    List<Entry> entries = cache.get (path);
+    if (entries != null)
+      return entries;
+
+    long stamp = invalidations.get ();
+    boolean watching = watch (path);          // before reading, so no change is missed
+
+    entries = Collections.unmodifiableList (read (path));
+
+    // don't keep a listing that may have changed while it was being read
+    if (watching && stamp == invalidations.get ())
+      cache.put (path, entries);
+
+    return entries;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  static void clear ()
+  // ---------------------------------------------------------------------------------//
+  {
+    invalidations.incrementAndGet ();
+    cache.clear ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private static List<Entry> read (Path path)
+  // ---------------------------------------------------------------------------------//
+  {
+    List<Entry> entries = new ArrayList<> ();
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream (path))
+    {
+      for (Path child : stream)
+      {
+        try
+        {
+          BasicFileAttributes attributes;
+          if (WINDOWS)
+          {
+            DosFileAttributes dosAttributes =
+                Files.readAttributes (child, DosFileAttributes.class);
+            if (dosAttributes.isHidden ())
+              continue;
+            attributes = dosAttributes;
+          }
+          else
+          {
+            if (child.getFileName ().toString ().startsWith ("."))
+              continue;
+            attributes = Files.readAttributes (child, BasicFileAttributes.class);
+          }
+
+          entries.add (new Entry (child.toFile (), attributes));
+        }
+        catch (IOException e)
+        {
+          // a broken link or a file that has just been deleted
+        }
+      }
+    }
+    catch (IOException e)
+    {
+      System.out.println ("Error reading folder : " + path);
+      System.out.println (e.getMessage ());
+    }
+
+    entries.sort (comparator);
+    return entries;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private static synchronized boolean watch (Path path)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (watched.contains (path))
+      return true;
+    if (watchUnavailable)
+      return false;
+
+    try
+    {
+      if (watchService == null)
+      {
+        watchService = path.getFileSystem ().newWatchService ();
+        Thread thread = new Thread (DirectoryLoader::processEvents, "DirectoryLoader");
+        thread.setDaemon (true);
+        thread.start ();
+      }
+
+      path.register (watchService, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+      watched.add (path);
+      return true;
+    }
+    catch (UnsupportedOperationException e)
+    {
+      watchUnavailable = true;
+      return false;
+    }
+    catch (IOException e)           // eg out of watches, or a network share
+    {
+      return false;
+    }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private static void processEvents ()
+  // ---------------------------------------------------------------------------------//
+  {
+    while (true)
+    {
+      WatchKey key;
+      try
+      {
+        key = watchService.take ();
+      }
+      catch (InterruptedException e)
+      {
+        return;
+      }
+
+      Path path = (Path) key.watchable ();
+      key.pollEvents ();
+
+      invalidations.incrementAndGet ();
+      cache.remove (path);
+
+      if (!key.reset ())                  // the folder has gone
+        synchronized (DirectoryLoader.class)
+        {
+          watched.remove (path);
+        }
+    }
+  }
+}
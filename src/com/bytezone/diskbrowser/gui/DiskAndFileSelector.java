@@ -14,6 +14,14 @@ class DiskAndFileSelector
   EventListenerList listenerList = new EventListenerList ();
   FormattedDisk currentDisk;
   boolean redo;
+  private final DiskOpener diskOpener;
+
+  // ---------------------------------------------------------------------------------//
+  DiskAndFileSelector (DiskOpener diskOpener)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.diskOpener = diskOpener;
+  }
 
   /*
    * Apple DiskSelection routines
@@ -80,12 +88,20 @@ class DiskAndFileSelector
     }
     else
     {
-      FormattedDisk fd = node.getFormattedDisk ();
-      if (fd == null)
-        JOptionPane.showMessageDialog (null, "Unrecognised file format", "Format error",
-            JOptionPane.ERROR_MESSAGE);
-      else
-        fireDiskSelectionEvent (fd);
+      boolean selectionRedo = redo;     // the disk may arrive after the redo has ended
+      diskOpener.open (node, fd ->
+      {
+        if (fd == null)
+          JOptionPane.showMessageDialog (null, "Unrecognised file format",
+              "Format error", JOptionPane.ERROR_MESSAGE);
+        else
+        {
+          boolean saveRedo = redo;
+          redo = selectionRedo;
+          fireDiskSelectionEvent (fd);
+          redo = saveRedo;
+        }
+      });
     }
   }
 
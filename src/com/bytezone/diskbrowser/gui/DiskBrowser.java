@@ -71,6 +71,7 @@ public class DiskBrowser extends JFrame
     // create and add the left-hand catalog panel
     CatalogPanel catalogPanel = new CatalogPanel (redoHandler);
     catalogBorderPanel = addPanel (catalogPanel, "Catalog", BorderLayout.WEST);
+    catalogBorderPanel.add (catalogPanel.getProgressPanel (), BorderLayout.SOUTH);
 
     // create and add the centre output panel
     OutputPanel dataPanel = new OutputPanel (menuHandler);
@@ -176,6 +177,7 @@ public class DiskBrowser extends JFrame
     }
 
     catalogPanel.setCloseTabAction (closeTabAction);
+    catalogPanel.setOutputPanel (dataPanel);
 
     pack ();
 
@@ -12,10 +12,18 @@ import java.awt.event.KeyAdapter;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.swing.Scrollable;
 import javax.swing.SwingConstants;
+import javax.swing.SwingUtilities;
 
 import com.bytezone.diskbrowser.disk.Disk;
 import com.bytezone.diskbrowser.disk.DiskAddress;
@@ -25,6 +33,9 @@ import com.bytezone.diskbrowser.gui.DiskLayoutPanel.LayoutDetails;
 import com.bytezone.diskbrowser.gui.RedoHandler.RedoEvent;
 import com.bytezone.diskbrowser.gui.RedoHandler.RedoListener;
 
+// The grid is drawn into cached tiles of TILE_ROWS rows, so a repaint is just a copy of
+// the visible tiles. The state of each block is held in arrays and bitsets, and only the
+// tiles containing blocks whose state has changed are redrawn.
 // -----------------------------------------------------------------------------------//
 class DiskLayoutImage extends DiskPanel implements Scrollable, RedoListener
 // -----------------------------------------------------------------------------------//
@@ -33,6 +44,9 @@ class DiskLayoutImage extends DiskPanel implements Scrollable, RedoListener
   private static final Color[] lightColors =
       { Color.WHITE, Color.YELLOW, Color.PINK, Color.CYAN, Color.ORANGE, Color.GREEN };
 
+  private static final int TILE_ROWS = 64;
+  private static final int MAX_TILES = 32;
+
   private boolean showFreeSectors;
   private final DiskLayoutSelection selectionHandler = new DiskLayoutSelection ();
   private boolean redo;
@@ -40,6 +54,19 @@ class DiskLayoutImage extends DiskPanel implements Scrollable, RedoListener
   // set defaults (used until a real disk is set)
   private int gridWidth = 8;
   private int gridHeight = 35;
+  private int maxBlock;
+
+  // the state of each block when the tiles were drawn
+  private short[] blockTypes = new short[0];      // index into sectorTypes, -1 if none
+  private final List<SectorType> sectorTypes = new ArrayList<> ();
+  private final Map<SectorType, Integer> sectorTypeIndex = new IdentityHashMap<> ();
+  private final BitSet freeBlocks = new BitSet ();
+  private BitSet selectedBlocks = new BitSet ();
+
+  private final Map<Integer, BufferedImage> tiles = new LinkedHashMap<> (16, 0.75f, true);
+  private double tileScale = 1;
+
+  private DiskOverview overview;
 
   // ---------------------------------------------------------------------------------//
   public DiskLayoutImage ()
@@ -67,11 +94,27 @@ class DiskLayoutImage extends DiskPanel implements Scrollable, RedoListener
 
     setPreferredSize (
         new Dimension (gridWidth * blockWidth + 1, gridHeight * blockHeight + 1));
-    selectionHandler.setSelection (null);
+    selectionHandler.clear ();
+
+    maxBlock = Math.min (gridWidth * gridHeight, disk.getDisk ().getTotalBlocks ());
+    blockTypes = new short[maxBlock];
+    sectorTypes.clear ();
+    sectorTypeIndex.clear ();
+    freeBlocks.clear ();
+    selectedBlocks = new BitSet ();
+    tiles.clear ();
+    updateBlocks ();
 
     repaint ();
   }
 
+  // ---------------------------------------------------------------------------------//
+  void setOverview (DiskOverview overview)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.overview = overview;
+  }
+
   // ---------------------------------------------------------------------------------//
   public FormattedDisk getDisk ()
   // ---------------------------------------------------------------------------------//
@@ -86,6 +129,7 @@ class DiskLayoutImage extends DiskPanel implements Scrollable, RedoListener
     if (showFree != showFreeSectors)
     {
       showFreeSectors = showFree;
+      tiles.clear ();
       repaint ();
     }
   }
@@ -102,7 +146,123 @@ class DiskLayoutImage extends DiskPanel implements Scrollable, RedoListener
 //        scrollRectToVisible (layoutDetails.getLocation (da));
       scrollRectToVisible (layoutDetails.getLocation (sectors.get (0)));
     }
-    repaint ();
+    selectionChanged ();
+  }
+
+  // restoring a previous selection
+  // ---------------------------------------------------------------------------------//
+  private void setSelection (BitSet blocks)
+  // ---------------------------------------------------------------------------------//
+  {
+    // the blocks may have come from the preferences of a different disk
+    Disk disk = formattedDisk.getDisk ();
+    int totalBlocks = disk.getTotalBlocks ();
+    BitSet valid = (BitSet) blocks.clone ();
+    valid.clear (totalBlocks, Math.max (totalBlocks, valid.length ()));
+
+    selectionHandler.setSelection (valid);
+    if (!valid.isEmpty ())
+      scrollRectToVisible (
+          layoutDetails.getLocation (disk.getDiskAddress (valid.nextSetBit (0))));
+    selectionChanged ();
+  }
+
+  // redraw the tiles of any blocks that have been selected or deselected, or whose type
+  // has changed since they were drawn (some disks only classify a file's sectors when
+  // the file is first read, so only the selected blocks need to be checked)
+  // ---------------------------------------------------------------------------------//
+  private void selectionChanged ()
+  // ---------------------------------------------------------------------------------//
+  {
+    BitSet selected = selectionHandler.getHighlights ();     // a copy
+
+    BitSet changed = (BitSet) selected.clone ();
+    changed.xor (selectedBlocks);
+    selectedBlocks = selected;
+    invalidateTiles (changed);
+
+    // the selection may have been made by a listener that is about to read the file
+    SwingUtilities
+        .invokeLater (() -> invalidateTiles (blocksChanged (updateBlocks (selected))));
+  }
+
+  // pass on any changed sector types to the overview
+  // ---------------------------------------------------------------------------------//
+  private BitSet blocksChanged (BitSet changed)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (overview != null && !changed.isEmpty ())
+      overview.blocksChanged (changed);
+
+    return changed;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void invalidateTiles (BitSet changed)
+  // ---------------------------------------------------------------------------------//
+  {
+    int tileBlocks = TILE_ROWS * gridWidth;
+    for (int block = changed.nextSetBit (0); block >= 0;
+        block = changed.nextSetBit (block + 1))
+    {
+      int tile = block / tileBlocks;
+      tiles.remove (tile);
+      repaint (getTileBounds (tile));
+      block = (tile + 1) * tileBlocks - 1;            // skip to the next tile
+    }
+  }
+
+  // copy each block's type and free flag, and return the blocks that have changed
+  // ---------------------------------------------------------------------------------//
+  private BitSet updateBlocks ()
+  // ---------------------------------------------------------------------------------//
+  {
+    BitSet changed = new BitSet ();
+    if (formattedDisk != null)
+      for (int blockNo = 0; blockNo < maxBlock; blockNo++)
+        updateBlock (blockNo, changed);
+
+    return changed;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private BitSet updateBlocks (BitSet blocks)
+  // ---------------------------------------------------------------------------------//
+  {
+    BitSet changed = new BitSet ();
+    if (formattedDisk != null)
+      for (int blockNo = blocks.nextSetBit (0); blockNo >= 0 && blockNo < maxBlock;
+          blockNo = blocks.nextSetBit (blockNo + 1))
+        updateBlock (blockNo, changed);
+
+    return changed;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void updateBlock (int blockNo, BitSet changed)
+  // ---------------------------------------------------------------------------------//
+  {
+    SectorType type = formattedDisk.getSectorType (blockNo);
+    short typeNo = -1;
+    if (type != null)
+    {
+      Integer index = sectorTypeIndex.get (type);
+      if (index == null)
+      {
+        index = sectorTypes.size ();
+        sectorTypes.add (type);
+        sectorTypeIndex.put (type, index);
+      }
+      typeNo = index.shortValue ();
+    }
+
+    boolean free = formattedDisk.isSectorFree (blockNo);
+    if (blockTypes[blockNo] != typeNo || freeBlocks.get (blockNo) != free)
+    {
+      blockTypes[blockNo] = typeNo;
+      freeBlocks.set (blockNo, free);
+      changed.set (blockNo);
+    }
   }
 
   // ---------------------------------------------------------------------------------//
@@ -115,40 +275,75 @@ class DiskLayoutImage extends DiskPanel implements Scrollable, RedoListener
     if (formattedDisk == null)
       return;
 
-    Rectangle clipRect = g.getClipBounds ();
+    // draw the tiles at the screen resolution
+    double scale = ((Graphics2D) g).getTransform ().getScaleX ();
+    if (scale != tileScale)
+    {
+      tiles.clear ();
+      tileScale = scale;
+    }
 
-    Point topLeft = new Point (clipRect.x / blockWidth * blockWidth,
-        clipRect.y / blockHeight * blockHeight);
-    Point bottomRight =
-        new Point ((clipRect.x + clipRect.width - 1) / blockWidth * blockWidth,
-            (clipRect.y + clipRect.height - 1) / blockHeight * blockHeight);
+    Rectangle clipRect = g.getClipBounds ();
+    int tileHeight = TILE_ROWS * blockHeight;
+    int firstTile = clipRect.y / tileHeight;
+    int lastTile = (clipRect.y + clipRect.height - 1) / tileHeight;
 
-    int maxBlock = gridWidth * gridHeight;
-    Disk d = formattedDisk.getDisk ();
+    for (int tile = firstTile; tile <= lastTile && tile * TILE_ROWS < gridHeight; tile++)
+    {
+      Rectangle bounds = getTileBounds (tile);
+      g.drawImage (getTile (tile), bounds.x, bounds.y, bounds.width, bounds.height, null);
+    }
+  }
 
-    // this stops an index error when using alt-5 to switch to 512-byte blocks
-    //    if (maxBlock > d.getTotalBlocks ())
-    //      maxBlock = d.getTotalBlocks ();
-    // the index error is caused by not recalculating the grid layout
+  // ---------------------------------------------------------------------------------//
+  private Rectangle getTileBounds (int tile)
+  // ---------------------------------------------------------------------------------//
+  {
+    int rows = Math.min (TILE_ROWS, gridHeight - tile * TILE_ROWS);
+    return new Rectangle (0, tile * TILE_ROWS * blockHeight, gridWidth * blockWidth + 1,
+        rows * blockHeight + 1);
+  }
 
-    for (int y = topLeft.y; y <= bottomRight.y; y += blockHeight)
-      for (int x = topLeft.x; x <= bottomRight.x; x += blockWidth)
+  // ---------------------------------------------------------------------------------//
+  private BufferedImage getTile (int tile)
+  // ---------------------------------------------------------------------------------//
+  {
+    BufferedImage image = tiles.get (tile);
+    if (image != null)
+      return image;
+
+    Rectangle bounds = getTileBounds (tile);
+    image = new BufferedImage ((int) Math.ceil (bounds.width * tileScale),
+        (int) Math.ceil (bounds.height * tileScale), BufferedImage.TYPE_INT_RGB);
+
+    Graphics2D g = image.createGraphics ();
+    g.scale (tileScale, tileScale);
+    g.setColor (backgroundColor);
+    g.fillRect (0, 0, bounds.width, bounds.height);
+
+    int firstRow = tile * TILE_ROWS;
+    int lastRow = firstRow + bounds.height / blockHeight;
+    for (int row = firstRow; row < lastRow; row++)
+      for (int column = 0; column < gridWidth; column++)
       {
-        int blockNo = y / blockHeight * gridWidth + x / blockWidth;
-        if (blockNo < maxBlock)
-        {
-          SectorType type = formattedDisk.getSectorType (blockNo);
-          if (type == null)
-            System.out.println ("Sector type is null " + blockNo);
-          else
-          {
-            DiskAddress da = d.getDiskAddress (blockNo);
-            boolean free = showFreeSectors && formattedDisk.isSectorFree (da);
-            boolean selected = selectionHandler.isSelected (da);
-            drawBlock ((Graphics2D) g, type, x, y, free, selected);
-          }
-        }
+        int blockNo = row * gridWidth + column;
+        if (blockNo < maxBlock && blockTypes[blockNo] >= 0)
+          drawBlock (g, sectorTypes.get (blockTypes[blockNo]), column * blockWidth,
+              (row - firstRow) * blockHeight, showFreeSectors && freeBlocks.get (blockNo),
+              selectedBlocks.get (blockNo));
       }
+
+    g.dispose ();
+
+    tiles.put (tile, image);
+    if (tiles.size () > MAX_TILES)            // drop the least recently drawn
+    {
+      Iterator<Integer> iterator = tiles.keySet ().iterator ();
+      iterator.next ();
+      iterator.remove ();
+    }
+
+    return image;
   }
 
   // ---------------------------------------------------------------------------------//
@@ -230,7 +425,7 @@ class DiskLayoutImage extends DiskPanel implements Scrollable, RedoListener
   {
     redo = true;
     SectorSelectedEvent event = (SectorSelectedEvent) redoEvent.value;
-    setSelection (event.getSectors ());
+    setSelection (event.getBlocks ());
     fireSectorSelectionEvent (event);
     redo = false;
 
@@ -286,7 +481,7 @@ class DiskLayoutImage extends DiskPanel implements Scrollable, RedoListener
         case KeyEvent.VK_DOWN:
           selectionHandler.cursorMove (formattedDisk, e);
           fireSectorSelectionEvent ();
-          repaint ();
+          selectionChanged ();
       }
     }
   }
@@ -308,9 +503,9 @@ class DiskLayoutImage extends DiskPanel implements Scrollable, RedoListener
       boolean extend = ((e.getModifiersEx () & InputEvent.SHIFT_DOWN_MASK) > 0);
       boolean append = ((e.getModifiersEx () & InputEvent.CTRL_DOWN_MASK) > 0);
 
-      selectionHandler.doClick (formattedDisk.getDisk (), da, extend, append);
+      selectionHandler.doClick (da, extend, append);
       fireSectorSelectionEvent ();
-      repaint ();
+      selectionChanged ();
       requestFocusInWindow ();
     }
 
@@ -37,7 +37,9 @@ class DiskLayoutPanel extends JPanel implements DiskSelectionListener,
   private final ScrollRuler verticalRuler;
   private final ScrollRuler horizontalRuler;
   private final DiskLegendPanel legendPanel;
+  private final DiskOverview overview;
   private final JScrollPane sp;
+  private final JPanel layoutPanel;             // the scroll pane and its overview
   private LayoutDetails layout;
 
   // ---------------------------------------------------------------------------------//
@@ -64,8 +66,16 @@ class DiskLayoutPanel extends JPanel implements DiskSelectionListener,
     sp.setCorner (JScrollPane.UPPER_RIGHT_CORNER, new Corner (false));
     sp.setCorner (JScrollPane.LOWER_RIGHT_CORNER, new Corner (false));
 
+    overview = new DiskOverview (sp.getViewport ());
+    overview.setVisible (false);
+    diskLayoutImage.setOverview (overview);
+
+    layoutPanel = new JPanel (new BorderLayout ());
+    layoutPanel.add (sp, BorderLayout.CENTER);
+    layoutPanel.add (overview, BorderLayout.EAST);
+
     // this is just so the pack is correct
-    add (sp, BorderLayout.CENTER);
+    add (layoutPanel, BorderLayout.CENTER);
     add (legendPanel, BorderLayout.SOUTH);
   }
 
@@ -78,6 +88,7 @@ class DiskLayoutPanel extends JPanel implements DiskSelectionListener,
     verticalRuler.setLayout (layout);
     horizontalRuler.setLayout (layout);
     legendPanel.setDisk (disk, layout);
+    overview.setDisk (disk, layout);
 
     // this is the only way I know of to force a refresh
     sp.setViewportView (diskLayoutImage);
@@ -85,12 +96,12 @@ class DiskLayoutPanel extends JPanel implements DiskSelectionListener,
     setLayout (new BorderLayout ());
     if (disk.getGridLayout ().height == 35)       // what about 48?
     {
-      add (sp, BorderLayout.NORTH);
+      add (layoutPanel, BorderLayout.NORTH);
       add (legendPanel, BorderLayout.CENTER);
     }
     else
     {
-      add (sp, BorderLayout.CENTER);
+      add (layoutPanel, BorderLayout.CENTER);
       add (legendPanel, BorderLayout.SOUTH);
     }
 
@@ -104,6 +115,7 @@ class DiskLayoutPanel extends JPanel implements DiskSelectionListener,
 
         diskLayoutImage.setDisk (disk, layout);
         legendPanel.setDisk (disk, layout);
+        overview.setDisk (disk, layout);
 
         verticalRuler.setLayout (layout);
         horizontalRuler.setLayout (layout);
@@ -269,6 +281,7 @@ class DiskLayoutPanel extends JPanel implements DiskSelectionListener,
       LayoutDetails layout = new LayoutDetails (newDisk);
       diskLayoutImage.setDisk (newDisk, layout);
       legendPanel.setDisk (newDisk, layout);
+      overview.setDisk (newDisk, layout);
     }
   }
 }
\ No newline at end of file
@@ -2,9 +2,7 @@ package com.bytezone.diskbrowser.gui;
 
 import java.awt.Dimension;
 import java.awt.event.KeyEvent;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Iterator;
+import java.util.BitSet;
 import java.util.List;
 
 import com.bytezone.diskbrowser.disk.AppleDiskAddress;
@@ -12,50 +10,55 @@ import com.bytezone.diskbrowser.disk.Disk;
 import com.bytezone.diskbrowser.disk.DiskAddress;
 import com.bytezone.diskbrowser.disk.FormattedDisk;
 
+// The selected blocks are kept as a set of block numbers, so that testing, adding
+// and removing a block, or a range of blocks, doesn't depend on the selection size.
 // -----------------------------------------------------------------------------------//
-class DiskLayoutSelection implements Iterable<DiskAddress>
+class DiskLayoutSelection
 // -----------------------------------------------------------------------------------//
 {
-  private final List<DiskAddress> highlights;
+  private final BitSet highlights;
 
   public DiskLayoutSelection ()
   {
-    highlights = new ArrayList<> ();
+    highlights = new BitSet ();
   }
 
   // ---------------------------------------------------------------------------------//
-  public void doClick (Disk disk, DiskAddress da, boolean extend, boolean append)
+  public void doClick (DiskAddress da, boolean extend, boolean append)
   // ---------------------------------------------------------------------------------//
   {
+    if (da == null)                           // clicked past the end of the disk
+      return;
+
+    int block = da.getBlockNo ();
+
     /*
      * Single click without modifiers - just replace previous highlights with the new
      * sector. If there are no current highlights then even modifiers have the same
      * effect.
      */
-    if ((!extend && !append) || highlights.size () == 0)
+    if ((!extend && !append) || highlights.isEmpty ())
     {
       highlights.clear ();
-      addHighlight (da);
+      highlights.set (block);
       return;
     }
 
     /*
      * If the click was on an existing highlight, just remove it (regardless of modifiers)
      */
-    for (DiskAddress setDA : highlights)
-      if (da.matches (setDA))
-      {
-        highlights.remove (setDA);
-        return;
-      }
+    if (highlights.get (block))
+    {
+      highlights.clear (block);
+      return;
+    }
 
     /*
      * Appending - just add the sector to the existing highlights
      */
     if (append)
     {
-      addHighlight (da);
-      Collections.sort (highlights);
+      highlights.set (block);
       return;
     }
 
@@ -64,18 +67,16 @@ class DiskLayoutSelection implements Iterable<DiskAddress>
      * then things get a bit trickier.
      */
     if (checkContiguous ())
-      extendHighlights (disk, da);
+      extendHighlights (block);
     else
-      adjustHighlights (disk, da);
-
-    Collections.sort (highlights);
+      adjustHighlights (block);
   }
 
   // ---------------------------------------------------------------------------------//
   void cursorMove (FormattedDisk formattedDisk, KeyEvent e)
   // ---------------------------------------------------------------------------------//
   {
-    if (highlights.size () == 0)
+    if (highlights.isEmpty ())
     {
       System.out.println ("Nothing to move");
       return;
@@ -83,8 +84,8 @@ class DiskLayoutSelection implements Iterable<DiskAddress>
 
     Disk disk = formattedDisk.getDisk ();
 
-    DiskAddress first = highlights.get (0);
-    DiskAddress last = highlights.get (highlights.size () - 1);
+    int first = getFirst ();
+    int last = getLast ();
 
     if (!e.isShiftDown ())
       highlights.clear ();
@@ -96,69 +97,69 @@ class DiskLayoutSelection implements Iterable<DiskAddress>
     switch (e.getKeyCode ())
     {
       case KeyEvent.VK_LEFT:
-        int block = first.getBlockNo () - 1;
+        int block = first - 1;
         if (block < 0)
           block = totalBlocks - 1;
-        addHighlight (disk.getDiskAddress (block));
+        highlights.set (block);
         break;
 
       case KeyEvent.VK_RIGHT:
-        block = last.getBlockNo () + 1;
+        block = last + 1;
         if (block >= totalBlocks)
           block = 0;
-        addHighlight (disk.getDiskAddress (block));
+        highlights.set (block);
         break;
 
       case KeyEvent.VK_UP:
-        block = first.getBlockNo () - rowSize;
+        block = first - rowSize;
         if (block < 0)
           block += totalBlocks;
-        addHighlight (disk.getDiskAddress (block));
+        highlights.set (block);
         break;
 
       case KeyEvent.VK_DOWN:
-        block = last.getBlockNo () + rowSize;
+        block = last + rowSize;
         if (block >= totalBlocks)
           block -= totalBlocks;
-        addHighlight (disk.getDiskAddress (block));
+        highlights.set (block);
         break;
     }
-    Collections.sort (highlights);
   }
 
+  // This must return a copy, or the redo function will get very confused
   // ---------------------------------------------------------------------------------//
-  private void addHighlight (DiskAddress da)
+  public BitSet getHighlights ()
   // ---------------------------------------------------------------------------------//
   {
-    assert da != null;
-    highlights.add (da);
+    return (BitSet) highlights.clone ();
   }
 
   // ---------------------------------------------------------------------------------//
-  @Override
-  public Iterator<DiskAddress> iterator ()
+  public boolean isSelected (int block)
   // ---------------------------------------------------------------------------------//
   {
-    return highlights.iterator ();
+    return highlights.get (block);
   }
 
-  // This must return a copy, or the redo function will get very confused
   // ---------------------------------------------------------------------------------//
-  public List<DiskAddress> getHighlights ()
+  public boolean isEmpty ()
   // ---------------------------------------------------------------------------------//
   {
-    return new ArrayList<> (highlights);
+    return highlights.isEmpty ();
   }
 
   // ---------------------------------------------------------------------------------//
-  public boolean isSelected (DiskAddress da)
+  public int getFirst ()
   // ---------------------------------------------------------------------------------//
   {
-    for (DiskAddress selection : highlights)
-      if (selection != null && da.matches (selection))
-        return true;
+    return highlights.nextSetBit (0);
+  }
 
-    return false;
+  // ---------------------------------------------------------------------------------//
+  public int getLast ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return highlights.length () - 1;
   }
 
   // ---------------------------------------------------------------------------------//
@@ -170,53 +171,57 @@ class DiskLayoutSelection implements Iterable<DiskAddress>
     if (list != null)
       for (DiskAddress da : list)
         if (da != null && (da.getBlockNo () > 0 || ((AppleDiskAddress) da).zeroFlag ()))
-          highlights.add (da);
+          highlights.set (da.getBlockNo ());
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public void setSelection (BitSet blocks)
+  // ---------------------------------------------------------------------------------//
+  {
+    highlights.clear ();
+    highlights.or (blocks);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public void clear ()
+  // ---------------------------------------------------------------------------------//
+  {
+    highlights.clear ();
   }
 
   // ---------------------------------------------------------------------------------//
   private boolean checkContiguous ()
   // ---------------------------------------------------------------------------------//
   {
-    int range = highlights.get (highlights.size () - 1).getBlockNo ()
-        - highlights.get (0).getBlockNo () + 1;
-    return (range == highlights.size ());
+    // the first clear bit after the first block is past the last one
+    return highlights.nextClearBit (getFirst ()) == highlights.length ();
   }
 
   // ---------------------------------------------------------------------------------//
-  private void extendHighlights (Disk disk, DiskAddress da)
+  private void extendHighlights (int block)
   // ---------------------------------------------------------------------------------//
   {
-    int lo, hi;
+    int first = getFirst ();
 
     // Are we extending in front of the current block?
-    if (highlights.get (0).getBlockNo () > da.getBlockNo ())
-    {
-      lo = da.getBlockNo ();
-      hi = highlights.get (0).getBlockNo () - 1;
-    }
+    if (first > block)
+      highlights.set (block, first);
     else        // No, must be extending at the end
-    {
-      lo = highlights.get (highlights.size () - 1).getBlockNo () + 1;
-      hi = da.getBlockNo ();
-    }
-
-    for (int i = lo; i <= hi; i++)
-      addHighlight (disk.getDiskAddress (i));
+      highlights.set (getLast () + 1, block + 1);
   }
 
   // ---------------------------------------------------------------------------------//
-  private void adjustHighlights (Disk disk, DiskAddress da)
+  private void adjustHighlights (int block)
   // ---------------------------------------------------------------------------------//
   {
     // If we are outside the discontiguous range, just extend as usual
-    if (da.getBlockNo () < highlights.get (0).getBlockNo ()
-        || da.getBlockNo () > highlights.get (highlights.size () - 1).getBlockNo ())
+    if (block < getFirst () || block > getLast ())
     {
-      extendHighlights (disk, da);
+      extendHighlights (block);
       return;
     }
 
     // just treat it like a ctrl-click (hack!!)
-    addHighlight (da);
+    highlights.set (block);
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,267 @@
+package com.bytezone.diskbrowser.gui;
+
+import java.awt.BorderLayout;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import javax.swing.BorderFactory;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingWorker;
+import javax.swing.Timer;
+
+import com.bytezone.diskbrowser.applefile.AppleFileSource;
+import com.bytezone.diskbrowser.disk.DiskFactory;
+import com.bytezone.diskbrowser.disk.DiskFactory.Stage;
+import com.bytezone.diskbrowser.disk.FormattedDisk;
+import com.bytezone.diskbrowser.gui.TreeBuilder.FileNode;
+import com.bytezone.diskbrowser.utilities.FileFormatException;
+
+// Creates disks away from the EDT. Only one disk is opened at a time: asking for the
+// same file again while it is being opened just adds another action to run when it
+// is ready, and asking for a different file abandons the first one. The progress
+// panel is only shown if the disk takes a while to open.
+// -----------------------------------------------------------------------------------//
+class DiskOpener
+// -----------------------------------------------------------------------------------//
+{
+  private static final int PROGRESS_DELAY = 250;
+
+  // DiskFactory can only create one disk at a time anyway
+  private static final ExecutorService executor = new ThreadPoolExecutor (1, 1, 30,
+      TimeUnit.SECONDS, new ArrayBlockingQueue<> (1), runnable ->
+      {
+        Thread thread = new Thread (runnable, "DiskOpener");
+        thread.setDaemon (true);
+        return thread;
+      }, new ThreadPoolExecutor.DiscardOldestPolicy ());
+
+  static
+  {
+    ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut (true);
+  }
+
+  private final JPanel progressPanel = new JPanel (new BorderLayout (5, 0));
+  private final JLabel progressLabel = new JLabel ();
+  private final JProgressBar progressBar =
+      new JProgressBar (0, Stage.values ().length);
+  private final Timer progressTimer;
+
+  private OpenWorker worker;
+
+  // ---------------------------------------------------------------------------------//
+  DiskOpener ()
+  // ---------------------------------------------------------------------------------//
+  {
+    JButton cancelButton = new JButton ("Cancel");
+    cancelButton.addActionListener (e -> cancel ());
+
+    progressPanel.setBorder (BorderFactory.createEmptyBorder (4, 4, 4, 4));
+    progressPanel.add (progressLabel, BorderLayout.NORTH);
+    progressPanel.add (progressBar, BorderLayout.CENTER);
+    progressPanel.add (cancelButton, BorderLayout.EAST);
+    progressPanel.setVisible (false);
+
+    progressTimer = new Timer (PROGRESS_DELAY, e -> progressPanel.setVisible (true));
+    progressTimer.setRepeats (false);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  JPanel getProgressPanel ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return progressPanel;
+  }
+
+  // the action is passed null if the file is not a disk, and is run immediately if
+  // the node's disk has already been created
+  // ---------------------------------------------------------------------------------//
+  void open (FileNode fileNode, Consumer<FormattedDisk> action)
+  // ---------------------------------------------------------------------------------//
+  {
+    FormattedDisk disk = fileNode.getCreatedDisk ();
+    if (disk != null)
+    {
+      action.accept (disk);
+      return;
+    }
+
+    open (fileNode.file, fileNode, action);
+  }
+
+  // cancelAction is run instead if the disk is abandoned before it has been opened
+  // ---------------------------------------------------------------------------------//
+  void open (File file, Consumer<FormattedDisk> action, Runnable cancelAction)
+  // ---------------------------------------------------------------------------------//
+  {
+    open (file, null, action);
+    worker.cancelAction = cancelAction;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void open (File file, FileNode fileNode, Consumer<FormattedDisk> action)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (worker != null && !worker.isDone ())
+    {
+      if (worker.file.equals (file))           // repeated click
+      {
+        worker.actions.add (action);
+        if (worker.fileNode == null)
+          worker.fileNode = fileNode;
+        return;
+      }
+      abandon (worker);
+    }
+
+    worker = new OpenWorker (file, fileNode, action);
+    progressLabel.setText (file.getName ());
+    progressBar.setValue (0);
+    progressTimer.restart ();
+
+    executor.execute (worker);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  void cancel ()
+  // ---------------------------------------------------------------------------------//
+  {
+    OpenWorker cancelledWorker = worker;
+    worker = null;
+
+    progressTimer.stop ();
+    progressPanel.setVisible (false);
+
+    if (cancelledWorker != null)
+      abandon (cancelledWorker);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void abandon (OpenWorker openWorker)
+  // ---------------------------------------------------------------------------------//
+  {
+    openWorker.cancel (false);                // stops at the next stage
+    if (openWorker.cancelAction != null)
+      openWorker.cancelAction.run ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private String getDescription (Stage stage)
+  // ---------------------------------------------------------------------------------//
+  {
+    return switch (stage)
+    {
+      case READ -> "Reading";
+      case DECOMPRESS -> "Decompressing";
+      case DECODE -> "Decoding";
+      case PROBE -> "Checking format";
+      case CATALOG -> "Reading catalog";
+    };
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private class OpenWorker extends SwingWorker<FormattedDisk, Stage>
+  // ---------------------------------------------------------------------------------//
+  {
+    final File file;
+    FileNode fileNode;                        // gets a copy of the disk, may be null
+    final List<Consumer<FormattedDisk>> actions = new ArrayList<> ();
+    Runnable cancelAction;
+
+    // -------------------------------------------------------------------------------//
+    OpenWorker (File file, FileNode fileNode, Consumer<FormattedDisk> action)
+    // -------------------------------------------------------------------------------//
+    {
+      this.file = file;
+      this.fileNode = fileNode;
+      actions.add (action);
+    }
+
+    // -------------------------------------------------------------------------------//
+    @Override
+    protected FormattedDisk doInBackground ()
+    // -------------------------------------------------------------------------------//
+    {
+      FormattedDisk disk;
+      try
+      {
+        disk = DiskFactory.createDisk (file.getAbsolutePath (), stage ->
+        {
+          if (isCancelled ())
+            throw new CancellationException ();
+          publish (stage);
+        });
+      }
+      catch (FileFormatException e)
+      {
+        System.out.println (e.getMessage ());
+        return null;
+      }
+
+      if (disk == null || isCancelled ())
+        return null;
+
+      // build the catalog that is shown first, nothing else can see the disk yet
+      publish (Stage.CATALOG);
+      AppleFileSource catalog = disk.getCatalog ();
+      if (catalog != null)
+        catalog.getDataSource ();
+
+      return disk;
+    }
+
+    // runs on the EDT
+    // -------------------------------------------------------------------------------//
+    @Override
+    protected void process (List<Stage> chunks)
+    // -------------------------------------------------------------------------------//
+    {
+      if (worker != this)
+        return;
+
+      Stage stage = chunks.get (chunks.size () - 1);
+      progressLabel.setText (getDescription (stage) + " " + file.getName ());
+      progressBar.setValue (stage.ordinal () + 1);
+    }
+
+    // runs on the EDT
+    // -------------------------------------------------------------------------------//
+    @Override
+    protected void done ()
+    // -------------------------------------------------------------------------------//
+    {
+      if (isCancelled () || worker != this)
+        return;
+
+      worker = null;
+      progressTimer.stop ();
+      progressPanel.setVisible (false);
+
+      FormattedDisk disk = null;
+      try
+      {
+        disk = get ();
+      }
+      catch (InterruptedException | ExecutionException e)
+      {
+        e.printStackTrace ();
+      }
+
+      if (disk != null && fileNode != null)
+        fileNode.setFormattedDisk (disk);
+
+      for (Consumer<FormattedDisk> action : actions)
+        action.accept (disk);
+    }
+  }
+}
@@ -0,0 +1,299 @@
+package com.bytezone.diskbrowser.gui;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseWheelEvent;
+import java.awt.image.BufferedImage;
+import java.util.BitSet;
+
+import javax.swing.JViewport;
+import javax.swing.SwingWorker;
+
+import com.bytezone.diskbrowser.disk.FormattedDisk;
+import com.bytezone.diskbrowser.disk.SectorType;
+import com.bytezone.diskbrowser.gui.DiskLayoutPanel.LayoutDetails;
+
+// Overview of the whole disk layout, one pixel per block, with the part that is
+// visible in the layout panel outlined. Clicking scrolls the layout panel to that
+// block, and the mouse wheel zooms in around the visible part.
+// -----------------------------------------------------------------------------------//
+@SuppressWarnings ("serial")
+class DiskOverview extends DiskPanel
+// -----------------------------------------------------------------------------------//
+{
+  static final int MIN_ROWS = 128;              // smaller layouts don't need an overview
+  private static final int WIDTH = 64;
+  private static final int MIN_ZOOMED_ROWS = 32;
+  private static final Color viewportColor = Color.RED;
+
+  private final JViewport viewport;             // of the disk layout scroll pane
+
+  private BufferedImage image;                  // one pixel per block
+  private OverviewWorker worker;
+  private final BitSet pendingBlocks = new BitSet ();   // changed while being built
+  private int gridWidth;
+  private int gridHeight;
+  private int zoom;                             // each level halves the rows shown
+
+  // ---------------------------------------------------------------------------------//
+  DiskOverview (JViewport viewport)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.viewport = viewport;
+
+    setPreferredSize (new Dimension (WIDTH, MIN_ROWS));
+    setBackground (backgroundColor);
+    setToolTipText ("Click to jump, use the mouse wheel to zoom");
+
+    viewport.addChangeListener (e -> repaint ());
+
+    MouseAdapter mouseAdapter = new MouseAdapter ()
+    {
+      @Override
+      public void mousePressed (MouseEvent e)
+      {
+        jump (e.getPoint ());
+      }
+
+      @Override
+      public void mouseDragged (MouseEvent e)
+      {
+        jump (e.getPoint ());
+      }
+
+      @Override
+      public void mouseWheelMoved (MouseWheelEvent e)
+      {
+        int newZoom =
+            Math.max (0, Math.min (getMaxZoom (), zoom - e.getWheelRotation ()));
+        if (newZoom != zoom)
+        {
+          zoom = newZoom;
+          repaint ();
+        }
+      }
+    };
+
+    addMouseListener (mouseAdapter);
+    addMouseMotionListener (mouseAdapter);
+    addMouseWheelListener (mouseAdapter);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public void setDisk (FormattedDisk disk, LayoutDetails details)
+  // ---------------------------------------------------------------------------------//
+  {
+    super.setDisk (disk, details);
+
+    gridWidth = details.grid.width;
+    gridHeight = details.grid.height;
+    zoom = 0;
+    image = null;
+    pendingBlocks.clear ();
+
+    if (worker != null)
+      worker.cancel (false);
+    worker = null;
+
+    setVisible (gridHeight > MIN_ROWS);
+    if (isVisible ())
+    {
+      worker = new OverviewWorker (disk);
+      worker.execute ();
+    }
+
+    repaint ();
+  }
+
+  // called by the layout panel when the type of some blocks has changed
+  // ---------------------------------------------------------------------------------//
+  void blocksChanged (BitSet blocks)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (worker != null)                         // still being built
+    {
+      pendingBlocks.or (blocks);
+      return;
+    }
+
+    if (image == null || blocks.isEmpty ())
+      return;
+
+    for (int block = blocks.nextSetBit (0); block >= 0;
+        block = blocks.nextSetBit (block + 1))
+    {
+      if (block >= gridWidth * gridHeight)
+        break;
+      image.setRGB (block % gridWidth, block / gridWidth,
+          getColour (formattedDisk.getSectorType (block)));
+    }
+
+    repaint ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private int getColour (SectorType type)
+  // ---------------------------------------------------------------------------------//
+  {
+    return type == null ? backgroundColor.getRGB () : type.colour.getRGB ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private int getMaxZoom ()
+  // ---------------------------------------------------------------------------------//
+  {
+    int maxZoom = 0;
+    while ((gridHeight >> (maxZoom + 1)) >= MIN_ZOOMED_ROWS)
+      ++maxZoom;
+    return maxZoom;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private int getRowsShown ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return Math.max (1, gridHeight >> zoom);
+  }
+
+  // when zoomed in, the rows shown follow the visible part of the layout
+  // ---------------------------------------------------------------------------------//
+  private int getFirstRow ()
+  // ---------------------------------------------------------------------------------//
+  {
+    int rowsShown = getRowsShown ();
+    Rectangle view = viewport.getViewRect ();
+    int centreRow = (view.y + view.height / 2) / blockHeight;
+
+    return Math.max (0, Math.min (gridHeight - rowsShown, centreRow - rowsShown / 2));
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void jump (Point point)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (formattedDisk == null || getHeight () == 0)
+      return;
+
+    int row = getFirstRow () + point.y * getRowsShown () / getHeight ();
+    int column = point.x * gridWidth / Math.max (1, getWidth ());
+
+    // centre the block in the layout panel
+    Rectangle view = viewport.getViewRect ();
+    Dimension size = viewport.getViewSize ();
+    int x = column * blockWidth - view.width / 2;
+    int y = row * blockHeight - view.height / 2;
+    x = Math.max (0, Math.min (x, size.width - view.width));
+    y = Math.max (0, Math.min (y, size.height - view.height));
+
+    viewport.setViewPosition (new Point (x, y));
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  protected void paintComponent (Graphics g)
+  // ---------------------------------------------------------------------------------//
+  {
+    super.paintComponent (g);
+
+    if (image == null)
+      return;
+
+    Graphics2D g2 = (Graphics2D) g;
+    int width = getWidth ();
+    int height = getHeight ();
+    int rowsShown = getRowsShown ();
+    int firstRow = getFirstRow ();
+
+    // average the rows when shrinking, keep the blocks sharp when enlarging
+    g2.setRenderingHint (RenderingHints.KEY_INTERPOLATION,
+        rowsShown > height ? RenderingHints.VALUE_INTERPOLATION_BILINEAR
+            : RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+    g2.drawImage (image, 0, 0, width, height, 0, firstRow, gridWidth,
+        firstRow + rowsShown, null);
+
+    // outline the part of the disk that the layout panel is showing
+    Rectangle view = viewport.getViewRect ();
+    double rowHeight = (double) height / rowsShown;
+    double columnWidth = (double) width / gridWidth;
+    int x1 = (int) (view.x / blockWidth * columnWidth);
+    int x2 = (int) Math.ceil ((view.x + view.width) / (double) blockWidth * columnWidth);
+    int y1 = (int) ((view.y / (double) blockHeight - firstRow) * rowHeight);
+    int y2 = (int) Math.ceil (
+        ((view.y + view.height) / (double) blockHeight - firstRow) * rowHeight);
+
+    g2.setColor (viewportColor);
+    g2.drawRect (x1, y1, Math.max (2, Math.min (width - 1, x2) - x1 - 1),
+        Math.max (2, y2 - y1 - 1));
+  }
+
+  // builds the overview away from the EDT
+  // ---------------------------------------------------------------------------------//
+  private class OverviewWorker extends SwingWorker<BufferedImage, Void>
+  // ---------------------------------------------------------------------------------//
+  {
+    private final FormattedDisk disk;
+    private final int width = gridWidth;
+    private final int height = gridHeight;
+
+    // -------------------------------------------------------------------------------//
+    OverviewWorker (FormattedDisk disk)
+    // -------------------------------------------------------------------------------//
+    {
+      this.disk = disk;
+    }
+
+    // -------------------------------------------------------------------------------//
+    @Override
+    protected BufferedImage doInBackground ()
+    // -------------------------------------------------------------------------------//
+    {
+      BufferedImage image =
+          new BufferedImage (width, height, BufferedImage.TYPE_INT_RGB);
+      int[] pixels = new int[width * height];
+      int totalBlocks = Math.min (pixels.length, disk.getDisk ().getTotalBlocks ());
+
+      int background = backgroundColor.getRGB ();
+      for (int block = 0; block < pixels.length && !isCancelled (); block++)
+        pixels[block] =
+            block < totalBlocks ? getColour (disk.getSectorType (block)) : background;
+
+      image.setRGB (0, 0, width, height, pixels, 0, width);
+      return image;
+    }
+
+    // -------------------------------------------------------------------------------//
+    @Override
+    protected void done ()
+    // -------------------------------------------------------------------------------//
+    {
+      if (isCancelled () || worker != this)
+        return;
+
+      worker = null;
+      try
+      {
+        image = get ();
+      }
+      catch (Exception e)
+      {
+        e.printStackTrace ();
+        return;
+      }
+
+      // catch up with any types that changed while the image was being built
+      BitSet pending = (BitSet) pendingBlocks.clone ();
+      pendingBlocks.clear ();
+      blocksChanged (pending);
+
+      repaint ();
+    }
+  }
+}
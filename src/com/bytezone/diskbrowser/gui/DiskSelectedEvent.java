@@ -2,7 +2,6 @@ package com.bytezone.diskbrowser.gui;
 
 import java.util.EventObject;
 
-import com.bytezone.diskbrowser.disk.DiskFactory;
 import com.bytezone.diskbrowser.disk.FormattedDisk;
 
 // -----------------------------------------------------------------------------------//
@@ -41,12 +40,4 @@ class DiskSelectedEvent extends EventObject
   {
     return formattedDisk.getAbsolutePath ();
   }
-
-  // ---------------------------------------------------------------------------------//
-  public static DiskSelectedEvent create (Object source, String path)
-  // ---------------------------------------------------------------------------------//
-  {
-    FormattedDisk formattedDisk = DiskFactory.createDisk (path);
-    return formattedDisk == null ? null : new DiskSelectedEvent (source, formattedDisk);
-  }
 }
\ No newline at end of file
@@ -20,7 +20,6 @@ import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.ExpandVetoException;
 import javax.swing.tree.TreeNode;
 
-import com.bytezone.diskbrowser.disk.DiskFactory;
 import com.bytezone.diskbrowser.disk.FormattedDisk;
 import com.bytezone.diskbrowser.gui.RedoHandler.RedoEvent;
 import com.bytezone.diskbrowser.gui.TreeBuilder.FileNode;
@@ -30,6 +29,7 @@ class FileSystemTab extends AbstractTab
 // -----------------------------------------------------------------------------------//
 {
   File rootFolder;
+  private DefaultMutableTreeNode firstNode;     // selected when first activated
 
   // ---------------------------------------------------------------------------------//
   public FileSystemTab (File folder, DiskAndFileSelector selector,
@@ -44,19 +44,13 @@ class FileSystemTab extends AbstractTab
     setTree (tb.getTree ());
     setSelectionListener (tree);
 
+    // the first disk is opened in the background once the tab is showing
     if (diskEvent == null)
-    {
-      DefaultMutableTreeNode node = findFirstLeafNode ();
-      if (node != null)
-      {
-        FileNode fn = (FileNode) node.getUserObject ();
-        diskEvent = new DiskSelectedEvent (this, DiskFactory.createDisk (fn.file));
-      }
-    }
+      firstNode = findFirstLeafNode ();
 
     if (diskEvent != null)
       redoHandler.diskSelected (diskEvent);
-    else
+    else if (firstNode == null)
       System.out.println ("No disk event");
   }
 
@@ -75,15 +69,21 @@ class FileSystemTab extends AbstractTab
   {
     tree.setSelectionPath (null);     // turn off any current selection to force an event
     redoHandler.setCurrentData (redoData);
+
+    if (firstNode != null)
+    {
+      showNode (firstNode);
+      firstNode = null;
+    }
   }
 
   // connected to RefreshTreeAction
   // ---------------------------------------------------------------------------------//
-  @Override
   public void refresh ()
   // ---------------------------------------------------------------------------------//
   {
     String currentDiskName = ((FileNode) getSelectedObject ()).file.getAbsolutePath ();
+    DirectoryLoader.clear ();
     TreeBuilder tb = new TreeBuilder (rootFolder);
     setTree (tb.getTree ());
     if (currentDiskName != null)
@@ -140,12 +140,8 @@ class FileSystemTab extends AbstractTab
   {
     FileNode fn = (FileNode) node.getUserObject ();
 
+    fn.readFiles ();                          // in case it is still loading
     int children = node.getChildCount ();
-    if (children == 0)
-    {
-      fn.readFiles ();
-      children = node.getChildCount ();
-    }
 
     for (int i = 0; i < children; i++)
     {
@@ -219,8 +215,7 @@ class FileSystemTab extends AbstractTab
         DefaultMutableTreeNode node =
             (DefaultMutableTreeNode) e.getPath ().getLastPathComponent ();
         FileNode fn = (FileNode) node.getUserObject ();
-        if (node.getChildCount () == 0)
-          fn.readFiles ();
+        fn.readFilesInBackground ();
       }
     });
   }
@@ -1,21 +1,23 @@
 package com.bytezone.diskbrowser.gui;
 
 import java.awt.Font;
-import java.awt.Insets;
 import java.awt.image.BufferedImage;
 import java.beans.PropertyChangeEvent;
 import java.beans.PropertyChangeListener;
+import java.util.BitSet;
 import java.util.Enumeration;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
 
 import javax.swing.AbstractButton;
 import javax.swing.ButtonGroup;
 import javax.swing.JCheckBoxMenuItem;
 import javax.swing.JScrollPane;
 import javax.swing.JTabbedPane;
-import javax.swing.JTextArea;
 import javax.swing.ScrollPaneConstants;
 import javax.swing.SwingConstants;
+import javax.swing.Timer;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
 
@@ -42,11 +44,12 @@ public class OutputPanel extends JTabbedPane
 // -----------------------------------------------------------------------------------//
 {
   private static final int TEXT_WIDTH = 65;
+  private static final int PLACEHOLDER_DELAY = 250;       // milliseconds
 
   // final MenuHandler menuHandler;
-  private final JTextArea formattedText;
-  private final JTextArea hexText;
-  private final JTextArea disassemblyText;
+  private final TextViewer formattedText;
+  private final TextViewer hexText;
+  private final TextViewer disassemblyText;
 
   // these two panes are interchangeable
   private final JScrollPane formattedPane;
@@ -64,12 +67,17 @@ public class OutputPanel extends JTabbedPane
   private boolean hexTextValid;
   private boolean assemblerTextValid;
 
+  // the latest render request for each tab, anything older is stale
+  private final RenderWorker[] renderWorkers = new RenderWorker[3];
+  private final RenderCache renderCache = new RenderCache (16_000_000, 500);
+  private final RenderPrefetcher prefetcher = new RenderPrefetcher (renderCache);
+
   private DebuggingAction debuggingAction = new DebuggingAction ();
   private MonochromeAction monochromeAction = new MonochromeAction ();
   private ColourQuirksAction colourQuirksAction = new ColourQuirksAction ();
   private LineWrapAction lineWrapAction = new LineWrapAction ();
 
-  private enum TabType
+  enum TabType
   {
     FORMATTED, HEX, DISASSEMBLED
   }
@@ -80,7 +88,7 @@ public class OutputPanel extends JTabbedPane
   {
     setTabPlacement (SwingConstants.BOTTOM);
 
-    formattedText = new JTextArea (10, TEXT_WIDTH);
+    formattedText = new TextViewer (10, TEXT_WIDTH);
     formattedPane = setPanel (formattedText, "Formatted");
     // formattedText.setLineWrap (prefs.getBoolean (MenuHandler.PREFS_LINE_WRAP, true));
     formattedText.setText ("Please use the 'File->Set HOME folder...' command to "
@@ -89,10 +97,10 @@ public class OutputPanel extends JTabbedPane
         + "\nthe disk. You will then be able to select individual files to "
         + "view them.");
 
-    hexText = new JTextArea (10, TEXT_WIDTH);
+    hexText = new TextViewer (10, TEXT_WIDTH);
     setPanel (hexText, "Hex dump");
 
-    disassemblyText = new JTextArea (10, TEXT_WIDTH);
+    disassemblyText = new TextViewer (10, TEXT_WIDTH);
     setPanel (disassemblyText, "Disassembly");
 
     imagePane =
@@ -117,7 +125,7 @@ public class OutputPanel extends JTabbedPane
               if (currentDataSource == null)
                 formattedText.setText ("");
               else
-                setText (formattedText, currentDataSource.getText ());
+                render (TabType.FORMATTED, false);
               formattedTextValid = true;
             }
             break;
@@ -128,7 +136,7 @@ public class OutputPanel extends JTabbedPane
               if (currentDataSource == null)
                 hexText.setText ("");
               else
-                setText (hexText, currentDataSource.getHexDump ());
+                render (TabType.HEX, false);
               hexTextValid = true;
             }
             break;
@@ -139,7 +147,7 @@ public class OutputPanel extends JTabbedPane
               if (currentDataSource == null)
                 disassemblyText.setText ("");
               else
-                setText (disassemblyText, currentDataSource.getAssembler ());
+                render (TabType.DISASSEMBLED, false);
               assemblerTextValid = true;
             }
             break;
@@ -182,11 +190,7 @@ public class OutputPanel extends JTabbedPane
   // ---------------------------------------------------------------------------------//
   {
     HiResImage.getPaletteFactory ().setCurrentPalette (palette);
-    if (currentDataSource instanceof HiResImage image)
-    {
-      image.setPalette ();
-      imagePanel.setImage (image.getImage ());
-    }
+    updateImage (HiResImage::setPalette);
   }
 
   // ---------------------------------------------------------------------------------//
@@ -194,11 +198,7 @@ public class OutputPanel extends JTabbedPane
   // ---------------------------------------------------------------------------------//
   {
     Palette palette = HiResImage.getPaletteFactory ().cyclePalette (direction);
-    if (currentDataSource instanceof HiResImage image)
-    {
-      image.setPalette ();
-      imagePanel.setImage (image.getImage ());
-    }
+    updateImage (HiResImage::setPalette);
     return palette;
   }
 
@@ -228,22 +228,14 @@ public class OutputPanel extends JTabbedPane
   public void setColourQuirks (boolean value)
   // ---------------------------------------------------------------------------------//
   {
-    if (currentDataSource instanceof HiResImage image)
-    {
-      image.setColourQuirks (value);
-      imagePanel.setImage (image.getImage ());
-    }
+    updateImage (image -> image.setColourQuirks (value));
   }
 
   // ---------------------------------------------------------------------------------//
   public void setMonochrome (boolean value)
   // ---------------------------------------------------------------------------------//
   {
-    if (currentDataSource instanceof HiResImage image)
-    {
-      image.setMonochrome (value);
-      imagePanel.setImage (image.getImage ());
-    }
+    updateImage (image -> image.setMonochrome (value));
   }
 
   // ---------------------------------------------------------------------------------//
@@ -251,16 +243,35 @@ public class OutputPanel extends JTabbedPane
   // ---------------------------------------------------------------------------------//
   {
     imagePanel.setScale (scale);
-    if (currentDataSource instanceof HiResImage image)
-      imagePanel.setImage (image.getImage ());
+    updateImage (image -> {});
+  }
+
+  // called when a disk is closed or reopened, as the cache holds its data sources
+  // ---------------------------------------------------------------------------------//
+  void clearRenderCache ()
+  // ---------------------------------------------------------------------------------//
+  {
+    renderCache.clear ();
   }
 
   // ---------------------------------------------------------------------------------//
   public void update ()
   // ---------------------------------------------------------------------------------//
+  {
+    updateImage (image -> {});
+  }
+
+  // a RenderWorker may be building the same image, so this takes the same lock
+  // ---------------------------------------------------------------------------------//
+  private void updateImage (Consumer<HiResImage> change)
+  // ---------------------------------------------------------------------------------//
   {
     if (currentDataSource instanceof HiResImage image)
-      imagePanel.setImage (image.getImage ());
+      synchronized (image)
+      {
+        change.accept (image);
+        imagePanel.setImage (image.getImage ());
+      }
   }
 
   // ---------------------------------------------------------------------------------//
@@ -268,13 +279,19 @@ public class OutputPanel extends JTabbedPane
   // ---------------------------------------------------------------------------------//
   {
     debugMode = value;
+    prefetcher.reset ();
 
     AbstractFile.setDebug (value);
-    setText (formattedText, currentDataSource.getText ());
 
     if (currentDataSource instanceof HiResImage
         || currentDataSource instanceof QuickDrawFont)
       setDataSource (currentDataSource);      // toggles text/image
+    else if (currentDataSource != null)
+    {
+      formattedTextValid = getSelectedIndex () == 0;
+      if (formattedTextValid)
+        render (TabType.FORMATTED, false);
+    }
   }
 
   // ---------------------------------------------------------------------------------//
@@ -297,12 +314,9 @@ public class OutputPanel extends JTabbedPane
   }
 
   // ---------------------------------------------------------------------------------//
-  private JScrollPane setPanel (JTextArea outputPanel, String tabName)
+  private JScrollPane setPanel (TextViewer outputPanel, String tabName)
   // ---------------------------------------------------------------------------------//
   {
-    outputPanel.setEditable (false);
-    outputPanel.setMargin (new Insets (5, 5, 5, 5));
-
     JScrollPane outputScrollPane =
         new JScrollPane (outputPanel, ScrollPaneConstants.VERTICAL_SCROLLBAR_ALWAYS,
             ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
@@ -317,6 +331,7 @@ public class OutputPanel extends JTabbedPane
   // ---------------------------------------------------------------------------------//
   {
     currentDataSource = dataSource;
+    cancelRendering ();
 
     if (dataSource == null)
     {
@@ -327,54 +342,118 @@ public class OutputPanel extends JTabbedPane
       return;
     }
 
-    switch (TabType.values ()[getSelectedIndex ()])
+    TabType tabType = TabType.values ()[getSelectedIndex ()];
+    formattedTextValid = tabType == TabType.FORMATTED;
+    hexTextValid = tabType == TabType.HEX;
+    assemblerTextValid = tabType == TabType.DISASSEMBLED;
+
+    render (tabType, true);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void render (TabType tabType, boolean withImage)
+  // ---------------------------------------------------------------------------------//
+  {
+    RenderCache.Key key = renderCache.getKey (currentDataSource, tabType, debugMode);
+    String text = renderCache.get (key);
+
+    if (text != null && !withImage)
     {
-      case FORMATTED:
-        try
-        {
-          setText (formattedText, dataSource.getText ());
-        }
-        catch (Exception e)
-        {
-          setText (formattedText, e.toString ());
-          e.printStackTrace ();
-        }
-        hexTextValid = false;
-        assemblerTextValid = false;
-        break;
-
-      case HEX:
-        setText (hexText, dataSource.getHexDump ());
-        formattedTextValid = false;
-        assemblerTextValid = false;
-        break;
-
-      case DISASSEMBLED:
-        setText (disassemblyText, dataSource.getAssembler ());
-        hexTextValid = false;
-        formattedTextValid = false;
-        break;
-
-      default:
-        System.out.println ("Unexpected Tab #" + getSelectedIndex ());
+      renderWorkers[tabType.ordinal ()] = null;     // anything pending is now stale
+      setText (getTextViewer (tabType), text);
+      return;
+    }
+
+    RenderWorker worker =
+        new RenderWorker (this, currentDataSource, tabType, withImage, key, text);
+    renderWorkers[tabType.ordinal ()] = worker;
+
+    // only show the placeholder if the output is slow to arrive
+    TextViewer textViewer = getTextViewer (tabType);
+    Timer timer = new Timer (PLACEHOLDER_DELAY, e ->
+    {
+      if (renderWorkers[tabType.ordinal ()] == worker && !worker.isDone ())
+        setText (textViewer, "Rendering ...");
+    });
+    timer.setRepeats (false);
+    timer.start ();
+
+    worker.start ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void cancelRendering ()
+  // ---------------------------------------------------------------------------------//
+  {
+    for (int i = 0; i < renderWorkers.length; i++)
+      if (renderWorkers[i] != null)
+      {
+        renderWorkers[i].cancel (false);      // a running worker is left to finish
+        renderWorkers[i] = null;
+      }
+  }
+
+  // called on the EDT when a RenderWorker has finished or been cancelled
+  // ---------------------------------------------------------------------------------//
+  void renderDone (RenderWorker worker)
+  // ---------------------------------------------------------------------------------//
+  {
+    int index = worker.tabType.ordinal ();
+    if (worker.isCancelled () || renderWorkers[index] != worker)
+      return;                                 // stale
+    renderWorkers[index] = null;
+
+    String text;
+    try
+    {
+      text = worker.get ();
+      if (worker.cachedText == null)
+        renderCache.put (worker.cacheKey, text);
+    }
+    catch (InterruptedException e)
+    {
+      return;
+    }
+    catch (ExecutionException e)
+    {
+      text = e.getCause ().toString ();
+      e.getCause ().printStackTrace ();
     }
 
-    BufferedImage image = dataSource.getImage ();
+    setText (getTextViewer (worker.tabType), text);
+
+    if (worker.withImage && worker.isImageStale ())
+      render (worker.tabType, true);          // the palette changed while it was built
+    else if (worker.withImage)
+      showImage (worker.image);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private TextViewer getTextViewer (TabType tabType)
+  // ---------------------------------------------------------------------------------//
+  {
+    return switch (tabType)
+    {
+      case FORMATTED -> formattedText;
+      case HEX -> hexText;
+      case DISASSEMBLED -> disassemblyText;
+    };
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void showImage (BufferedImage image)
+  // ---------------------------------------------------------------------------------//
+  {
     if (image == null || debugMode)
       removeImage ();
     else
     {
-      if (dataSource instanceof HiResImage hri)
+      if (currentDataSource instanceof HiResImage hri && hri.isAnimation ())
       {
-        hri.checkPalette ();
-        image = dataSource.getImage ();
-        if (((HiResImage) dataSource).isAnimation ())
-        {
-          if (animation != null)
-            animation.cancel ();
-          animation = new AnimationWorker (this, (SHRPictureFile2) dataSource);
-          animation.execute ();
-        }
+        if (animation != null)
+          animation.cancel ();
+        animation = new AnimationWorker (this, (SHRPictureFile2) currentDataSource);
+        animation.execute ();
       }
 
       imagePanel.setImage (image);
@@ -387,7 +466,6 @@ public class OutputPanel extends JTabbedPane
         add (imagePane, "Formatted", 0);
         setSelectedIndex (selected);
         imageVisible = true;
-
       }
     }
   }
@@ -413,11 +491,10 @@ public class OutputPanel extends JTabbedPane
   }
 
   // ---------------------------------------------------------------------------------//
-  private void setText (JTextArea textArea, String text)
+  private void setText (TextViewer textViewer, String text)
   // ---------------------------------------------------------------------------------//
   {
-    textArea.setText (text);
-    textArea.setCaretPosition (0);
+    textViewer.setText (text);              // also scrolls back to the top
   }
 
   // ---------------------------------------------------------------------------------//
@@ -439,8 +516,15 @@ public class OutputPanel extends JTabbedPane
   public void fileSelected (FileSelectedEvent event)
   // ---------------------------------------------------------------------------------//
   {
-    DataSource dataSource = event.appleFileSource.getDataSource ();
+    DataSource dataSource;
+    synchronized (event.appleFileSource)      // the prefetcher may be building it
+    {
+      dataSource = event.appleFileSource.getDataSource ();
+    }
     setDataSource (dataSource);
+
+    prefetcher.prefetch (event.appleFileSource, dataSource,
+        TabType.values ()[getSelectedIndex ()], debugMode);
   }
 
   // ---------------------------------------------------------------------------------//
@@ -448,18 +532,18 @@ public class OutputPanel extends JTabbedPane
   public void sectorSelected (SectorSelectedEvent event)
   // ---------------------------------------------------------------------------------//
   {
-    List<DiskAddress> sectors = event.getSectors ();
-    if (sectors == null || sectors.size () == 0)
+    BitSet blocks = event.getBlocks ();
+    if (blocks == null || blocks.isEmpty ())
       return;
 
-    if (sectors.size () == 1)
+    if (blocks.cardinality () == 1)
     {
-      DiskAddress da = sectors.get (0);
-      if (da != null)
-        setDataSource (event.getFormattedDisk ().getFormattedSector (da));
+      List<DiskAddress> sectors = event.getSectors ();
+      if (sectors.size () == 1)
+        setDataSource (event.getFormattedDisk ().getFormattedSector (sectors.get (0)));
     }
     else
-      setDataSource (new SectorList (event.getFormattedDisk (), sectors));
+      setDataSource (new SectorList (event.getFormattedDisk (), blocks));
   }
 
   // ---------------------------------------------------------------------------------//
@@ -484,6 +568,7 @@ public class OutputPanel extends JTabbedPane
   public void setBasicPreferences (BasicPreferences basicPreferences)
   // ---------------------------------------------------------------------------------//
   {
+    renderCache.invalidate (RenderCache.Group.BASIC);
     if (currentDataSource instanceof ApplesoftBasicProgram)
       setDataSource (currentDataSource);
   }
@@ -493,6 +578,7 @@ public class OutputPanel extends JTabbedPane
   public void setAssemblerPreferences (AssemblerPreferences assemblerPreferences)
   // ---------------------------------------------------------------------------------//
   {
+    renderCache.invalidate (RenderCache.Group.ASSEMBLER);
     if (currentDataSource instanceof AssemblerProgram
         || currentDataSource instanceof BootSector)
       setDataSource (currentDataSource);
@@ -503,6 +589,7 @@ public class OutputPanel extends JTabbedPane
   public void setTextPreferences (TextPreferences textPreferences)
   // ---------------------------------------------------------------------------------//
   {
+    renderCache.invalidate (RenderCache.Group.TEXT);
     if (currentDataSource instanceof BasicTextFile)
       setDataSource (currentDataSource);
   }
@@ -0,0 +1,264 @@
+package com.bytezone.diskbrowser.gui;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.bytezone.diskbrowser.applefile.AssemblerProgram;
+import com.bytezone.diskbrowser.applefile.BasicProgram;
+import com.bytezone.diskbrowser.applefile.BootSector;
+import com.bytezone.diskbrowser.applefile.HiResImage;
+import com.bytezone.diskbrowser.applefile.TextFile;
+import com.bytezone.diskbrowser.disk.AbstractSector;
+import com.bytezone.diskbrowser.disk.SectorList;
+import com.bytezone.diskbrowser.gui.OutputPanel.TabType;
+import com.bytezone.diskbrowser.gui.TreeBuilder.FileNode;
+
+// Least recently used cache of the text shown in the OutputPanel tabs. Entries are
+// keyed by the data source, the tab, and a fingerprint of the preferences that the
+// output depends on, and the cache is bounded by the total number of characters held.
+// The keys hold on to their data sources, so the cache is cleared when a disk is
+// closed or reopened. Only used on the EDT.
+// -----------------------------------------------------------------------------------//
+class RenderCache
+// -----------------------------------------------------------------------------------//
+{
+  enum Group
+  {
+    NONE, BASIC, ASSEMBLER, TEXT, IMAGE
+  }
+
+  private final Map<Key, String> cache = new LinkedHashMap<> (64, 0.75f, true);
+  private final long maxChars;
+  private final int maxEntries;
+  private long totalChars;
+
+  private int hits;
+  private int misses;
+
+  // incremented each time the matching preferences are changed
+  private int basicGeneration;
+  private int assemblerGeneration;
+  private int textGeneration;
+  private int generation;                   // any invalidation
+
+  // ---------------------------------------------------------------------------------//
+  RenderCache (long maxChars, int maxEntries)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.maxChars = maxChars;
+    this.maxEntries = maxEntries;
+  }
+
+  // returns null if the output should not be cached
+  // ---------------------------------------------------------------------------------//
+  Key getKey (DataSource dataSource, TabType tabType, boolean debug)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (dataSource == null || dataSource instanceof FileNode)   // live directory listing
+      return null;
+
+    // sectors are new objects each time they are selected, so they would never be hit
+    if (dataSource instanceof SectorList
+        || dataSource instanceof AbstractSector && !(dataSource instanceof BootSector))
+      return null;
+
+    long debugBit = debug ? 1 : 0;
+
+    return switch (tabType)
+    {
+      case HEX -> new Key (dataSource, tabType, Group.NONE, 0);
+      case DISASSEMBLED -> new Key (dataSource, tabType, Group.ASSEMBLER,
+          assemblerGeneration);
+      case FORMATTED -> getFormattedKey (dataSource, debugBit);
+    };
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private Key getFormattedKey (DataSource dataSource, long debugBit)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (dataSource instanceof BasicProgram)
+      return new Key (dataSource, TabType.FORMATTED, Group.BASIC,
+          (long) basicGeneration << 1 | debugBit);
+
+    if (dataSource instanceof AssemblerProgram || dataSource instanceof BootSector)
+      return new Key (dataSource, TabType.FORMATTED, Group.ASSEMBLER,
+          (long) assemblerGeneration << 1 | debugBit);
+
+    if (dataSource instanceof TextFile)
+      return new Key (dataSource, TabType.FORMATTED, Group.TEXT,
+          (long) textGeneration << 1 | debugBit);
+
+    if (dataSource instanceof HiResImage)
+    {
+      long palette = HiResImage.getPaletteFactory ().getCurrentPaletteIndex ();
+      long monochrome = HiResImage.isMonochrome () ? 1 : 0;
+      long colourQuirks = HiResImage.isColourQuirks () ? 1 : 0;
+      return new Key (dataSource, TabType.FORMATTED, Group.IMAGE,
+          palette << 3 | monochrome << 2 | colourQuirks << 1 | debugBit);
+    }
+
+    return new Key (dataSource, TabType.FORMATTED, Group.NONE, debugBit);
+  }
+
+  // doesn't count as a hit or a miss, or change the order of the entries
+  // ---------------------------------------------------------------------------------//
+  boolean contains (Key key)
+  // ---------------------------------------------------------------------------------//
+  {
+    return key != null && cache.containsKey (key);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  String get (Key key)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (key == null)
+      return null;
+
+    String text = cache.get (key);
+    if (text == null)
+      ++misses;
+    else
+      ++hits;
+
+    return text;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  void put (Key key, String text)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (key == null || text == null || text.length () > maxChars / 4)
+      return;
+
+    String previous = cache.put (key, text);
+    if (previous != null)
+      totalChars -= previous.length ();
+    totalChars += text.length ();
+
+    // drop the least recently used entries
+    Iterator<String> iterator = cache.values ().iterator ();
+    while ((totalChars > maxChars || cache.size () > maxEntries) && iterator.hasNext ())
+    {
+      totalChars -= iterator.next ().length ();
+      iterator.remove ();
+    }
+  }
+
+  // remove the entries that depend on the changed preferences
+  // ---------------------------------------------------------------------------------//
+  void invalidate (Group group)
+  // ---------------------------------------------------------------------------------//
+  {
+    ++generation;
+
+    switch (group)
+    {
+      case BASIC -> ++basicGeneration;
+      case ASSEMBLER -> ++assemblerGeneration;
+      case TEXT -> ++textGeneration;
+      default -> {}
+    }
+
+    Iterator<Map.Entry<Key, String>> iterator = cache.entrySet ().iterator ();
+    while (iterator.hasNext ())
+    {
+      Map.Entry<Key, String> entry = iterator.next ();
+      if (entry.getKey ().group == group)
+      {
+        totalChars -= entry.getValue ().length ();
+        iterator.remove ();
+      }
+    }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  void clear ()
+  // ---------------------------------------------------------------------------------//
+  {
+    ++generation;
+
+    cache.clear ();
+    totalChars = 0;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  int getGeneration ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return generation;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  int getHits ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return hits;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  int getMisses ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return misses;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  double getHitRate ()
+  // ---------------------------------------------------------------------------------//
+  {
+    int total = hits + misses;
+    return total == 0 ? 0 : (double) hits / total;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public String toString ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return String.format (
+        "Render cache: %,d entries, %,d chars, %,d hits, %,d misses (%.1f%%)",
+        cache.size (), totalChars, hits, misses, getHitRate () * 100);
+  }
+
+  // the data source is compared by identity
+  // ---------------------------------------------------------------------------------//
+  static class Key
+  // ---------------------------------------------------------------------------------//
+  {
+    final DataSource dataSource;
+    final TabType tabType;
+    final Group group;
+    final long fingerprint;
+
+    // -------------------------------------------------------------------------------//
+    Key (DataSource dataSource, TabType tabType, Group group, long fingerprint)
+    // -------------------------------------------------------------------------------//
+    {
+      this.dataSource = dataSource;
+      this.tabType = tabType;
+      this.group = group;
+      this.fingerprint = fingerprint;
+    }
+
+    // -------------------------------------------------------------------------------//
+    @Override
+    public boolean equals (Object other)
+    // -------------------------------------------------------------------------------//
+    {
+      return other instanceof Key key && key.dataSource == dataSource
+          && key.tabType == tabType && key.fingerprint == fingerprint;
+    }
+
+    // -------------------------------------------------------------------------------//
+    @Override
+    public int hashCode ()
+    // -------------------------------------------------------------------------------//
+    {
+      return (System.identityHashCode (dataSource) * 31 + tabType.ordinal ()) * 31
+          + Long.hashCode (fingerprint);
+    }
+  }
+}
@@ -0,0 +1,291 @@
+package com.bytezone.diskbrowser.gui;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+import javax.swing.tree.DefaultMutableTreeNode;
+import javax.swing.tree.DefaultTreeModel;
+
+import com.bytezone.diskbrowser.applefile.AppleFileSource;
+import com.bytezone.diskbrowser.applefile.HiResImage;
+import com.bytezone.diskbrowser.disk.FormattedDisk;
+import com.bytezone.diskbrowser.gui.OutputPanel.TabType;
+
+// Renders the catalog entries either side of the selected file, so that stepping
+// through a catalog with the arrow keys finds the text in the RenderCache. The data
+// sources are built in the background as well, holding the entry's lock the same as
+// the OutputPanel and SaveFileAction, and the tree is told on the EDT about any nodes
+// that an entry added when it was decoded.
+// -----------------------------------------------------------------------------------//
+class RenderPrefetcher
+// -----------------------------------------------------------------------------------//
+{
+  private static final int NEIGHBOURS = 3;                // each side of the selection
+  private static final int MAX_ENTRY_CHARS = 250_000;
+  private static final int MAX_BATCH_CHARS = 1_000_000;
+
+  // one low priority thread, a new selection replaces anything still queued
+  private static final ExecutorService executor = new ThreadPoolExecutor (1, 1, 30,
+      TimeUnit.SECONDS, new ArrayBlockingQueue<> (1), runnable ->
+      {
+        Thread thread = new Thread (runnable, "OutputPanel prefetcher");
+        thread.setDaemon (true);
+        thread.setPriority (Thread.MIN_PRIORITY);
+        return thread;
+      }, new ThreadPoolExecutor.DiscardOldestPolicy ());
+
+  static
+  {
+    ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut (true);
+  }
+
+  private final RenderCache renderCache;
+  private int epoch;
+  private PrefetchWorker worker;
+
+  // the data sources already built for the entries around the selection
+  private Map<AppleFileSource, DataSource> decoded = new HashMap<> ();
+
+  // ---------------------------------------------------------------------------------//
+  RenderPrefetcher (RenderCache renderCache)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.renderCache = renderCache;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  void prefetch (AppleFileSource appleFileSource, DataSource dataSource, TabType tabType,
+      boolean debug)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (worker != null)
+      worker.cancel (false);                  // its finished entries are still kept
+    worker = null;
+
+    Map<AppleFileSource, DataSource> previous = decoded;
+    decoded = new HashMap<> ();
+    decoded.put (appleFileSource, dataSource);
+
+    // only the neighbours whose text for this tab isn't already cached
+    List<Prefetched> pending = new ArrayList<> ();
+    for (DefaultMutableTreeNode node : getNeighbours (appleFileSource))
+    {
+      AppleFileSource neighbour = (AppleFileSource) node.getUserObject ();
+      DataSource neighbourDataSource = previous.get (neighbour);
+      if (neighbourDataSource != null)
+      {
+        decoded.put (neighbour, neighbourDataSource);
+        RenderCache.Key key = renderCache.getKey (neighbourDataSource, tabType, debug);
+        if (key == null || renderCache.contains (key))
+          continue;
+      }
+      pending.add (new Prefetched (node, neighbour, neighbourDataSource));
+    }
+
+    if (pending.isEmpty ())
+      return;
+
+    worker = new PrefetchWorker (pending, tabType, debug);
+    executor.execute (worker);
+  }
+
+  // called when anything that is not part of the cache key has changed
+  // ---------------------------------------------------------------------------------//
+  void reset ()
+  // ---------------------------------------------------------------------------------//
+  {
+    if (worker != null)
+      worker.cancel (false);
+    worker = null;
+
+    ++epoch;
+  }
+
+  // the entries above and below in the catalog tree, nearest first
+  // ---------------------------------------------------------------------------------//
+  private List<DefaultMutableTreeNode> getNeighbours (AppleFileSource appleFileSource)
+  // ---------------------------------------------------------------------------------//
+  {
+    List<DefaultMutableTreeNode> neighbours = new ArrayList<> ();
+
+    FormattedDisk formattedDisk = appleFileSource.getFormattedDisk ();
+    if (formattedDisk == null)
+      return neighbours;
+
+    DefaultMutableTreeNode node =
+        formattedDisk.getNode (appleFileSource.getUniqueName ());
+    DefaultMutableTreeNode next = node;
+    DefaultMutableTreeNode previous = node;
+
+    for (int i = 0; i < NEIGHBOURS && node != null; i++)
+    {
+      next = next == null ? null : next.getNextNode ();
+      previous = previous == null ? null : previous.getPreviousNode ();
+
+      DefaultMutableTreeNode[] pair = { next, previous };      // either may be null
+      for (DefaultMutableTreeNode neighbour : pair)
+        if (neighbour != null && neighbour.getUserObject () instanceof AppleFileSource afs
+            && afs != appleFileSource)
+          neighbours.add (neighbour);
+    }
+
+    return neighbours;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private static class Prefetched
+  // ---------------------------------------------------------------------------------//
+  {
+    final DefaultMutableTreeNode node;
+    final AppleFileSource appleFileSource;
+    DataSource dataSource;                    // null until the worker builds it
+    String text;                              // set by the worker
+
+    // -------------------------------------------------------------------------------//
+    Prefetched (DefaultMutableTreeNode node, AppleFileSource appleFileSource,
+        DataSource dataSource)
+    // -------------------------------------------------------------------------------//
+    {
+      this.node = node;
+      this.appleFileSource = appleFileSource;
+      this.dataSource = dataSource;
+    }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private class PrefetchWorker extends SwingWorker<Void, Prefetched>
+  // ---------------------------------------------------------------------------------//
+  {
+    private final List<Prefetched> pending;
+    private final TabType tabType;
+    private final boolean debug;
+    private final int cacheGeneration = renderCache.getGeneration ();
+    private final int workerEpoch = epoch;
+
+    // -------------------------------------------------------------------------------//
+    PrefetchWorker (List<Prefetched> pending, TabType tabType, boolean debug)
+    // -------------------------------------------------------------------------------//
+    {
+      this.pending = pending;
+      this.tabType = tabType;
+      this.debug = debug;
+    }
+
+    // -------------------------------------------------------------------------------//
+    @Override
+    protected Void doInBackground ()
+    // -------------------------------------------------------------------------------//
+    {
+      int totalChars = 0;
+
+      for (Prefetched item : pending)
+      {
+        if (isCancelled () || totalChars > MAX_BATCH_CHARS)
+          break;
+
+        try
+        {
+          if (item.dataSource == null)
+          {
+            item.dataSource = getDataSource (item);
+            if (item.dataSource == null)
+              continue;
+          }
+
+          String text = render (item.dataSource);
+          if (text != null && text.length () <= MAX_ENTRY_CHARS)   // else not worth it
+          {
+            totalChars += text.length ();
+            item.text = text;
+          }
+          publish (item);
+        }
+        catch (Exception e)
+        {
+          // speculative, so the error is left for when the entry is really selected
+        }
+      }
+
+      return null;
+    }
+
+    // builds the data source, and tells the tree on the EDT if it added any nodes
+    // -------------------------------------------------------------------------------//
+    private DataSource getDataSource (Prefetched item)
+    // -------------------------------------------------------------------------------//
+    {
+      DefaultMutableTreeNode node = item.node;
+      DataSource dataSource;
+      boolean changed;
+
+      synchronized (item.appleFileSource)     // the same lock as OutputPanel
+      {
+        int children = node.getChildCount ();
+        boolean allowsChildren = node.getAllowsChildren ();
+
+        dataSource = item.appleFileSource.getDataSource ();
+
+        changed = node.getChildCount () != children
+            || node.getAllowsChildren () != allowsChildren;
+      }
+
+      if (changed)
+      {
+        FormattedDisk formattedDisk = item.appleFileSource.getFormattedDisk ();
+        SwingUtilities.invokeLater (
+            () -> ((DefaultTreeModel) formattedDisk.getCatalogTree ().getModel ())
+                .nodeStructureChanged (node));
+      }
+
+      return dataSource;
+    }
+
+    // -------------------------------------------------------------------------------//
+    private String render (DataSource dataSource)
+    // -------------------------------------------------------------------------------//
+    {
+      synchronized (dataSource)               // the same lock as RenderWorker
+      {
+        String text = switch (tabType)
+        {
+          case FORMATTED -> dataSource.getText ();
+          case HEX -> dataSource.getHexDump ();
+          case DISASSEMBLED -> dataSource.getAssembler ();
+        };
+
+        // images are kept by the data source itself
+        if (tabType == TabType.FORMATTED && dataSource.getImage () != null
+            && dataSource instanceof HiResImage hiResImage)
+          hiResImage.checkPalette ();
+
+        return text;
+      }
+    }
+
+    // runs on the EDT
+    // -------------------------------------------------------------------------------//
+    @Override
+    protected void process (List<Prefetched> chunks)
+    // -------------------------------------------------------------------------------//
+    {
+      for (Prefetched item : chunks)
+        decoded.put (item.appleFileSource, item.dataSource);
+
+      if (workerEpoch != epoch || cacheGeneration != renderCache.getGeneration ())
+        return;                               // rendered with out of date settings
+
+      for (Prefetched item : chunks)
+        if (item.text != null)
+          renderCache.put (renderCache.getKey (item.dataSource, tabType, debug),
+              item.text);
+    }
+  }
+}
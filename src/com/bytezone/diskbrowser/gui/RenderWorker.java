@@ -0,0 +1,120 @@
+package com.bytezone.diskbrowser.gui;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingWorker;
+
+import com.bytezone.diskbrowser.applefile.HiResImage;
+import com.bytezone.diskbrowser.gui.OutputPanel.TabType;
+
+// Builds the text (and image) of one tab of the OutputPanel away from the EDT. The
+// result is handed back to the panel in done (), which runs on the EDT.
+// -----------------------------------------------------------------------------------//
+class RenderWorker extends SwingWorker<String, Void>
+// -----------------------------------------------------------------------------------//
+{
+  // a stale worker is cancelled before the next one is queued, so the queue stays short
+  private static final ExecutorService executor = new ThreadPoolExecutor (2, 2, 30,
+      TimeUnit.SECONDS, new ArrayBlockingQueue<> (6), runnable ->
+      {
+        Thread thread = new Thread (runnable, "OutputPanel renderer");
+        thread.setDaemon (true);
+        return thread;
+      }, new ThreadPoolExecutor.DiscardOldestPolicy ());
+
+  static
+  {
+    ((ThreadPoolExecutor) executor).allowCoreThreadTimeOut (true);
+  }
+
+  final OutputPanel owner;
+  final DataSource dataSource;
+  final TabType tabType;
+  final boolean withImage;
+  final RenderCache.Key cacheKey;
+  final String cachedText;                  // only the image is needed if not null
+
+  BufferedImage image;
+  private long imageSettings = -1;          // what a HiResImage was built with
+
+  // ---------------------------------------------------------------------------------//
+  RenderWorker (OutputPanel owner, DataSource dataSource, TabType tabType,
+      boolean withImage, RenderCache.Key cacheKey, String cachedText)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.owner = owner;
+    this.dataSource = dataSource;
+    this.tabType = tabType;
+    this.withImage = withImage;
+    this.cacheKey = cacheKey;
+    this.cachedText = cachedText;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  void start ()
+  // ---------------------------------------------------------------------------------//
+  {
+    executor.execute (this);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  protected String doInBackground () throws Exception
+  // ---------------------------------------------------------------------------------//
+  {
+    // most data sources build their output lazily, so only one thread at a time
+    synchronized (dataSource)
+    {
+      String text = cachedText != null ? cachedText : switch (tabType)
+      {
+        case FORMATTED -> dataSource.getText ();
+        case HEX -> dataSource.getHexDump ();
+        case DISASSEMBLED -> dataSource.getAssembler ();
+      };
+
+      if (withImage && !isCancelled ())
+      {
+        image = dataSource.getImage ();
+        if (image != null && dataSource instanceof HiResImage hiResImage)
+        {
+          imageSettings = getImageSettings ();    // before the palette is checked
+          hiResImage.checkPalette ();
+          image = dataSource.getImage ();
+        }
+      }
+
+      return text;
+    }
+  }
+
+  // called on the EDT, the palette is changed there without holding the image's lock
+  // ---------------------------------------------------------------------------------//
+  boolean isImageStale ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return imageSettings >= 0 && imageSettings != getImageSettings ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private static long getImageSettings ()
+  // ---------------------------------------------------------------------------------//
+  {
+    long palette = HiResImage.getPaletteFactory ().getCurrentPaletteIndex ();
+    long monochrome = HiResImage.isMonochrome () ? 1 : 0;
+    long colourQuirks = HiResImage.isColourQuirks () ? 1 : 0;
+
+    return palette << 2 | monochrome << 1 | colourQuirks;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  protected void done ()
+  // ---------------------------------------------------------------------------------//
+  {
+    owner.renderDone (this);
+  }
+}
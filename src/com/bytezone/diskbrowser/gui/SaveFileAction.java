@@ -32,7 +32,7 @@ class SaveFileAction extends AbstractSaveAction implements FileSelectionListener
     }
 
     setSelectedFile (new File (appleFileSource.getUniqueName () + ".bin"));
-    saveBuffer (appleFileSource.getDataSource ().getBuffer ());
+    saveBuffer (getDataSource (appleFileSource).getBuffer ());
   }
 
   // ---------------------------------------------------------------------------------//
@@ -41,8 +41,21 @@ class SaveFileAction extends AbstractSaveAction implements FileSelectionListener
   // ---------------------------------------------------------------------------------//
   {
     this.appleFileSource = event.appleFileSource;
-    setEnabled (
-        event.appleFileSource != null && event.appleFileSource.getDataSource () != null
-            && event.appleFileSource.getDataSource ().getBuffer () != null);
+    DataSource dataSource = getDataSource (event.appleFileSource);
+    setEnabled (dataSource != null && dataSource.getBuffer () != null);
+  }
+
+  // the same lock as the OutputPanel and the RenderPrefetcher
+  // ---------------------------------------------------------------------------------//
+  private DataSource getDataSource (AppleFileSource appleFileSource)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (appleFileSource == null)
+      return null;
+
+    synchronized (appleFileSource)
+    {
+      return appleFileSource.getDataSource ();
+    }
   }
 }
@@ -1,8 +1,11 @@
 package com.bytezone.diskbrowser.gui;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.EventObject;
 import java.util.List;
 
+import com.bytezone.diskbrowser.disk.Disk;
 import com.bytezone.diskbrowser.disk.DiskAddress;
 import com.bytezone.diskbrowser.disk.FormattedDisk;
 import com.bytezone.diskbrowser.disk.SectorListConverter;
@@ -11,25 +14,44 @@ import com.bytezone.diskbrowser.disk.SectorListConverter;
 class SectorSelectedEvent extends EventObject
 // -----------------------------------------------------------------------------------//
 {
-  private final List<DiskAddress> sectors;
+  private final BitSet blocks;                // never modified
+  private final Disk disk;
   private final FormattedDisk owner;          // for dual-format disks
+  private List<DiskAddress> sectors;          // only created if asked for
   boolean redo;
 
   // ---------------------------------------------------------------------------------//
-  SectorSelectedEvent (Object source, List<DiskAddress> sectors, FormattedDisk owner)
+  SectorSelectedEvent (Object source, BitSet blocks, FormattedDisk owner)
   // ---------------------------------------------------------------------------------//
   {
     super (source);
 
-    this.sectors = sectors;
+    this.blocks = blocks;
+    this.disk = owner.getDisk ();
     // always store the parent if this disk is part of a dual-dos disk
     this.owner = owner.getParent () == null ? owner : owner.getParent ();
   }
 
+  // the caller must not modify the set
+  // ---------------------------------------------------------------------------------//
+  public BitSet getBlocks ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return blocks;
+  }
+
   // ---------------------------------------------------------------------------------//
   public List<DiskAddress> getSectors ()
   // ---------------------------------------------------------------------------------//
   {
+    if (sectors == null)
+    {
+      sectors = new ArrayList<> (blocks.cardinality ());
+      for (int block = blocks.nextSetBit (0); block >= 0 && disk.isValidAddress (block);
+          block = blocks.nextSetBit (block + 1))
+        sectors.add (disk.getDiskAddress (block));
+    }
+
     return sectors;
   }
 
@@ -44,12 +66,7 @@ class SectorSelectedEvent extends EventObject
   public String toText ()
   // ---------------------------------------------------------------------------------//
   {
-    StringBuilder text = new StringBuilder ();
-
-    SectorListConverter sectorListConverter = new SectorListConverter (sectors);
-    text.append (sectorListConverter.sectorText);
-
-    return text.toString ();
+    return new SectorListConverter (blocks).sectorText;
   }
 
   // ---------------------------------------------------------------------------------//
@@ -60,7 +77,8 @@ class SectorSelectedEvent extends EventObject
     if (sectorsText.startsWith ("$"))
       sectorsText = sectorsText.substring (3); // only for old records
 
-    SectorListConverter slc = new SectorListConverter (sectorsText, owner.getDisk ());
-    return new SectorSelectedEvent (source, slc.sectors, owner);
+    SectorListConverter slc =
+        new SectorListConverter (sectorsText, owner.getDisk ().getTotalBlocks ());
+    return new SectorSelectedEvent (source, slc.blocks, owner);
   }
-}
\ No newline at end of file
+}
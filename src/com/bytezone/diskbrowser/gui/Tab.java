@@ -12,8 +12,6 @@ import javax.swing.tree.DefaultMutableTreeNode;
 interface Tab
 // -----------------------------------------------------------------------------------//
 {
-  public void refresh ();
-
   public void activate ();
 
   public DefaultMutableTreeNode getRootNode ();
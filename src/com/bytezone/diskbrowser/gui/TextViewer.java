@@ -0,0 +1,587 @@
+package com.bytezone.diskbrowser.gui;
+
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Insets;
+import java.awt.Point;
+import java.awt.Rectangle;
+import java.awt.Toolkit;
+import java.awt.datatransfer.StringSelection;
+import java.awt.event.ActionEvent;
+import java.awt.event.InputEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Arrays;
+
+import javax.swing.AbstractAction;
+import javax.swing.JComponent;
+import javax.swing.JOptionPane;
+import javax.swing.JViewport;
+import javax.swing.KeyStroke;
+import javax.swing.Scrollable;
+import javax.swing.SwingConstants;
+import javax.swing.UIManager;
+
+// Read-only replacement for a JTextArea that can hold very large listings. The text
+// is kept as a single string with an index of where each line starts, and only the
+// rows inside the clip are drawn, so there is no per-line layout or document model.
+// All the display fonts are monospaced, so columns are a fixed width, and tabs are
+// expanded to spaces when the text is set.
+// -----------------------------------------------------------------------------------//
+@SuppressWarnings ("serial")
+class TextViewer extends JComponent implements Scrollable
+// -----------------------------------------------------------------------------------//
+{
+  private static final Insets margin = new Insets (5, 5, 5, 5);
+  private static final int TAB_SIZE = 8;      // as in JTextArea
+
+  private final int rows;                     // minimum size, as in JTextArea
+  private final int columns;
+
+  private String text = "";
+  private int[] lineStarts = { 0, 1 };        // last entry is the end of the text + 1
+  private int lineCount = 1;
+  private int maxLineLength;
+
+  private boolean lineWrap;
+  private int wrapColumns;                    // columns in the current wrapped width
+  private int[] rowStarts;                    // first row of each line when wrapping
+
+  private int charWidth;
+  private int lineHeight;
+  private int ascent;
+
+  private int selectionAnchor;
+  private int selectionStart;
+  private int selectionEnd;
+
+  private String lastSearch = "";
+  private int lastSearchFrom;
+
+  // ---------------------------------------------------------------------------------//
+  TextViewer (int rows, int columns)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.rows = rows;
+    this.columns = columns;
+
+    setOpaque (true);
+    setFocusable (true);
+    setAutoscrolls (true);
+    setBackground (UIManager.getColor ("TextArea.background"));
+    setForeground (UIManager.getColor ("TextArea.foreground"));
+    setFont (UIManager.getFont ("TextArea.font"));
+
+    MouseAdapter mouseAdapter = new MouseAdapter ()
+    {
+      @Override
+      public void mousePressed (MouseEvent e)
+      {
+        requestFocusInWindow ();
+        int offset = getOffset (e.getPoint ());
+
+        if (e.getClickCount () == 2)
+          selectWord (offset);
+        else if (e.isShiftDown ())
+          select (selectionAnchor, offset);
+        else
+        {
+          selectionAnchor = offset;
+          select (offset, offset);
+        }
+      }
+
+      @Override
+      public void mouseDragged (MouseEvent e)
+      {
+        select (selectionAnchor, getOffset (e.getPoint ()));
+        scrollRectToVisible (new Rectangle (e.getX (), e.getY (), 1, 1));
+      }
+    };
+
+    addMouseListener (mouseAdapter);
+    addMouseMotionListener (mouseAdapter);
+
+    int mask = Toolkit.getDefaultToolkit ().getMenuShortcutKeyMaskEx ();
+    addKeyAction (KeyStroke.getKeyStroke (KeyEvent.VK_C, mask), "copy", this::copy);
+    addKeyAction (KeyStroke.getKeyStroke (KeyEvent.VK_A, mask), "selectAll",
+        () -> select (0, text.length ()));
+    int findMask = mask | InputEvent.SHIFT_DOWN_MASK;   // menu-F is FontAction's
+    addKeyAction (KeyStroke.getKeyStroke (KeyEvent.VK_F, findMask), "find", this::find);
+    addKeyAction (KeyStroke.getKeyStroke (KeyEvent.VK_G, mask), "findNext",
+        this::findNext);
+    addKeyAction (KeyStroke.getKeyStroke (KeyEvent.VK_F3, 0), "findNext", this::findNext);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void addKeyAction (KeyStroke keyStroke, String name, Runnable runnable)
+  // ---------------------------------------------------------------------------------//
+  {
+    getInputMap ().put (keyStroke, name);
+    getActionMap ().put (name, new AbstractAction ()
+    {
+      @Override
+      public void actionPerformed (ActionEvent e)
+      {
+        runnable.run ();
+      }
+    });
+  }
+
+  // ---------------------------------------------------------------------------------//
+  void setText (String text)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.text = text == null ? "" : text.indexOf ('\t') < 0 ? text : expandTabs (text);
+
+    // index the line starts
+    int[] starts = new int[1024];
+    int count = 0;
+    int longest = 0;
+    int start = 0;
+
+    while (true)
+    {
+      if (count == starts.length - 1)
+        starts = Arrays.copyOf (starts, starts.length * 2);
+      starts[count++] = start;
+
+      int end = this.text.indexOf ('\n', start);
+      if (end < 0)
+        end = this.text.length ();
+      longest = Math.max (longest, end - start);
+
+      if (end == this.text.length ())
+        break;
+      start = end + 1;
+    }
+
+    starts[count] = this.text.length () + 1;
+
+    lineStarts = starts;
+    lineCount = count;
+    maxLineLength = longest;
+    rowStarts = null;
+    lastSearchFrom = 0;
+
+    selectionAnchor = 0;
+    selectionStart = 0;
+    selectionEnd = 0;
+
+    revalidate ();
+    scrollRectToVisible (new Rectangle (0, 0, 1, 1));
+    repaint ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private static String expandTabs (String text)
+  // ---------------------------------------------------------------------------------//
+  {
+    StringBuilder text2 = new StringBuilder (text.length () + 64);
+    int column = 0;
+
+    for (int i = 0; i < text.length (); i++)
+    {
+      char c = text.charAt (i);
+      if (c == '\t')
+        do
+          text2.append (' ');
+        while (++column % TAB_SIZE != 0);
+      else
+      {
+        text2.append (c);
+        column = c == '\n' ? 0 : column + 1;
+      }
+    }
+
+    return text2.toString ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  String getText ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return text;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  String getSelectedText ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return text.substring (selectionStart, selectionEnd);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  void setLineWrap (boolean lineWrap)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.lineWrap = lineWrap;
+    rowStarts = null;
+    revalidate ();
+    repaint ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public void setFont (Font font)
+  // ---------------------------------------------------------------------------------//
+  {
+    super.setFont (font);
+
+    FontMetrics fontMetrics = getFontMetrics (font);
+    charWidth = Math.max (1, fontMetrics.charWidth ('m'));
+    lineHeight = Math.max (1, fontMetrics.getHeight ());
+    ascent = fontMetrics.getAscent ();
+    rowStarts = null;
+
+    revalidate ();
+    repaint ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  void select (int from, int to)
+  // ---------------------------------------------------------------------------------//
+  {
+    int start = Math.min (from, to);
+    int end = Math.max (from, to);
+    if (start == selectionStart && end == selectionEnd)
+      return;
+
+    // repaint only the rows whose selection has changed
+    int firstChanged = Math.min (start, selectionStart);
+    int lastChanged = Math.max (end, selectionEnd);
+    if (start == selectionStart)
+      firstChanged = Math.min (end, selectionEnd);
+    else if (end == selectionEnd)
+      lastChanged = Math.max (start, selectionStart);
+
+    selectionStart = start;
+    selectionEnd = end;
+
+    int firstRow = getRow (firstChanged);
+    int lastRow = getRow (lastChanged);
+    repaint (0, margin.top + firstRow * lineHeight, getWidth (),
+        (lastRow - firstRow + 1) * lineHeight);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void selectWord (int offset)
+  // ---------------------------------------------------------------------------------//
+  {
+    int start = offset;
+    int end = offset;
+    while (start > 0 && Character.isLetterOrDigit (text.charAt (start - 1)))
+      --start;
+    while (end < text.length () && Character.isLetterOrDigit (text.charAt (end)))
+      ++end;
+
+    selectionAnchor = start;
+    select (start, end);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void copy ()
+  // ---------------------------------------------------------------------------------//
+  {
+    if (selectionStart < selectionEnd)
+      Toolkit.getDefaultToolkit ().getSystemClipboard ()
+          .setContents (new StringSelection (getSelectedText ()), null);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void find ()
+  // ---------------------------------------------------------------------------------//
+  {
+    String target = (String) JOptionPane.showInputDialog (this, "Find", "Find",
+        JOptionPane.PLAIN_MESSAGE, null, null, lastSearch);
+    if (target == null || target.isEmpty ())
+      return;
+
+    lastSearch = target;
+    lastSearchFrom = selectionStart;
+    findNext ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void findNext ()
+  // ---------------------------------------------------------------------------------//
+  {
+    if (lastSearch.isEmpty ())
+    {
+      find ();
+      return;
+    }
+
+    int offset = find (lastSearch, lastSearchFrom);
+    if (offset < 0 && lastSearchFrom > 0)
+      offset = find (lastSearch, 0);            // wrap around
+
+    if (offset < 0)
+    {
+      Toolkit.getDefaultToolkit ().beep ();
+      return;
+    }
+
+    lastSearchFrom = offset + 1;
+    selectionAnchor = offset;
+    select (offset, offset + lastSearch.length ());
+
+    Rectangle rectangle = getRowBounds (getRow (offset));
+    rectangle.x = margin.left + getColumn (offset) * charWidth;
+    rectangle.width = lastSearch.length () * charWidth;
+    scrollRectToVisible (rectangle);
+  }
+
+  // case-insensitive search, without copying the text
+  // ---------------------------------------------------------------------------------//
+  int find (String target, int from)
+  // ---------------------------------------------------------------------------------//
+  {
+    char first = Character.toLowerCase (target.charAt (0));
+    int last = text.length () - target.length ();
+
+    for (int i = Math.max (0, from); i <= last; i++)
+      if (Character.toLowerCase (text.charAt (i)) == first
+          && text.regionMatches (true, i, target, 0, target.length ()))
+        return i;
+
+    return -1;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private int getLine (int offset)
+  // ---------------------------------------------------------------------------------//
+  {
+    int line = Arrays.binarySearch (lineStarts, 0, lineCount, offset);
+    return line >= 0 ? line : -line - 2;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private int getLineLength (int line)
+  // ---------------------------------------------------------------------------------//
+  {
+    return lineStarts[line + 1] - 1 - lineStarts[line];
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private int getTotalRows ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return lineWrap ? getRowStarts ()[lineCount] : lineCount;
+  }
+
+  // cumulative count of wrapped rows, rebuilt whenever the width or text changes
+  // ---------------------------------------------------------------------------------//
+  private int[] getRowStarts ()
+  // ---------------------------------------------------------------------------------//
+  {
+    int width = getParent () instanceof JViewport viewport ? viewport.getWidth ()
+        : getWidth ();
+    int wrap = Math.max (1, (width - margin.left - margin.right) / charWidth);
+
+    if (rowStarts == null || wrap != wrapColumns)
+    {
+      wrapColumns = wrap;
+      rowStarts = new int[lineCount + 1];
+      for (int line = 0; line < lineCount; line++)
+        rowStarts[line + 1] =
+            rowStarts[line] + Math.max (1, (getLineLength (line) + wrap - 1) / wrap);
+    }
+
+    return rowStarts;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private int getRow (int offset)
+  // ---------------------------------------------------------------------------------//
+  {
+    int line = getLine (offset);
+    if (!lineWrap)
+      return line;
+
+    int[] starts = getRowStarts ();
+    int rowsInLine = starts[line + 1] - starts[line];
+    return starts[line]
+        + Math.min ((offset - lineStarts[line]) / wrapColumns, rowsInLine - 1);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private int getColumn (int offset)
+  // ---------------------------------------------------------------------------------//
+  {
+    int line = getLine (offset);
+    int column = offset - lineStarts[line];
+    return lineWrap ? column - (getRow (offset) - rowStarts[line]) * wrapColumns : column;
+  }
+
+  // first and last (exclusive) offsets of a row
+  // ---------------------------------------------------------------------------------//
+  private int[] getRowRange (int row)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (!lineWrap)
+      return new int[] { lineStarts[row], lineStarts[row + 1] - 1 };
+
+    int[] starts = getRowStarts ();
+    int line = Arrays.binarySearch (starts, 0, lineCount, row);    // every line has a row
+    if (line < 0)
+      line = -line - 2;
+
+    int lineEnd = lineStarts[line + 1] - 1;
+    int start = lineStarts[line] + (row - starts[line]) * wrapColumns;
+    return new int[] { start, Math.min (lineEnd, start + wrapColumns) };
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private Rectangle getRowBounds (int row)
+  // ---------------------------------------------------------------------------------//
+  {
+    return new Rectangle (0, margin.top + row * lineHeight, getWidth (), lineHeight);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private int getOffset (Point point)
+  // ---------------------------------------------------------------------------------//
+  {
+    int row = (point.y - margin.top) / lineHeight;
+    if (point.y < margin.top || row < 0)
+      return 0;
+    if (row >= getTotalRows ())
+      return text.length ();
+
+    int[] range = getRowRange (row);
+    int column = Math.round ((float) (point.x - margin.left) / charWidth);
+    return range[0] + Math.max (0, Math.min (column, range[1] - range[0]));
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  protected void paintComponent (Graphics g)
+  // ---------------------------------------------------------------------------------//
+  {
+    Rectangle clip = g.getClipBounds ();
+    if (clip == null)
+      clip = new Rectangle (0, 0, getWidth (), getHeight ());
+
+    g.setColor (getBackground ());
+    g.fillRect (clip.x, clip.y, clip.width, clip.height);
+    g.setFont (getFont ());
+
+    int totalRows = getTotalRows ();
+    int firstRow = Math.max (0, (clip.y - margin.top) / lineHeight);
+    int lastRow =
+        Math.min (totalRows - 1, (clip.y + clip.height - margin.top) / lineHeight);
+
+    // only the visible columns of a long line are drawn
+    int firstColumn = Math.max (0, (clip.x - margin.left) / charWidth);
+    int lastColumn = (clip.x + clip.width - margin.left) / charWidth + 1;
+
+    Color selectionBackground = UIManager.getColor ("TextArea.selectionBackground");
+    Color selectionForeground = UIManager.getColor ("TextArea.selectionForeground");
+
+    for (int row = firstRow; row <= lastRow; row++)
+    {
+      int[] range = getRowRange (row);
+      int start = Math.min (range[1], range[0] + firstColumn);
+      int end = Math.min (range[1], range[0] + lastColumn);
+      int y = margin.top + row * lineHeight;
+      int x = margin.left + (start - range[0]) * charWidth;
+
+      if (start < end)
+      {
+        g.setColor (getForeground ());
+        g.drawString (text.substring (start, end), x, y + ascent);
+      }
+
+      // draw the selected part of the row over the top, a selected newline is shown
+      // as half a column
+      int selStart = Math.max (start, selectionStart);
+      int selEnd = Math.min (end, selectionEnd);
+      boolean newLineSelected = end == range[1] && range[1] < text.length ()
+          && text.charAt (range[1]) == '\n' && selectionStart <= range[1]
+          && range[1] < selectionEnd;
+
+      if (selStart < selEnd || newLineSelected)
+      {
+        int selX = margin.left + (Math.min (selStart, end) - range[0]) * charWidth;
+        int selWidth = Math.max (0, selEnd - selStart) * charWidth;
+        if (newLineSelected)
+          selWidth += charWidth / 2;
+
+        g.setColor (selectionBackground);
+        g.fillRect (selX, y, selWidth, lineHeight);
+
+        if (selStart < selEnd)
+        {
+          g.setColor (selectionForeground);
+          g.drawString (text.substring (selStart, selEnd), selX, y + ascent);
+        }
+      }
+    }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public Dimension getPreferredSize ()
+  // ---------------------------------------------------------------------------------//
+  {
+    int width =
+        (lineWrap ? columns : Math.max (columns, maxLineLength)) * charWidth;
+    int height = Math.max (rows, getTotalRows ()) * lineHeight;
+
+    return new Dimension (width + margin.left + margin.right + charWidth,
+        height + margin.top + margin.bottom);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public Dimension getPreferredScrollableViewportSize ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return new Dimension (columns * charWidth + margin.left + margin.right,
+        rows * lineHeight + margin.top + margin.bottom);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public int getScrollableUnitIncrement (Rectangle visibleRect, int orientation,
+      int direction)
+  // ---------------------------------------------------------------------------------//
+  {
+    return orientation == SwingConstants.VERTICAL ? lineHeight : charWidth;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public int getScrollableBlockIncrement (Rectangle visibleRect, int orientation,
+      int direction)
+  // ---------------------------------------------------------------------------------//
+  {
+    return orientation == SwingConstants.VERTICAL
+        ? Math.max (lineHeight, visibleRect.height - lineHeight) : visibleRect.width;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public boolean getScrollableTracksViewportWidth ()
+  // ---------------------------------------------------------------------------------//
+  {
+    if (lineWrap)
+      return true;
+    return getParent () instanceof JViewport viewport
+        && viewport.getWidth () > getPreferredSize ().width;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public boolean getScrollableTracksViewportHeight ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return getParent () instanceof JViewport viewport
+        && viewport.getHeight () > getPreferredSize ().height;
+  }
+}
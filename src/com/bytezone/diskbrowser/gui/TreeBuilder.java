@@ -4,29 +4,40 @@ import java.awt.image.BufferedImage;
 import java.io.File;
 import java.net.URL;
 import java.text.SimpleDateFormat;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import javax.swing.ImageIcon;
 import javax.swing.JComponent;
 import javax.swing.JTree;
+import javax.swing.SwingWorker;
 import javax.swing.tree.DefaultMutableTreeNode;
 import javax.swing.tree.DefaultTreeCellRenderer;
 import javax.swing.tree.DefaultTreeModel;
 
-import com.bytezone.diskbrowser.disk.DiskFactory;
 import com.bytezone.diskbrowser.disk.FormattedDisk;
-import com.bytezone.diskbrowser.utilities.FileFormatException;
-import com.bytezone.diskbrowser.utilities.Utility;
+import com.bytezone.diskbrowser.gui.DirectoryLoader.Entry;
 
 // -----------------------------------------------------------------------------------//
 class TreeBuilder
 // -----------------------------------------------------------------------------------//
 {
   private static SimpleDateFormat sdf = new SimpleDateFormat ("dd LLL yyyy");
+  private static final int CHUNK_SIZE = 200;      // nodes inserted at a time
+
+  // folders are listed in the background, and their disks counted at low priority
+  private static final ExecutorService listExecutor =
+      createExecutor ("TreeBuilder lister", Thread.NORM_PRIORITY);
+  private static final ExecutorService countExecutor =
+      createExecutor ("TreeBuilder counter", Thread.MIN_PRIORITY);
 
-  private final FileComparator fileComparator = new FileComparator ();
   private final JTree tree;
+  private final DefaultTreeModel treeModel;
 
   // ---------------------------------------------------------------------------------//
   TreeBuilder (File rootFolder)
@@ -39,12 +50,29 @@ class TreeBuilder
     DefaultMutableTreeNode root = new DefaultMutableTreeNode (fileNode);
     fileNode.setTreeNode (root);
 
-    addFiles (root, rootFolder);
-    DefaultTreeModel treeModel = new DefaultTreeModel (root);
+    treeModel = new DefaultTreeModel (root);
     tree = new JTree (treeModel);
 
     treeModel.setAsksAllowsChildren (true);   // allows empty nodes to appear as folders
     setDiskIcon ("/com/bytezone/diskbrowser/icons/disk.png");
+
+    fileNode.readFiles ();                    // the tab needs the first level now
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private static ExecutorService createExecutor (String name, int priority)
+  // ---------------------------------------------------------------------------------//
+  {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor (1, 1, 30, TimeUnit.SECONDS,
+        new LinkedBlockingQueue<> (), runnable ->
+        {
+          Thread thread = new Thread (runnable, name);
+          thread.setDaemon (true);
+          thread.setPriority (priority);
+          return thread;
+        });
+    executor.allowCoreThreadTimeOut (true);
+    return executor;
   }
 
   // ---------------------------------------------------------------------------------//
@@ -54,28 +82,75 @@ class TreeBuilder
     return tree;
   }
 
+  // the folders and disks that appear in the tree
   // ---------------------------------------------------------------------------------//
-  private void addFiles (DefaultMutableTreeNode parentNode, File directory)
+  private static List<Entry> getTreeEntries (File directory)
   // ---------------------------------------------------------------------------------//
   {
-    File[] files = directory.listFiles ();
-    if (files == null || files.length == 0)
-    {
+    List<Entry> entries = new ArrayList<> ();
+    for (Entry entry : DirectoryLoader.list (directory))
+      if (entry.isTreeEntry ())
+        entries.add (entry);
+
+    if (entries.isEmpty ())
       System.out.println ("Empty folder : " + directory.getAbsolutePath ());
-      return;
-    }
 
-    Arrays.sort (files, fileComparator);
+    return entries;
+  }
 
-    for (File file : files)
+  // ---------------------------------------------------------------------------------//
+  private void addFiles (DefaultMutableTreeNode parentNode, List<Entry> entries)
+  // ---------------------------------------------------------------------------------//
+  {
+    int first = parentNode.getChildCount ();
+    int[] indices = new int[entries.size ()];
+
+    for (int i = 0; i < indices.length; i++)
     {
-      if (file.isHidden ())
-        continue;
-      if (file.isDirectory ())
-        parentNode.add (createNode (file, true));
-      else if (Utility.validFileType (file.getName ()) && file.length () > 0)
-        parentNode.add (createNode (file, false));
+      Entry entry = entries.get (i);
+      DefaultMutableTreeNode node = createNode (entry.file, entry.directory);
+      parentNode.add (node);
+      indices[i] = first + i;
+
+      if (entry.directory)
+        countDisks ((FileNode) node.getUserObject ());
     }
+
+    if (indices.length > 0)
+      treeModel.nodesWereInserted (parentNode, indices);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void countDisks (FileNode fileNode)
+  // ---------------------------------------------------------------------------------//
+  {
+    countExecutor.execute (new SwingWorker<Integer, Void> ()
+    {
+      @Override
+      protected Integer doInBackground ()
+      {
+        int disks = 0;
+        for (Entry entry : DirectoryLoader.list (fileNode.file))
+          if (entry.isDisk ())
+            ++disks;
+        return disks;
+      }
+
+      @Override
+      protected void done ()
+      {
+        try
+        {
+          fileNode.disks = get ();
+          fileNode.showDisks = true;
+          treeModel.nodeChanged (fileNode.parentNode);
+        }
+        catch (Exception e)
+        {
+          e.printStackTrace ();
+        }
+      }
+    });
   }
 
   // ---------------------------------------------------------------------------------//
@@ -120,6 +195,8 @@ class TreeBuilder
     private FormattedDisk formattedDisk;
     int disks;
     boolean showDisks;
+    private boolean loaded;                     // the children have been added
+    private ListWorker listWorker;
 
     // -------------------------------------------------------------------------------//
     FileNode (File file)
@@ -135,31 +212,102 @@ class TreeBuilder
       this.parentNode = node;
     }
 
+    // needed immediately, eg when searching for a path
     // -------------------------------------------------------------------------------//
     void readFiles ()
     // -------------------------------------------------------------------------------//
     {
-      addFiles (parentNode, file);
+      if (loaded)
+        return;
+
+      if (listWorker != null)                 // replace anything it has added so far
+      {
+        listWorker.cancel (false);
+        listWorker = null;
+        if (parentNode.getChildCount () > 0)
+        {
+          parentNode.removeAllChildren ();
+          treeModel.nodeStructureChanged (parentNode);
+        }
+      }
+
+      loaded = true;
+      addFiles (parentNode, getTreeEntries (file));
     }
 
+    // called when the folder is expanded, the children are added as they are read
     // -------------------------------------------------------------------------------//
-    FormattedDisk getFormattedDisk ()
+    void readFilesInBackground ()
+    // -------------------------------------------------------------------------------//
+    {
+      if (loaded || listWorker != null)
+        return;
+
+      listWorker = new ListWorker ();
+      treeModel.nodeChanged (parentNode);       // show that it's loading
+      listExecutor.execute (listWorker);
+    }
+
+    // reads the folder and adds its children in sorted chunks
+    // -------------------------------------------------------------------------------//
+    private class ListWorker extends SwingWorker<Void, List<Entry>>
+    // -------------------------------------------------------------------------------//
+    {
+      // -----------------------------------------------------------------------------//
+      @Override
+      protected Void doInBackground ()
+      // -----------------------------------------------------------------------------//
+      {
+        List<Entry> entries = getTreeEntries (file);
+        for (int i = 0; i < entries.size () && !isCancelled (); i += CHUNK_SIZE)
+          publish (entries.subList (i, Math.min (entries.size (), i + CHUNK_SIZE)));
+        return null;
+      }
+
+      // runs on the EDT
+      // -----------------------------------------------------------------------------//
+      @Override
+      protected void process (List<List<Entry>> chunks)
+      // -----------------------------------------------------------------------------//
+      {
+        if (listWorker != this)                 // replaced by readFiles()
+          return;
+
+        for (List<Entry> chunk : chunks)
+          addFiles (parentNode, chunk);
+      }
+
+      // runs on the EDT
+      // -----------------------------------------------------------------------------//
+      @Override
+      protected void done ()
+      // -----------------------------------------------------------------------------//
+      {
+        if (listWorker != this)
+          return;
+
+        listWorker = null;
+        loaded = true;
+        treeModel.nodeChanged (parentNode);     // remove the loading message
+      }
+    }
+
+    // the disk if it has already been created, so that it can be used on the EDT
+    // -------------------------------------------------------------------------------//
+    FormattedDisk getCreatedDisk ()
     // -------------------------------------------------------------------------------//
     {
-      if (formattedDisk == null)
-        try
-        {
-          formattedDisk = DiskFactory.createDisk (file);
-        }
-        catch (FileFormatException e)
-        {
-          System.out.println ("Swallowing a FileFormatException in TreeBuilder");
-          System.out.println (e.getMessage ());
-          return null;
-        }
       return formattedDisk;
     }
 
+    // called by DiskOpener once the disk has been created in the background
+    // -------------------------------------------------------------------------------//
+    void setFormattedDisk (FormattedDisk disk)
+    // -------------------------------------------------------------------------------//
+    {
+      formattedDisk = disk;
+    }
+
     // -------------------------------------------------------------------------------//
     boolean replaceDisk (FormattedDisk disk)
     // -------------------------------------------------------------------------------//
@@ -182,6 +330,8 @@ class TreeBuilder
       if (name.length () > MAX_NAME_LENGTH)
         name = name.substring (0, PREFIX_LENGTH) + "..."
             + name.substring (name.length () - SUFFIX_LENGTH);
+      if (listWorker != null)
+        return name + " (loading ...)";
       if (showDisks && disks > 0)
         return String.format ("%s (%,d)", name, disks);
       return name;
@@ -204,23 +354,16 @@ class TreeBuilder
       text.append ("-  ----------------------------------------"
           + "  -----------  --------------  ---------\n");
 
-      File[] files = file.listFiles ();
-      if (files != null)
+      for (Entry entry : DirectoryLoader.list (file))
       {
-        Arrays.sort (files, fileComparator);
-        for (File f : files)
-        {
-          if (f.isHidden ())
-            continue;
-          String name = f.getName ();
-
-          Date d = new Date (f.lastModified ());
-          int pos = name.lastIndexOf ('.');
-          String type = pos > 0 && !f.isDirectory () ? name.substring (pos) : "";
-          String size = f.isDirectory () ? "" : String.format ("%,14d", f.length ());
-          text.append (String.format ("%s  %-40.40s  %s  %-14s  %s%n",
-              f.isDirectory () ? "D" : " ", name, sdf.format (d), size, type));
-        }
+        String name = entry.file.getName ();
+
+        Date d = new Date (entry.lastModified);
+        int pos = name.lastIndexOf ('.');
+        String type = pos > 0 && !entry.directory ? name.substring (pos) : "";
+        String size = entry.directory ? "" : String.format ("%,14d", entry.size);
+        text.append (String.format ("%s  %-40.40s  %s  %-14s  %s%n",
+            entry.directory ? "D" : " ", name, sdf.format (d), size, type));
       }
 
       if (text.length () > 0)
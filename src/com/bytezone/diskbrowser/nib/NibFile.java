@@ -4,6 +4,7 @@ import java.io.BufferedInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 public class NibFile
 {
@@ -24,6 +25,7 @@ public class NibFile
   {
     this.file = file;
     byte[] trackBuffer = new byte[6656];
+    ByteBuffer trackData = ByteBuffer.wrap (trackBuffer);
     //    nibbler = new Nibblizer (file);
 
     try
@@ -37,7 +39,7 @@ public class NibFile
         int offset = 0;
         while (true)
         {
-          offset = Nibblizer.findBytes (trackBuffer, offset, test);
+          offset = Nibblizer.findBytes (trackData, offset, test);
           if (offset < 0)
             break;
           System.out.printf ("found at %04X%n", offset);
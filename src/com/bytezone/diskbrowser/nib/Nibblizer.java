@@ -1,5 +1,7 @@
 package com.bytezone.diskbrowser.nib;
 
+import java.nio.ByteBuffer;
+
 class Nibblizer
 {
   // still used by NibDisk and V2dDisk
@@ -36,7 +38,7 @@ class Nibblizer
   // processTrack
   // ---------------------------------------------------------------------------------//
 
-  boolean processTrack (int trackNo, int maxTracks, byte[] buffer, byte[] diskBuffer)
+  boolean processTrack (int trackNo, int maxTracks, ByteBuffer buffer, byte[] diskBuffer)
   {
     int ptr = 0;
     int totalSectors = 0;
@@ -45,7 +47,7 @@ class Nibblizer
 
     try
     {
-      while (ptr < buffer.length)
+      while (ptr < buffer.limit ())
       {
         if (sectorsPerTrack == 13)
           ptr = findBytes (buffer, ptr, addressPrologue32);
@@ -130,10 +132,10 @@ class Nibblizer
   // decode4and4
   // ---------------------------------------------------------------------------------//
 
-  private int decode4and4 (byte[] buffer, int offset)
+  private int decode4and4 (ByteBuffer buffer, int offset)
   {
-    int odds = ((buffer[offset] & 0xFF) << 1) + 1;
-    int evens = buffer[offset + 1] & 0xFF;
+    int odds = ((buffer.get (offset) & 0xFF) << 1) + 1;
+    int evens = buffer.get (offset + 1) & 0xFF;
     return odds & evens;
   }
 
@@ -141,7 +143,7 @@ class Nibblizer
   // decode5and3
   // ---------------------------------------------------------------------------------//
 
-  private byte[] decode5and3 (byte[] buffer, int offset)
+  private byte[] decode5and3 (ByteBuffer buffer, int offset)
   {
     // rearrange 410 bytes into 256
     byte[] decodedBuffer = new byte[BLOCK_SIZE];                      // 256 bytes
@@ -152,7 +154,7 @@ class Nibblizer
       for (int i = 0; i < BUFFER_WITH_CHECKSUM_SIZE_DOS_32; i++)        // 411 bytes
       {
         //      System.out.printf ("%,5d  %02X%n", i, buffer[offset]);
-        decodeDos32a[i] = (byte) (byteTranslator53.decode (buffer[offset++]) << 3);
+        decodeDos32a[i] = (byte) (byteTranslator53.decode (buffer.get (offset++)) << 3);
       }
 
       // reconstruct 410 bytes each with 5 bits
@@ -206,7 +208,7 @@ class Nibblizer
   // decode6and2
   // ---------------------------------------------------------------------------------//
 
-  private byte[] decode6and2 (byte[] buffer, int offset)
+  private byte[] decode6and2 (ByteBuffer buffer, int offset)
   {
     // rearrange 342 bytes into 256
     byte[] decodedBuffer = new byte[BLOCK_SIZE];                    // 256 bytes
@@ -215,7 +217,7 @@ class Nibblizer
     {
       // convert legal disk values to actual 6 bit values
       for (int i = 0; i < BUFFER_WITH_CHECKSUM_SIZE_DOS_33; i++)      // 343 bytes
-        decodeDos33a[i] = (byte) (byteTranslator62.decode (buffer[offset++]) << 2);
+        decodeDos33a[i] = (byte) (byteTranslator62.decode (buffer.get (offset++)) << 2);
 
       // reconstruct 342 bytes each with 6 bits
       byte chk = 0;
@@ -306,13 +308,13 @@ class Nibblizer
   // listBytes
   // ---------------------------------------------------------------------------------//
 
-  private String listBytes (byte[] buffer, int offset, int length)
+  private String listBytes (ByteBuffer buffer, int offset, int length)
   {
     StringBuilder text = new StringBuilder ();
 
-    int max = Math.min (length + offset, buffer.length);
+    int max = Math.min (length + offset, buffer.limit ());
     while (offset < max)
-      text.append (String.format ("%02X ", buffer[offset++]));
+      text.append (String.format ("%02X ", buffer.get (offset++)));
 
     return text.toString ();
   }
@@ -321,9 +323,9 @@ class Nibblizer
   // findBytes
   // ---------------------------------------------------------------------------------//
 
-  static int findBytes (byte[] buffer, int offset, byte[] valueBuffer)
+  static int findBytes (ByteBuffer buffer, int offset, byte[] valueBuffer)
   {
-    while (offset + valueBuffer.length <= buffer.length)
+    while (offset + valueBuffer.length <= buffer.limit ())
     {
       if (matchBytes (buffer, offset, valueBuffer))
         return offset;
@@ -337,9 +339,9 @@ class Nibblizer
   // matchBytes
   // ---------------------------------------------------------------------------------//
 
-  private static boolean matchBytes (byte[] buffer, int offset, byte[] valueBuffer)
+  private static boolean matchBytes (ByteBuffer buffer, int offset, byte[] valueBuffer)
   {
-    if ((buffer.length - offset) < valueBuffer.length)
+    if ((buffer.limit () - offset) < valueBuffer.length)
       return false;
 
     int ptr = 0;
@@ -347,10 +349,10 @@ class Nibblizer
     try
     {
       while (ptr < valueBuffer.length)
-        if (buffer[offset++] != valueBuffer[ptr++])
+        if (buffer.get (offset++) != valueBuffer[ptr++])
           return false;
     }
-    catch (ArrayIndexOutOfBoundsException e)
+    catch (IndexOutOfBoundsException e)
     {
       System.out.println ("Error in matchBytes");
       e.printStackTrace ();
@@ -367,11 +369,11 @@ class Nibblizer
   private abstract class Field
   {
     protected boolean valid;
-    protected byte[] buffer;
+    protected ByteBuffer buffer;
     protected int offset;
     protected int length;
 
-    public Field (byte[] buffer, int offset)
+    public Field (ByteBuffer buffer, int offset)
     {
       this.buffer = buffer;
       this.offset = offset;
@@ -403,7 +405,7 @@ class Nibblizer
   {
     int track, sector, volume, checksum;
 
-    public AddressField (byte[] buffer, int offset)
+    public AddressField (ByteBuffer buffer, int offset)
     {
       super (buffer, offset);
 
@@ -432,7 +434,7 @@ class Nibblizer
   {
     byte[] dataBuffer;
 
-    public DataField (byte[] buffer, int offset)
+    public DataField (ByteBuffer buffer, int offset)
     {
       super (buffer, offset);
 
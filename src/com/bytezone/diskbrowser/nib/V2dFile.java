@@ -1,11 +1,9 @@
 package com.bytezone.diskbrowser.nib;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
-import com.bytezone.diskbrowser.utilities.HexFormatter;
 import com.bytezone.diskbrowser.utilities.Utility;
 
 /*
@@ -57,44 +55,45 @@ public class V2dFile
 
     try
     {
-      byte[] header = new byte[10];
-      BufferedInputStream in = new BufferedInputStream (new FileInputStream (file));
-      in.read (header);
+      // track data is decoded straight from the mapped file
+      ByteBuffer buffer = Utility.mapFile (file);          // big-endian
 
-      int diskLength = Utility.getLongBigEndian (header, 0);   // 4 bytes
-      String id = HexFormatter.getString (header, 4, 4);       // 4 bytes
-      tracks = Utility.getShortBigEndian (header, 8);          // 2 bytes
+      int diskLength = buffer.getInt (0);                   // 4 bytes
+      String id = getString (buffer, 4, 4);                 // 4 bytes
+      tracks = buffer.getShort (8) & 0xFFFF;                // 2 bytes
 
       assert diskLength + 8 == file.length ();
       assert "D5NI".equals (id);
 
-      byte[] trackHeader = new byte[4];
-      byte[] trackData = new byte[TRACK_LENGTH];
-
+      int ptr = 10;
       for (int i = 0; i < tracks; i++)
       {
-        in.read (trackHeader);
-        int trackNumber = Utility.getShortBigEndian (trackHeader, 0);
-        int trackLength = Utility.getShortBigEndian (trackHeader, 2);    // 6304
+        int trackNumber = buffer.getShort (ptr) & 0xFFFF;
+        int trackLength = buffer.getShort (ptr + 2) & 0xFFFF;     // 6304
+        ptr += 4;
 
         assert trackLength == TRACK_LENGTH;
 
-        int dataRead = in.read (trackData);
-        assert dataRead == TRACK_LENGTH;
+        if (ptr + trackLength > buffer.limit ())
+        {
+          System.out.printf ("%s track %02X is truncated%n", file.getName (), i);
+          break;
+        }
 
         int fullTrackNo = trackNumber / 4;
         int halfTrackNo = trackNumber % 4;
 
         if (halfTrackNo == 0)                               // only process full tracks
-          nibbler.processTrack (fullTrackNo, 16, trackData, diskBuffer);
+          nibbler.processTrack (fullTrackNo, 16, slice (buffer, ptr, trackLength),
+              diskBuffer);
         else
           System.out.printf ("%s skipping half track %02X / %02X%n", file.getName (),
               fullTrackNo, halfTrackNo);
-      }
 
-      in.close ();
+        ptr += trackLength;
+      }
     }
-    catch (IOException e)
+    catch (IOException | IndexOutOfBoundsException e)
     {
       e.printStackTrace ();
     }
@@ -102,6 +101,28 @@ public class V2dFile
     this.tracks = tracks;
   }
 
+  // ---------------------------------------------------------------------------------//
+  // slice
+  // ---------------------------------------------------------------------------------//
+
+  private ByteBuffer slice (ByteBuffer buffer, int offset, int length)
+  {
+    ByteBuffer slice = buffer.duplicate ();
+    slice.limit (offset + length).position (offset);
+    return slice.slice ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  // getString
+  // ---------------------------------------------------------------------------------//
+
+  private String getString (ByteBuffer buffer, int offset, int length)
+  {
+    byte[] bytes = new byte[length];
+    buffer.duplicate ().position (offset).get (bytes);
+    return new String (bytes);
+  }
+
   // ---------------------------------------------------------------------------------//
   // getDiskBuffer
   // ---------------------------------------------------------------------------------//
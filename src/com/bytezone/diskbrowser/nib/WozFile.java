@@ -1,13 +1,14 @@
 package com.bytezone.diskbrowser.nib;
 
-import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.zip.CRC32;
 
 import com.bytezone.diskbrowser.utilities.Utility;
 
@@ -54,13 +55,15 @@ public class WozFile
   {
     this.file = file;
 
-    byte[] buffer = readFile (file);
-    String header = new String (buffer, 0, 4);
+    ByteBuffer buffer = readFile (file);
+    String header = getString (buffer, 0, 4);
     if (!"WOZ1".equals (header) && !"WOZ2".equals (header))
       throw new DiskNibbleException ("Header error");
 
     int checksum1 = val32 (buffer, 8);
-    int checksum2 = Utility.crc32 (buffer, 12, buffer.length - 12);
+    CRC32 crc32 = new CRC32 ();
+    crc32.update (buffer.duplicate ().position (12));
+    int checksum2 = (int) crc32.getValue ();
     if (checksum1 != checksum2)
     {
       System.out.printf ("Stored checksum     : %08X%n", checksum1);
@@ -69,11 +72,11 @@ public class WozFile
     }
 
     int ptr = 12;
-    while (ptr < buffer.length)
+    while (ptr < buffer.limit ())
     {
       validateChunk (buffer, ptr);
 
-      String chunkId = new String (buffer, ptr, 4);
+      String chunkId = getString (buffer, ptr, 4);
       int size = val32 (buffer, ptr + 4);
       if (debug1)
         System.out.printf ("%n%s  %,9d%n", chunkId, size);
@@ -128,11 +131,11 @@ public class WozFile
   }
 
   // ---------------------------------------------------------------------------------//
-  private boolean validateChunk (byte[] buffer, int ptr) throws DiskNibbleException
+  private boolean validateChunk (ByteBuffer buffer, int ptr) throws DiskNibbleException
   // ---------------------------------------------------------------------------------//
   {
     int size = val32 (buffer, ptr + 4);
-    if (size <= 0 || size + ptr + 8 > buffer.length)
+    if (size <= 0 || size + ptr + 8 > buffer.limit ())
     {
       if (info != null)
         System.out.println (info);
@@ -141,7 +144,7 @@ public class WozFile
 
     for (int i = 0; i < 4; i++)
     {
-      int val = buffer[ptr + i] & 0xFF;
+      int val = buffer.get (ptr + i) & 0xFF;
       if (val < 'A' || val > 'Z')               // not uppercase ascii
       {
         if (info != null)
@@ -198,14 +201,14 @@ public class WozFile
   }
 
   // ---------------------------------------------------------------------------------//
-  private void tmap (byte[] buffer, int ptr)
+  private void tmap (ByteBuffer buffer, int ptr)
   // ---------------------------------------------------------------------------------//
   {
     ptr += 8;
   }
 
   // ---------------------------------------------------------------------------------//
-  private List<Track> trks (byte[] rawBuffer, int ptr)
+  private List<Track> trks (ByteBuffer rawBuffer, int ptr)
   // ---------------------------------------------------------------------------------//
   {
     List<Track> tracks = new ArrayList<> ();
@@ -235,28 +238,33 @@ public class WozFile
   }
 
   // ---------------------------------------------------------------------------------//
-  private int val8 (byte[] buffer, int ptr)
+  private int val8 (ByteBuffer buffer, int ptr)
   // ---------------------------------------------------------------------------------//
   {
-    return (buffer[ptr] & 0xFF);
+    return buffer.get (ptr) & 0xFF;
   }
 
   // ---------------------------------------------------------------------------------//
-  private int val16 (byte[] buffer, int ptr)
+  private int val16 (ByteBuffer buffer, int ptr)
   // ---------------------------------------------------------------------------------//
   {
-    return (buffer[ptr] & 0xFF)                 //
-        | ((buffer[ptr + 1] & 0xFF) << 8);
+    return buffer.getShort (ptr) & 0xFFFF;              // little-endian
   }
 
   // ---------------------------------------------------------------------------------//
-  private int val32 (byte[] buffer, int ptr)
+  private int val32 (ByteBuffer buffer, int ptr)
   // ---------------------------------------------------------------------------------//
   {
-    return (buffer[ptr] & 0xFF)                 //
-        | ((buffer[ptr + 1] & 0xFF) << 8)       //
-        | ((buffer[ptr + 2] & 0xFF) << 16)      //
-        | ((buffer[ptr + 3] & 0xFF) << 24);
+    return buffer.getInt (ptr);                         // little-endian
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private String getString (ByteBuffer buffer, int ptr, int length)
+  // ---------------------------------------------------------------------------------//
+  {
+    byte[] bytes = new byte[length];
+    buffer.duplicate ().position (ptr).get (bytes);
+    return new String (bytes);
   }
 
   // ---------------------------------------------------------------------------------//
@@ -269,17 +277,18 @@ public class WozFile
   }
 
   // ---------------------------------------------------------------------------------//
-  private byte[] readFile (File file)
+  private ByteBuffer readFile (File file) throws DiskNibbleException
   // ---------------------------------------------------------------------------------//
   {
-    try (BufferedInputStream in = new BufferedInputStream (new FileInputStream (file)))
+    // the track data is decoded straight from the mapped file
+    try
     {
-      return in.readAllBytes ();
+      return Utility.mapFile (file).order (ByteOrder.LITTLE_ENDIAN);
     }
     catch (IOException e)
     {
       e.printStackTrace ();
-      return null;
+      throw new DiskNibbleException ("Error reading file");
     }
   }
 
@@ -334,7 +343,7 @@ public class WozFile
     int largestTrack;
 
     // ---------------------------------------------------------------------------------//
-    Info (byte[] buffer, int ptr)
+    Info (ByteBuffer buffer, int ptr)
     // ---------------------------------------------------------------------------------//
     {
       wozVersion = val8 (buffer, ptr + 8);
@@ -343,7 +352,7 @@ public class WozFile
       writeProtected = val8 (buffer, ptr + 10);
       synchronised = val8 (buffer, ptr + 11);
       cleaned = val8 (buffer, ptr + 12);
-      creator = new String (buffer, ptr + 13, 32);
+      creator = getString (buffer, ptr + 13, 32);
 
       if (wozVersion >= 2)
       {
@@ -402,11 +411,11 @@ public class WozFile
     List<String> lines = new ArrayList<> ();
 
     // ---------------------------------------------------------------------------------//
-    Meta (byte[] buffer, int ptr, int length)
+    Meta (ByteBuffer buffer, int ptr, int length)
     // ---------------------------------------------------------------------------------//
     {
       String dots = " ......................";
-      String metaData = new String (buffer, ptr + 8, length);
+      String metaData = getString (buffer, ptr + 8, length);
       String[] chunks = metaData.split ("\n");
       for (String chunk : chunks)
       {
@@ -445,7 +454,7 @@ public class WozFile
     private int bitCount;
     private int bytesUsed;         // WOZ1 - not needed
 
-    private byte[] rawBuffer;
+    private ByteBuffer rawBuffer;         // this track's bits within the mapped file
     private byte[] newBuffer;
 
     private int bitIndex;
@@ -456,16 +465,15 @@ public class WozFile
     List<Sector> sectors = new ArrayList<> ();
 
     // ---------------------------------------------------------------------------------//
-    public Track (int trackNo, byte[] rawBuffer, int ptr) throws DiskNibbleException
+    public Track (int trackNo, ByteBuffer buffer, int ptr) throws DiskNibbleException
     // ---------------------------------------------------------------------------------//
     {
-      this.rawBuffer = rawBuffer;
       this.trackNo = trackNo;
 
       if (info.wozVersion == 1)
       {
-        bytesUsed = val16 (rawBuffer, ptr + DATA_SIZE);
-        bitCount = val16 (rawBuffer, ptr + DATA_SIZE + 2);
+        bytesUsed = val16 (buffer, ptr + DATA_SIZE);
+        bitCount = val16 (buffer, ptr + DATA_SIZE + 2);
 
         if (debug1)
           System.out.println (
@@ -473,9 +481,9 @@ public class WozFile
       }
       else
       {
-        startingBlock = val16 (rawBuffer, ptr);
-        blockCount = val16 (rawBuffer, ptr + 2);
-        bitCount = val32 (rawBuffer, ptr + 4);
+        startingBlock = val16 (buffer, ptr);
+        blockCount = val16 (buffer, ptr + 2);
+        bitCount = val32 (buffer, ptr + 4);
 
         if (debug1)
           System.out.println ((String.format ("%nStart: %4d,  Blocks: %2d,  Bits: %,8d%n",
@@ -485,6 +493,11 @@ public class WozFile
       if (bitCount == 0)
         return;
 
+      if (info.wozVersion == 1)
+        rawBuffer = slice (buffer, ptr, DATA_SIZE);
+      else                                              // block-aligned TRKS data
+        rawBuffer = slice (buffer, startingBlock * BLOCK_SIZE, blockCount * BLOCK_SIZE);
+
       resetIndex ();
 
       if (addressPrologue == null)                                 // WOZ1
@@ -521,24 +534,29 @@ public class WozFile
       return false;
     }
 
+    // ---------------------------------------------------------------------------------//
+    private ByteBuffer slice (ByteBuffer buffer, int offset, int length)
+    // ---------------------------------------------------------------------------------//
+    {
+      ByteBuffer slice = buffer.duplicate ();
+      slice.limit (offset + length).position (offset);
+      return slice.slice ();
+    }
+
     // ---------------------------------------------------------------------------------//
     private void resetIndex ()
     // ---------------------------------------------------------------------------------//
     {
       trackIndex = 0;
       bitIndex = 0;
-
-      if (info.wozVersion == 1)
-        byteIndex = 256 + trackNo * TRK_SIZE;
-      else
-        byteIndex = startingBlock * BLOCK_SIZE;
+      byteIndex = 0;
     }
 
     // ---------------------------------------------------------------------------------//
     boolean nextBit ()
     // ---------------------------------------------------------------------------------//
     {
-      boolean bit = (rawBuffer[byteIndex] & (0x80 >>> bitIndex)) != 0;
+      boolean bit = (rawBuffer.get (byteIndex) & (0x80 >>> bitIndex)) != 0;
 
       if (++trackIndex >= bitCount)
       {
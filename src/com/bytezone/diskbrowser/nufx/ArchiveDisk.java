@@ -0,0 +1,109 @@
+package com.bytezone.diskbrowser.nufx;
+
+import java.awt.Color;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.swing.tree.DefaultMutableTreeNode;
+
+import com.bytezone.diskbrowser.disk.AbstractFormattedDisk;
+import com.bytezone.diskbrowser.disk.DefaultAppleFileSource;
+import com.bytezone.diskbrowser.disk.Disk;
+import com.bytezone.diskbrowser.disk.DiskAddress;
+import com.bytezone.diskbrowser.disk.SectorType;
+
+// An archive of ProDOS files that is browsed without building a ProDOS volume. The
+// disk is the archive itself, shown as 512-byte blocks, and the catalog tree follows
+// the paths of the files.
+// -----------------------------------------------------------------------------------//
+abstract class ArchiveDisk extends AbstractFormattedDisk
+// -----------------------------------------------------------------------------------//
+{
+  private final Color green = new Color (0, 200, 0);
+
+  final SectorType headerSector = new SectorType ("Header", green);
+  final SectorType dataSector = new SectorType ("Data fork", Color.red);
+  final SectorType resourceSector = new SectorType ("Resource fork", Color.magenta);
+
+  private final DefaultMutableTreeNode volumeNode = new DefaultMutableTreeNode ();
+  private final Map<String, DefaultMutableTreeNode> folders = new HashMap<> ();
+
+  // ---------------------------------------------------------------------------------//
+  ArchiveDisk (Disk disk)
+  // ---------------------------------------------------------------------------------//
+  {
+    super (disk);
+
+    sectorTypesList.add (headerSector);
+    sectorTypesList.add (dataSector);
+    sectorTypesList.add (resourceSector);
+
+    getCatalogTreeRoot ().add (volumeNode);
+    folders.put ("", volumeNode);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  void addFile (ArchiveFileEntry fileEntry)
+  // ---------------------------------------------------------------------------------//
+  {
+    fileEntries.add (fileEntry);
+
+    String fileName = fileEntry.getUniqueName ();
+    int pos = fileName.lastIndexOf ('/');
+    DefaultMutableTreeNode node = new DefaultMutableTreeNode (fileEntry);
+    node.setAllowsChildren (false);
+    getFolder (pos < 0 ? "" : fileName.substring (0, pos)).add (node);
+  }
+
+  // called by the subclass once all the files have been added
+  // ---------------------------------------------------------------------------------//
+  void showCatalog ()
+  // ---------------------------------------------------------------------------------//
+  {
+    volumeNode.setUserObject (getCatalog ());
+    makeNodeVisible (volumeNode.getFirstLeaf ());
+  }
+
+  // ---------------------------------------------------------------------------------//
+  DefaultMutableTreeNode getFolder (String path)
+  // ---------------------------------------------------------------------------------//
+  {
+    DefaultMutableTreeNode folder = folders.get (path);
+    if (folder != null)
+      return folder;
+
+    int pos = path.lastIndexOf ('/');
+    DefaultMutableTreeNode parent = getFolder (pos < 0 ? "" : path.substring (0, pos));
+
+    folder = new DefaultMutableTreeNode (
+        new DefaultAppleFileSource (path.substring (pos + 1), path, this));
+    parent.add (folder);
+    folders.put (path, folder);
+
+    return folder;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  void markBlocks (int start, int end, SectorType type)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (end <= start)
+      return;
+
+    for (int block = start / 512; block <= (end - 1) / 512; block++)
+      if (sectorTypes[block] != headerSector)       // headers win on shared blocks
+        sectorTypes[block] = type;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public List<DiskAddress> getFileSectors (int fileNo)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (fileEntries.size () > fileNo)
+      return fileEntries.get (fileNo).getSectors ();
+
+    return null;
+  }
+}
@@ -0,0 +1,162 @@
+package com.bytezone.diskbrowser.nufx;
+
+import static com.bytezone.diskbrowser.prodos.ProdosConstants.fileTypes;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.bytezone.diskbrowser.applefile.AbstractFile;
+import com.bytezone.diskbrowser.applefile.AppleFileSource;
+import com.bytezone.diskbrowser.applefile.ErrorMessageFile;
+import com.bytezone.diskbrowser.disk.DiskAddress;
+import com.bytezone.diskbrowser.disk.FormattedDisk;
+import com.bytezone.diskbrowser.disk.SectorType;
+import com.bytezone.diskbrowser.gui.DataSource;
+import com.bytezone.diskbrowser.prodos.ProdosFileFactory;
+import com.bytezone.diskbrowser.prodos.ResourceFork;
+
+// A ProDOS file in an ArchiveDisk. Its data is only read (or decompressed) when the
+// file is first selected, and the DataSource is chosen the same way as on a ProDOS
+// disk.
+// -----------------------------------------------------------------------------------//
+abstract class ArchiveFileEntry implements AppleFileSource
+// -----------------------------------------------------------------------------------//
+{
+  final ArchiveDisk parent;
+  final String uniqueName;
+  final String name;
+  private final List<DiskAddress> blocks = new ArrayList<> ();
+  private int lastBlock = -1;
+  private DataSource file;
+
+  // ---------------------------------------------------------------------------------//
+  ArchiveFileEntry (ArchiveDisk parent, String uniqueName)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.parent = parent;
+    this.uniqueName = uniqueName;
+
+    int pos = uniqueName.lastIndexOf ('/');
+    name = uniqueName.substring (pos + 1);
+  }
+
+  abstract int getFileType ();
+
+  abstract int getAuxType ();
+
+  abstract int getDataEOF ();
+
+  abstract byte[] getData () throws Exception;
+
+  abstract byte[] getResourceData () throws Exception;    // null if there isn't one
+
+  // the part of the archive holding one of the forks, in order
+  // ---------------------------------------------------------------------------------//
+  void addBlocks (int start, int end, SectorType type)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (end <= start)
+      return;
+
+    parent.markBlocks (start, end, type);
+
+    int first = Math.max (start / 512, lastBlock + 1);   // forks may share a block
+    lastBlock = (end - 1) / 512;
+    for (int block = first; block <= lastBlock; block++)
+      blocks.add (parent.getDisk ().getDiskAddress (block));
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public DataSource getDataSource ()
+  // ---------------------------------------------------------------------------------//
+  {
+    if (file != null)
+      return file;
+
+    byte[] buffer = null;
+    try
+    {
+      buffer = getData ();
+      file = ProdosFileFactory.createDataSource (null, name, getFileType () & 0xFF,
+          getAuxType (), getDataEOF (), buffer, getExactBuffer (buffer), null);
+
+      byte[] resourceData = getResourceData ();
+      if (resourceData != null && file instanceof AbstractFile abstractFile)
+        abstractFile.setResourceFork (new ResourceFork (resourceData));
+    }
+    catch (Exception e)
+    {
+      file = new ErrorMessageFile (name, buffer, e);
+      e.printStackTrace ();
+    }
+
+    return file;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private byte[] getExactBuffer (byte[] buffer)
+  // ---------------------------------------------------------------------------------//
+  {
+    int eof = getDataEOF ();
+    if (eof <= 0 || eof >= buffer.length)
+      return buffer;
+
+    byte[] exactBuffer = new byte[eof];
+    System.arraycopy (buffer, 0, exactBuffer, 0, eof);
+    return exactBuffer;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public String getUniqueName ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return uniqueName;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public List<DiskAddress> getSectors ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return blocks;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public FormattedDisk getFormattedDisk ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return parent;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public boolean contains (DiskAddress da)
+  // ---------------------------------------------------------------------------------//
+  {
+    for (DiskAddress block : blocks)
+      if (block.matches (da))
+        return true;
+
+    return false;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  boolean hasResource ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return false;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public String toString ()
+  // ---------------------------------------------------------------------------------//
+  {
+    String forked = hasResource () ? "+" : " ";
+    return String.format ("%s%s %,7d  %s", fileTypes[getFileType () & 0xFF], forked,
+        getDataEOF (), name);
+  }
+}
@@ -6,10 +6,7 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.bytezone.diskbrowser.prodos.write.DiskFullException;
-import com.bytezone.diskbrowser.prodos.write.FileAlreadyExistsException;
-import com.bytezone.diskbrowser.prodos.write.ProdosDisk;
-import com.bytezone.diskbrowser.prodos.write.VolumeCatalogFullException;
+import com.bytezone.diskbrowser.utilities.Utility;
 
 // -----------------------------------------------------------------------------------//
 public class Binary2
@@ -21,6 +18,7 @@ public class Binary2
 
   Binary2Header binary2Header;
   byte[] buffer;
+  int length;                               // of the file, the buffer is padded
   List<Binary2Header> headers = new ArrayList<> ();
   int totalBlocks;
   String fileName;
@@ -30,7 +28,8 @@ public class Binary2
   // ---------------------------------------------------------------------------------//
   {
     fileName = path.toFile ().getName ();
-    buffer = Files.readAllBytes (path);
+    length = (int) Files.size (path);
+    buffer = Utility.readFile (path, 4096);   // whole tracks, as AppleDisk uses them
     read (buffer);
   }
 
@@ -47,30 +46,23 @@ public class Binary2
       headers.add (binary2Header);
 
       totalBlocks += binary2Header.totalBlocks;
-      ptr += ((binary2Header.eof - 1) / 128 + 1) * 128 + 128;
-    } while (binary2Header.filesToFollow > 0);
+      ptr += (binary2Header.eof + 127) / 128 * 128 + 128;   // data is padded to 128
+    } while (binary2Header.filesToFollow > 0 && ptr + 128 <= length);
 
   }
 
   // ---------------------------------------------------------------------------------//
-  public byte[] getDiskBuffer () throws DiskFullException, VolumeCatalogFullException,
-      FileAlreadyExistsException, IOException
+  public byte[] getBuffer ()
   // ---------------------------------------------------------------------------------//
   {
-    ProdosDisk disk = new ProdosDisk (800, "DiskBrowser");
-
-    for (Binary2Header header : headers)
-    {
-      byte[] dataBuffer = new byte[header.eof];       // this sux
-      System.arraycopy (buffer, header.ptr + 128, dataBuffer, 0, dataBuffer.length);
-
-      disk.addFile (header.fileName, header.fileType, header.auxType, header.created,
-          header.modified, dataBuffer, header.eof);
-
-    }
-    disk.close ();
+    return buffer;
+  }
 
-    return disk.getBuffer ();
+  // ---------------------------------------------------------------------------------//
+  List<Binary2Header> getHeaders ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return headers;
   }
 
   // ---------------------------------------------------------------------------------//
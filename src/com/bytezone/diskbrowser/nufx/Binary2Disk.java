@@ -0,0 +1,45 @@
+package com.bytezone.diskbrowser.nufx;
+
+import com.bytezone.diskbrowser.applefile.AppleFileSource;
+import com.bytezone.diskbrowser.disk.DefaultAppleFileSource;
+import com.bytezone.diskbrowser.disk.Disk;
+
+// Shows the files in a Binary II archive without building a ProDOS volume. Each file
+// is stored uncompressed after its 128-byte header.
+// -----------------------------------------------------------------------------------//
+public class Binary2Disk extends ArchiveDisk
+// -----------------------------------------------------------------------------------//
+{
+  private static final int DIRECTORY = 0x0F;
+
+  private final Binary2 binary2;
+
+  // ---------------------------------------------------------------------------------//
+  public Binary2Disk (Disk disk, Binary2 binary2)
+  // ---------------------------------------------------------------------------------//
+  {
+    super (disk);
+
+    this.binary2 = binary2;
+
+    for (Binary2Header header : binary2.getHeaders ())
+    {
+      markBlocks (header.ptr, header.ptr + 128, headerSector);
+
+      if ((header.fileType & 0xFF) == DIRECTORY)
+        getFolder (header.fileName);
+      else
+        addFile (new Binary2FileEntry (this, header, binary2.length));
+    }
+
+    showCatalog ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public AppleFileSource getCatalog ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return new DefaultAppleFileSource ("Binary II Archive", binary2.toString (), this);
+  }
+}
@@ -0,0 +1,66 @@
+package com.bytezone.diskbrowser.nufx;
+
+// -----------------------------------------------------------------------------------//
+class Binary2FileEntry extends ArchiveFileEntry
+// -----------------------------------------------------------------------------------//
+{
+  private final Binary2Header header;
+  private final int dataOffset;
+  private final int dataLength;
+
+  // ---------------------------------------------------------------------------------//
+  Binary2FileEntry (Binary2Disk parent, Binary2Header header, int archiveLength)
+  // ---------------------------------------------------------------------------------//
+  {
+    super (parent, header.fileName);
+
+    this.header = header;
+
+    // the archive may have been truncated
+    dataOffset = header.ptr + 128;
+    dataLength = Math.max (0, Math.min (header.eof, archiveLength - dataOffset));
+    addBlocks (dataOffset, dataOffset + dataLength, parent.dataSector);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  int getFileType ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return header.fileType & 0xFF;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  int getAuxType ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return header.auxType;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  int getDataEOF ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return dataLength;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  byte[] getData ()
+  // ---------------------------------------------------------------------------------//
+  {
+    byte[] dataBuffer = new byte[dataLength];
+    System.arraycopy (header.buffer, dataOffset, dataBuffer, 0, dataLength);
+    return dataBuffer;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  byte[] getResourceData ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return null;
+  }
+}
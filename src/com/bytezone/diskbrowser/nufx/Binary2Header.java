@@ -89,8 +89,9 @@ public class Binary2Header
   public String getLine ()
   // ---------------------------------------------------------------------------------//
   {
-    return String.format (" %-33s %3s  $%04X  %s  unc   %7d", fileName,
-        fileTypes[fileType], auxType, modified.format (formatter), eof);
+    String date = modified == null ? "" : modified.format (formatter);
+    return String.format (" %-33s %3s  $%04X  %-15s  unc   %7d", fileName,
+        fileTypes[fileType & 0xFF], auxType, date, eof);
   }
 
   // ---------------------------------------------------------------------------------//
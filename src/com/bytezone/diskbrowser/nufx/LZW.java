@@ -4,15 +4,22 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 
-import com.bytezone.diskbrowser.utilities.Utility;
+import com.bytezone.diskbrowser.utilities.Crc16;
 
 // -----------------------------------------------------------------------------------//
 abstract class LZW
 // -----------------------------------------------------------------------------------//
 {
-  static final String[] st = new String[0x1000];
+  static final int TABLE_SIZE = 0x1000;
   static final int TRACK_LENGTH = 0x1000;
 
+  // each table entry is its prefix entry plus one byte, -1 marks the start of a string
+  private final int[] prefix = new int[TABLE_SIZE];
+  private final byte[] suffix = new byte[TABLE_SIZE];
+  private final byte[] stack = new byte[TABLE_SIZE + 1];   // strings are walked backwards
+  int nextEntry;
+  private int prevCode;
+
   final List<byte[]> chunks = new ArrayList<> ();
   int volume;
   byte runLengthChar;
@@ -21,8 +28,8 @@ abstract class LZW
   int crcBase;
   int v3eof;                     // LZW/2 calculates the crc without padding
 
-  private int byteBuffer;        // one character buffer
-  private int bitsLeft;          // unused bits left in buffer
+  private long bitBuffer;        // unused bits, least significant first
+  private int bitsLeft;          // number of unused bits in bitBuffer
 
   private int ptr;
   private int startPtr;
@@ -30,19 +37,17 @@ abstract class LZW
 
   boolean unpacked;
 
-  // ---------------------------------------------------------------------------------//
-  static
-  // ---------------------------------------------------------------------------------//
-  {
-    for (int i = 0; i < 256; i++)
-      st[i] = "" + (char) i;
-  }
-
   // ---------------------------------------------------------------------------------//
   LZW (byte[] buffer)
   // ---------------------------------------------------------------------------------//
   {
     this.buffer = Objects.requireNonNull (buffer);
+
+    for (int i = 0; i < 256; i++)
+    {
+      prefix[i] = -1;
+      suffix[i] = (byte) i;
+    }
   }
 
   // ---------------------------------------------------------------------------------//
@@ -54,6 +59,7 @@ abstract class LZW
   // ---------------------------------------------------------------------------------//
   {
     startPtr = this.ptr = ptr;
+    bitBuffer = 0;
     bitsLeft = 0;
   }
 
@@ -71,28 +77,66 @@ abstract class LZW
     if (width < 8 || width > 12)
       throw new RuntimeException ("Illegal value of r = " + width);
 
-    int x = 0;
-    for (int i = 0, weight = 1; i < width; i++, weight <<= 1)
-      if (readBoolean ())
-        x |= weight;
+    // only fetch the bytes that are needed so that bytesRead () stays accurate
+    while (bitsLeft < width)
+    {
+      bitBuffer |= (long) (buffer[ptr++] & 0xFF) << bitsLeft;
+      bitsLeft += 8;
+    }
+
+    int x = (int) bitBuffer & ((1 << width) - 1);
+    bitBuffer >>>= width;
+    bitsLeft -= width;
 
     return x;
   }
 
   // ---------------------------------------------------------------------------------//
-  private boolean readBoolean ()
+  void resetTable ()
+  // ---------------------------------------------------------------------------------//
+  {
+    nextEntry = 0x100;
+    prevCode = -1;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  int addString (int codeWord, byte[] outBuffer, int outPtr)
   // ---------------------------------------------------------------------------------//
   {
-    if (bitsLeft == 0)
+    int top;
+
+    if (codeWord == nextEntry)                    // previous string plus its first byte
+    {
+      top = walk (prevCode, stack.length - 1);
+      stack[stack.length - 1] = stack[top];
+    }
+    else
+      top = walk (codeWord, stack.length);
+
+    if (nextEntry < TABLE_SIZE)
     {
-      byteBuffer = buffer[ptr++] & 0xFF;
-      bitsLeft = 8;
+      prefix[nextEntry] = prevCode;
+      suffix[nextEntry++] = stack[top];
     }
 
-    bitsLeft--;
-    boolean bit = ((byteBuffer << bitsLeft) & 0x80) != 0;
+    int length = stack.length - top;
+    System.arraycopy (stack, top, outBuffer, outPtr, length);
+    prevCode = codeWord;
+
+    return outPtr + length;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private int walk (int code, int top)
+  // ---------------------------------------------------------------------------------//
+  {
+    do
+    {
+      stack[--top] = suffix[code];
+      code = prefix[code];
+    } while (code >= 0);
 
-    return bit;
+    return top;
   }
 
   // ---------------------------------------------------------------------------------//
@@ -144,14 +188,21 @@ abstract class LZW
     }
 
     byte[] buffer = new byte[getSize ()];
-    int trackNumber = 0;
+    int length = v3eof != 0 ? v3eof : buffer.length;
 
-    for (byte[] track : chunks)
-      System.arraycopy (track, 0, buffer, trackNumber++ * TRACK_LENGTH, TRACK_LENGTH);
+    Crc16 checksum = new Crc16 (crcBase);
+    int ptr = 0;
 
-    int length = v3eof != 0 ? v3eof : buffer.length;
+    // checksum each track as it is copied rather than rescanning the whole buffer
+    for (byte[] track : chunks)
+    {
+      System.arraycopy (track, 0, buffer, ptr, TRACK_LENGTH);
+      if (ptr < length)
+        checksum.update (track, 0, Math.min (TRACK_LENGTH, length - ptr));
+      ptr += TRACK_LENGTH;
+    }
 
-    int calculatedCrc = Utility.getCRC (buffer, length, crcBase);
+    int calculatedCrc = (int) checksum.getValue ();
     if (crc != calculatedCrc)
     {
       System.out.printf ("%n*** Thread CRC failed ***  %04X  %04X%n", crc, calculatedCrc);
@@ -67,22 +67,10 @@ class LZW1 extends LZW
     byte[] lzwBuffer = new byte[rleLength];       // must fill this array from input
     int ptr = 0;
 
-    int nextEntry = 0x100;                        // always start with a fresh table
-    String prev = "";
+    resetTable ();                                // always start with a fresh table
 
     while (ptr < rleLength)
-    {
-      int codeWord = readInt (width (nextEntry + 1));
-      String s = (nextEntry == codeWord) ? prev + prev.charAt (0) : st[codeWord];
-
-      if (nextEntry < st.length)
-        st[nextEntry++] = prev + s.charAt (0);
-
-      for (int i = 0; i < s.length (); i++)
-        lzwBuffer[ptr++] = (byte) s.charAt (i);
-
-      prev = s;
-    }
+      ptr = addString (readInt (width (nextEntry + 1)), lzwBuffer, ptr);
 
     return lzwBuffer;
   }
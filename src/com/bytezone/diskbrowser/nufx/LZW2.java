@@ -6,8 +6,6 @@ import com.bytezone.diskbrowser.utilities.Utility;
 class LZW2 extends LZW
 // -----------------------------------------------------------------------------------//
 {
-  private int nextEntry = 0x100;
-  private String prev = "";
   private int codeWord;
 
   // ---------------------------------------------------------------------------------//
@@ -16,6 +14,7 @@ class LZW2 extends LZW
   {
     super (buffer);
 
+    resetTable ();
     this.crc = crc;
     this.v3eof = eof;
   }
@@ -62,7 +61,7 @@ class LZW2 extends LZW
       }
       else
       {
-        nextEntry = 0x100;
+        resetTable ();
         if (rleLength == 0)
           rleLength = TRACK_LENGTH;
 
@@ -93,20 +92,11 @@ class LZW2 extends LZW
 
       if (codeWord == 0x100)      // clear the table
       {
-        nextEntry = 0x100;
+        resetTable ();
         codeWord = readInt (9);
-        prev = "";
       }
 
-      String s = (nextEntry == codeWord) ? prev + prev.charAt (0) : st[codeWord];
-
-      if (nextEntry < st.length)
-        st[nextEntry++] = prev + s.charAt (0);
-
-      for (int i = 0; i < s.length (); i++)
-        lzwBuffer[ptr++] = (byte) s.charAt (i);
-
-      prev = s;
+      ptr = addString (codeWord, lzwBuffer, ptr);
     }
 
     return lzwBuffer;
@@ -1,5 +1,6 @@
 package com.bytezone.diskbrowser.nufx;
 
+import com.bytezone.diskbrowser.utilities.Crc16;
 import com.bytezone.diskbrowser.utilities.DateTime;
 import com.bytezone.diskbrowser.utilities.FileFormatException;
 import com.bytezone.diskbrowser.utilities.HexFormatter;
@@ -78,9 +79,7 @@ public class MasterHeader
     //    if (reserved != 0)
     //      System.out.printf ("Reserved for zero, actual: %02X%n", reserved);
 
-    byte[] crcBuffer = new byte[40];
-    System.arraycopy (buffer, ptr + 8, crcBuffer, 0, crcBuffer.length);
-    if (crc != Utility.getCRC (crcBuffer, crcBuffer.length, 0))
+    if (crc != Crc16.crc16 (buffer, ptr + 8, 40, 0))
     {
       System.out.println ("***** Master CRC mismatch *****");
       throw new FileFormatException ("Master CRC failed");
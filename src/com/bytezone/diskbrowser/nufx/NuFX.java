@@ -1,20 +1,11 @@
 package com.bytezone.diskbrowser.nufx;
 
-import static com.bytezone.diskbrowser.prodos.ProdosConstants.BLOCK_SIZE;
-
 import java.io.IOException;
-import java.nio.file.Files;
 import java.nio.file.Path;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
-
-import com.bytezone.diskbrowser.prodos.write.DiskFullException;
-import com.bytezone.diskbrowser.prodos.write.FileAlreadyExistsException;
-import com.bytezone.diskbrowser.prodos.write.FileEntry;
-import com.bytezone.diskbrowser.prodos.write.ProdosDisk;
-import com.bytezone.diskbrowser.prodos.write.VolumeCatalogFullException;
 import com.bytezone.diskbrowser.utilities.FileFormatException;
+import com.bytezone.diskbrowser.utilities.Utility;
 
 // -----------------------------------------------------------------------------------//
 public class NuFX
@@ -30,16 +21,15 @@ public class NuFX
   private final List<Record> records = new ArrayList<> ();
   private int totalFiles;
   private int totalDisks;
-  private int totalBlocks;
 
-  private VolumeName volumeName;
+  private final String volumeName;
 
   // ---------------------------------------------------------------------------------//
   public NuFX (Path path) throws FileFormatException, IOException
   // ---------------------------------------------------------------------------------//
   {
-    buffer = Files.readAllBytes (path);
-    volumeName = new VolumeName (path.getFileName ().toString ());
+    buffer = Utility.readFile (path, 4096);   // whole tracks, as AppleDisk uses them
+    volumeName = getVolumeName (path.getFileName ().toString ());
     read (buffer);
   }
 
@@ -48,7 +38,7 @@ public class NuFX
   // ---------------------------------------------------------------------------------//
   {
     this.buffer = buffer;
-    this.volumeName = new VolumeName (fileName);
+    this.volumeName = getVolumeName (fileName);
 
     read (buffer);
   }
@@ -87,10 +77,7 @@ public class NuFX
       }
 
       if (record.hasFile ())
-      {
         ++totalFiles;
-        volumeName.storePath (record.getFileName ());
-      }
 
       if (record.hasDisk ())
         ++totalDisks;
@@ -98,162 +85,44 @@ public class NuFX
   }
 
   // ---------------------------------------------------------------------------------//
-  private void calculateTotalBlocks ()        // not exact
+  public byte[] getDiskBuffer ()
   // ---------------------------------------------------------------------------------//
   {
-    totalBlocks = 0;
-
+    // an archive of files is shown by NuFXDisk instead
     for (Record record : records)
-      if (record.hasFile () || record.hasResource ())
-      {
-        // note: total blocks does not include subdirectory blocks
-        int blocks = (record.getUncompressedSize () - 1) / BLOCK_SIZE + 1;
-        if (blocks == 1)                      // seedling
-          totalBlocks += blocks;
-        else if (blocks <= 0x100)               // sapling
-          totalBlocks += blocks + 1;
-        else                                  // tree
-          totalBlocks += blocks + (blocks / 0x100) + 2;
-      }
+      for (Thread thread : record.threads)
+        if (thread.hasDisk ())
+          return thread.getData ();
+
+    return null;
   }
 
   // ---------------------------------------------------------------------------------//
-  public byte[] getDiskBuffer ()
+  public byte[] getBuffer ()
   // ---------------------------------------------------------------------------------//
   {
-    if (totalDisks > 0)
-    {
-      if (debug)
-        System.out.println ("Reading disk");
-
-      for (Record record : records)
-        for (Thread thread : record.threads)
-          if (thread.hasDisk ())
-            return thread.getData ();
-    }
-
-    if (totalFiles == 0)
-      return null;
-
-    if (debug)
-      System.out.println ("Reading files");
-
-    calculateTotalBlocks ();
-    int[] diskSizes = { 280, 800, 1600, 3200, 6400, 65536 };
-    for (int diskSize : diskSizes)      // in case we choose a size that is too small
-    {
-      if (diskSize < (totalBlocks + 10))
-        continue;
-
-      try
-      {
-        ProdosDisk disk = new ProdosDisk (diskSize, volumeName.getVolumeName ());
-        int count = 0;
-
-        for (Record record : records)
-        {
-          if (record.hasFile ())
-          {
-            String fileName = volumeName.convert (record.getFileName ());
-
-            if (!record.isValidFileSystem ())
-            {
-              System.out.printf ("File %s is file system %s%n", fileName,
-                  record.getFileSystemName ());
-              continue;
-            }
-
-            //              int fileSize = record.getFileSize ();
-            byte fileType = (byte) record.getFileType ();
-            int eof = record.getUncompressedSize ();
-            int auxType = record.getAuxType ();
-            LocalDateTime created = record.getCreated ();
-            LocalDateTime modified = record.getModified ();
-            byte[] buffer;
-            try
-            {
-              buffer = record.getData ();
-            }
-            catch (Exception e)
-            {
-              System.out.println (e.getMessage ());
-              System.out.printf ("Failed to unpack: %s%n", fileName);
-              continue;
-            }
-
-            if (debug)
-              System.out.printf ("%3d %-35s %02X %,7d %,7d %,7d  %s  %s%n", ++count,
-                  fileName, fileType, auxType, eof, buffer.length, created, modified);
-
-            FileEntry fileEntry;
-            try
-            {
-              fileEntry = disk.addFile (fileName, fileType, auxType, created, modified,
-                  buffer, eof);
-            }
-            catch (FileAlreadyExistsException e)
-            {
-              System.out.printf ("File %s not added%n", fileName);
-              break;
-            }
-
-            if (record.hasResource ())
-            {
-              try
-              {
-                buffer = record.getResourceData ();
-                disk.addResourceFork (fileEntry, buffer, buffer.length);
-              }
-              catch (Exception e)
-              {
-                System.out.println (e.getMessage ());
-                System.out.printf ("Failed to unpack resource fork: %s%n", fileName);
-              }
-            }
-          }
-        }
-
-        disk.close ();
-
-        return disk.getBuffer ();
-      }
-      catch (DiskFullException e)
-      {
-        System.out.println ("disk full: " + diskSize);    // go round again
-      }
-      catch (VolumeCatalogFullException e)
-      {
-        e.printStackTrace ();
-        return null;
-      }
-      catch (IOException e)
-      {
-        e.printStackTrace ();
-        return null;
-      }
-    }
-    return null;
+    return buffer;
   }
 
   // ---------------------------------------------------------------------------------//
-  public int getTotalFiles ()
+  List<Record> getRecords ()
   // ---------------------------------------------------------------------------------//
   {
-    return totalFiles;
+    return records;
   }
 
   // ---------------------------------------------------------------------------------//
-  public int getTotalDisks ()
+  public int getTotalFiles ()
   // ---------------------------------------------------------------------------------//
   {
-    return totalDisks;
+    return totalFiles;
   }
 
   // ---------------------------------------------------------------------------------//
-  public int getTotalBlocks ()
+  public int getTotalDisks ()
   // ---------------------------------------------------------------------------------//
   {
-    return totalBlocks;
+    return totalDisks;
   }
 
   // ---------------------------------------------------------------------------------//
@@ -264,7 +133,7 @@ public class NuFX
     StringBuilder text = new StringBuilder ();
 
     text.append (String.format (" %-15.15s Created:%-17s Mod:%-17s   Recs:%5d%n%n",
-        volumeName.volumeName, masterHeader.getCreated2 (), masterHeader.getModified2 (),
+        volumeName, masterHeader.getCreated2 (), masterHeader.getModified2 (),
         masterHeader.getTotalRecords ()));
 
     text.append (" Name                        Type Auxtyp Archived"
@@ -294,119 +163,15 @@ public class NuFX
   }
 
   // ---------------------------------------------------------------------------------//
-  class VolumeName
+  private static String getVolumeName (String name)
   // ---------------------------------------------------------------------------------//
   {
-    private List<String> paths = new ArrayList<> ();
-    private boolean rootContainsFiles;
-
-    private String volumeName = "DiskBrowser";
-    private int nameOffset = 0;
-
-    // -------------------------------------------------------------------------------//
-    VolumeName (String name)
-    // -------------------------------------------------------------------------------//
-    {
-      int pos = name.lastIndexOf ('.');
-      if (pos > 0)
-        name = name.substring (0, pos);
-      if (name.length () > 15)
-        name = name.substring (0, 15);
-      name = name.replace (' ', '.');
-
-      this.volumeName = name;
-    }
-
-    // -------------------------------------------------------------------------------//
-    private void storePath (String fileName)
-    // -------------------------------------------------------------------------------//
-    {
-      int pos = fileName.lastIndexOf ('/');
-      if (pos < 0)
-        rootContainsFiles = true;
-      else
-      {
-        String path = fileName.substring (0, pos);
-        for (int i = 0; i < paths.size (); i++)
-        {
-          String cmp = paths.get (i);
-          if (cmp.startsWith (path))        // longer path already there
-            return;
-          if (path.startsWith (cmp))
-          {
-            paths.set (i, path);            // replace shorter path with longer path
-            return;
-          }
-        }
-        paths.add (path);
-      }
-    }
+    int pos = name.lastIndexOf ('.');
+    if (pos > 0)
+      name = name.substring (0, pos);
+    if (name.length () > 15)
+      name = name.substring (0, 15);
 
-    // -------------------------------------------------------------------------------//
-    private String getVolumeName ()
-    // -------------------------------------------------------------------------------//
-    {
-      if (rootContainsFiles)
-        return volumeName;
-
-      if (paths.size () > 0)
-      {
-        int pos = paths.get (0).indexOf ('/');
-        if (pos > 0)
-        {
-          String firstPath = paths.get (0).substring (0, pos + 1);
-
-          boolean allSame = true;
-          for (String pathName : paths)
-            if (!pathName.startsWith (firstPath))
-            {
-              allSame = false;
-              break;
-            }
-
-          if (allSame)
-          {
-            volumeName = firstPath.substring (0, pos);
-            nameOffset = volumeName.length () + 1;      // skip volume name in all paths
-          }
-        }
-      }
-
-      if (paths.size () == 1)                         // exactly one directory path
-      {
-        String onlyPath = paths.get (0);
-        int pos = onlyPath.indexOf ('/');
-        if (pos == -1)                                // no separators
-          volumeName = onlyPath;
-        else                                          // use first component
-          volumeName = onlyPath.substring (0, pos);
-        nameOffset = volumeName.length () + 1;        // skip volume name in all paths
-      }
-
-      return volumeName;
-    }
-
-    // -------------------------------------------------------------------------------//
-    String convert (String fileName)
-    // -------------------------------------------------------------------------------//
-    {
-      if (nameOffset > 0)         // remove volume name from path
-        return fileName.substring (nameOffset);
-
-      return fileName;
-    }
-
-    // -------------------------------------------------------------------------------//
-    void info ()
-    // -------------------------------------------------------------------------------//
-    {
-      if (rootContainsFiles)
-        System.out.println ("Root contains files");
-      System.out.println ("Unique paths:");
-      if (paths.size () == 0)
-        System.out.println ("<none>");
-      for (String pathName : paths)
-        System.out.println (pathName);
-    }
+    return name.replace (' ', '.');
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,43 @@
+package com.bytezone.diskbrowser.nufx;
+
+import com.bytezone.diskbrowser.applefile.AppleFileSource;
+import com.bytezone.diskbrowser.disk.DefaultAppleFileSource;
+import com.bytezone.diskbrowser.disk.Disk;
+
+// Shows the records of a NuFX archive without building a ProDOS volume. The disk is
+// the archive itself, and each file is only decompressed when it is selected.
+// -----------------------------------------------------------------------------------//
+public class NuFXDisk extends ArchiveDisk
+// -----------------------------------------------------------------------------------//
+{
+  private final NuFX nuFX;
+
+  // ---------------------------------------------------------------------------------//
+  public NuFXDisk (Disk disk, NuFX nuFX)
+  // ---------------------------------------------------------------------------------//
+  {
+    super (disk);
+
+    this.nuFX = nuFX;
+
+    for (Record record : nuFX.getRecords ())
+    {
+      int start = record.getOffset ();
+      int end = record.threads.size () > 0 ? record.threads.get (0).dataOffset : start;
+      markBlocks (start, end, headerSector);
+
+      if (record.hasFile ())
+        addFile (new NuFXFileEntry (this, record));
+    }
+
+    showCatalog ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public AppleFileSource getCatalog ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return new DefaultAppleFileSource ("NuFX Archive", nuFX.toString (), this);
+  }
+}
@@ -0,0 +1,74 @@
+package com.bytezone.diskbrowser.nufx;
+
+// -----------------------------------------------------------------------------------//
+class NuFXFileEntry extends ArchiveFileEntry
+// -----------------------------------------------------------------------------------//
+{
+  private final Record record;
+
+  // ---------------------------------------------------------------------------------//
+  NuFXFileEntry (NuFXDisk parent, Record record)
+  // ---------------------------------------------------------------------------------//
+  {
+    super (parent, record.getFileName ());
+
+    this.record = record;
+
+    // the blocks holding the compressed forks
+    for (Thread thread : record.threads)
+      if (thread.hasFile () || thread.hasResource ())
+      {
+        int start = thread.dataOffset;
+        addBlocks (start, start + thread.getCompressedEOF (),
+            thread.hasFile () ? parent.dataSector : parent.resourceSector);
+      }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  int getFileType ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return record.getFileType ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  int getAuxType ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return record.getAuxType ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  int getDataEOF ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return record.getDataEOF ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  byte[] getData ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return record.getData ();                     // decompressed on first use
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  byte[] getResourceData ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return record.hasResource () ? record.getResourceData () : null;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  boolean hasResource ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return record.hasResource ();
+  }
+}
@@ -6,6 +6,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
+import com.bytezone.diskbrowser.utilities.Crc16;
 import com.bytezone.diskbrowser.utilities.DateTime;
 import com.bytezone.diskbrowser.utilities.FileFormatException;
 import com.bytezone.diskbrowser.utilities.Utility;
@@ -42,6 +43,7 @@ class Record
   private final int optionSize;
   private final int fileNameLength;
   private final String fileName;
+  private final int offset;
 
   final List<Thread> threads = new ArrayList<> ();
 
@@ -53,6 +55,8 @@ class Record
     if (!Utility.isMagic (buffer, dataPtr, NuFX))
       throw new FileFormatException ("NuFX not found");
 
+    offset = dataPtr;
+
     crc = Utility.getShort (buffer, dataPtr + 4);
     attributes = Utility.getShort (buffer, dataPtr + 6);
     version = Utility.getShort (buffer, dataPtr + 8);
@@ -70,10 +74,8 @@ class Record
     fileNameLength = Utility.getShort (buffer, dataPtr + attributes - 2);
 
     int len = attributes + fileNameLength - 6;
-    byte[] crcBuffer = new byte[len + totThreads * 16];
-    System.arraycopy (buffer, dataPtr + 6, crcBuffer, 0, crcBuffer.length);
 
-    if (crc != Utility.getCRC (crcBuffer, crcBuffer.length, 0))
+    if (crc != Crc16.crc16 (buffer, dataPtr + 6, len + totThreads * 16, 0))
     {
       System.out.println ("***** Record CRC mismatch *****");
       throw new FileFormatException ("Record CRC failed");
@@ -98,6 +100,13 @@ class Record
     return fileSystemID <= 4 || fileSystemID == 8;
   }
 
+  // ---------------------------------------------------------------------------------//
+  int getOffset ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return offset;
+  }
+
   // ---------------------------------------------------------------------------------//
   int getAttributes ()
   // ---------------------------------------------------------------------------------//
@@ -243,6 +252,18 @@ class Record
     return 0;
   }
 
+  // size of the data fork from the thread header, does not unpack the thread
+  // ---------------------------------------------------------------------------------//
+  int getDataEOF ()
+  // ---------------------------------------------------------------------------------//
+  {
+    for (Thread thread : threads)
+      if (thread.hasFile ())
+        return thread.getUncompressedEOF ();
+
+    return 0;
+  }
+
   // ---------------------------------------------------------------------------------//
   int getThreadFormat ()
   // ---------------------------------------------------------------------------------//
@@ -27,8 +27,10 @@ class Thread
   final int threadCrc;
   final int uncompressedEOF;
   final int compressedEOF;
+  final int dataOffset;                 // position of the data within the archive
 
   private final byte[] data;
+  private byte[] uncompressedData;
   private String fileName;
   private String message;
   private LZW lzw;
@@ -49,6 +51,7 @@ class Thread
     threadCrc = Utility.getShort (buffer, offset + 6);
     uncompressedEOF = Utility.getLong (buffer, offset + 8);
     compressedEOF = Utility.getLong (buffer, offset + 12);
+    this.dataOffset = dataOffset;
 
     data = new byte[compressedEOF];
     System.arraycopy (buffer, dataOffset, data, 0, data.length);
@@ -149,7 +152,10 @@ class Thread
     if (threadFormat == 0)       // uncompressed
       return data;
 
-    return lzw.getData ();
+    if (uncompressedData == null)
+      uncompressedData = lzw.getData ();
+
+    return uncompressedData;
   }
 
   // ---------------------------------------------------------------------------------//
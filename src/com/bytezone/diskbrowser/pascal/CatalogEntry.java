@@ -27,16 +27,16 @@ abstract class CatalogEntry implements AppleFileSource
   protected final List<DiskAddress> blocks = new ArrayList<> ();
 
   // ---------------------------------------------------------------------------------//
-  CatalogEntry (PascalDisk parent, byte[] buffer)
+  CatalogEntry (PascalDisk parent, byte[] buffer, int ptr)
   // ---------------------------------------------------------------------------------//
   {
     this.parent = parent;
 
-    firstBlock = Utility.getShort (buffer, 0);
-    lastBlock = Utility.getShort (buffer, 2);
-    fileType = buffer[4] & 0xFF;
-    name = HexFormatter.getPascalString (buffer, 6);
-    bytesUsedInLastBlock = Utility.getShort (buffer, 16);
+    firstBlock = Utility.getShort (buffer, ptr);
+    lastBlock = Utility.getShort (buffer, ptr + 2);
+    fileType = buffer[ptr + 4] & 0xFF;
+    name = HexFormatter.getPascalString (buffer, ptr + 6);
+    bytesUsedInLastBlock = Utility.getShort (buffer, ptr + 16);
 
     Disk disk = parent.getDisk ();
     int max = Math.min (lastBlock, disk.getTotalBlocks ());
@@ -20,13 +20,13 @@ public class FileEntry extends CatalogEntry
   private DefaultMutableTreeNode node;
 
   // ---------------------------------------------------------------------------------//
-  public FileEntry (PascalDisk parent, byte[] buffer)
+  public FileEntry (PascalDisk parent, byte[] buffer, int ptr)
   // ---------------------------------------------------------------------------------//
   {
-    super (parent, buffer);
+    super (parent, buffer, ptr);
 
-    bytesUsedInLastBlock = Utility.getShort (buffer, 22);
-    date = Utility.getPascalDate (buffer, 24);
+    bytesUsedInLastBlock = Utility.getShort (buffer, ptr + 22);
+    date = Utility.getPascalDate (buffer, ptr + 24);
 
     int max = Math.min (lastBlock, parent.getDisk ().getTotalBlocks ());
     for (int i = firstBlock; i < max; i++)
@@ -59,6 +59,17 @@ public class FileEntry extends CatalogEntry
   @Override
   public AbstractFile getDataSource ()
   // ---------------------------------------------------------------------------------//
+  {
+    if (file != null)       // previously built
+      return file;
+
+    return getDataSource (parent.getDisk ().readBlocks (blocks));
+  }
+
+  // for callers that have already read every block of the file
+  // ---------------------------------------------------------------------------------//
+  public AbstractFile getDataSource (byte[] blocksBuffer)
+  // ---------------------------------------------------------------------------------//
   {
     if (file != null)       // previously built
       return file;
@@ -71,7 +82,7 @@ public class FileEntry extends CatalogEntry
       return file;
     }
 
-    byte[] buffer = getExactBuffer ();
+    byte[] buffer = getExactBuffer (blocksBuffer);
 
     switch (fileType)
     {
@@ -125,10 +136,9 @@ public class FileEntry extends CatalogEntry
   }
 
   // ---------------------------------------------------------------------------------//
-  private byte[] getExactBuffer ()
+  private byte[] getExactBuffer (byte[] buffer)
   // ---------------------------------------------------------------------------------//
   {
-    byte[] buffer = parent.getDisk ().readBlocks (blocks);
     byte[] exactBuffer;
 
     if (buffer.length > 0 && bytesUsedInLastBlock < 512)
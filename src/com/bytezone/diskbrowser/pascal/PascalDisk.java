@@ -79,41 +79,32 @@ public class PascalDisk extends AbstractFormattedDisk
     for (int i = 2; i < disk.getTotalBlocks (); i++)
       freeBlocks.set (i, true);
 
+    // the volume entry gives the size of the directory
     byte[] buffer = disk.readBlock (2);
-    byte[] data = new byte[CATALOG_ENTRY_SIZE];
-    System.arraycopy (buffer, 0, data, 0, CATALOG_ENTRY_SIZE);
-    volumeEntry = new VolumeEntry (this, data);
-
-    DefaultMutableTreeNode root = getCatalogTreeRoot ();
-    DefaultMutableTreeNode volumeNode = new DefaultMutableTreeNode (volumeEntry);
-    root.add (volumeNode);
+    int max = Math.min (Utility.getShort (buffer, 2), disk.getTotalBlocks ());
 
     List<DiskAddress> sectors = new ArrayList<> ();
-    int max = Math.min (volumeEntry.lastBlock, disk.getTotalBlocks ());
     for (int i = 2; i < max; i++)
     {
-      DiskAddress da = disk.getDiskAddress (i);
-      if (!disk.isBlockEmpty (da))
+      if (!disk.isBlockEmpty (i))
         sectorTypes[i] = catalogSector;
-      sectors.add (da);
+      sectors.add (disk.getDiskAddress (i));
       freeBlocks.set (i, false);
     }
 
-    diskCatalogSector =
-        new PascalCatalogSector (disk, disk.readBlocks (sectors), sectors);
+    // read the directory once, every entry is parsed in place
+    if (sectors.size () > 1)
+      buffer = disk.readBlocks (sectors);
+    diskCatalogSector = new PascalCatalogSector (disk, buffer, sectors);
+    volumeEntry = new VolumeEntry (this, buffer, 0);
 
-    // read the catalog
-    List<DiskAddress> addresses = new ArrayList<> ();
-    for (int i = 2; i < max; i++)
-      addresses.add (disk.getDiskAddress (i));
-    buffer = disk.readBlocks (addresses);
+    DefaultMutableTreeNode root = getCatalogTreeRoot ();
+    DefaultMutableTreeNode volumeNode = new DefaultMutableTreeNode (volumeEntry);
+    root.add (volumeNode);
 
     for (int i = 1; i <= volumeEntry.totalFiles; i++)
     {
-      int ptr = i * CATALOG_ENTRY_SIZE;
-      data = new byte[CATALOG_ENTRY_SIZE];
-      System.arraycopy (buffer, ptr, data, 0, CATALOG_ENTRY_SIZE);
-      FileEntry fileEntry = new FileEntry (this, data);
+      FileEntry fileEntry = new FileEntry (this, buffer, i * CATALOG_ENTRY_SIZE);
 
       fileEntries.add (fileEntry);
       DefaultMutableTreeNode node = new DefaultMutableTreeNode (fileEntry);
@@ -12,14 +12,14 @@ class VolumeEntry extends CatalogEntry
   final int totalBlocks;
 
   // ---------------------------------------------------------------------------------//
-  VolumeEntry (PascalDisk parent, byte[] buffer)
+  VolumeEntry (PascalDisk parent, byte[] buffer, int ptr)
   // ---------------------------------------------------------------------------------//
   {
-    super (parent, buffer);
+    super (parent, buffer, ptr);
 
-    totalBlocks = Utility.getShort (buffer, 14);         // 280
-    totalFiles = Utility.getShort (buffer, 16);
-    date = Utility.getPascalDate (buffer, 20);                       // 2 bytes
+    totalBlocks = Utility.getShort (buffer, ptr + 14);         // 280
+    totalFiles = Utility.getShort (buffer, ptr + 16);
+    date = Utility.getPascalDate (buffer, ptr + 20);                 // 2 bytes
   }
 
   // ---------------------------------------------------------------------------------//
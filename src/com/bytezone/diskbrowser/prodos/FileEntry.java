@@ -2,52 +2,21 @@ package com.bytezone.diskbrowser.prodos;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.bytezone.diskbrowser.applefile.AbstractFile;
-import com.bytezone.diskbrowser.applefile.ApplesoftBasicProgram;
-import com.bytezone.diskbrowser.applefile.AssemblerProgram;
-import com.bytezone.diskbrowser.applefile.BasicProgramGS;
 import com.bytezone.diskbrowser.applefile.BasicTextFile;
-import com.bytezone.diskbrowser.applefile.CharacterRom;
 import com.bytezone.diskbrowser.applefile.DefaultAppleFile;
-import com.bytezone.diskbrowser.applefile.DeviceDriver;
-import com.bytezone.diskbrowser.applefile.DosMasterFile;
-import com.bytezone.diskbrowser.applefile.DoubleHiResImage;
 import com.bytezone.diskbrowser.applefile.ErrorMessageFile;
-import com.bytezone.diskbrowser.applefile.ExoBuffer;
-import com.bytezone.diskbrowser.applefile.FaddenHiResImage;
-import com.bytezone.diskbrowser.applefile.FileSystemTranslator;
-import com.bytezone.diskbrowser.applefile.FileTypeDescriptorTable;
-import com.bytezone.diskbrowser.applefile.FinderData;
-import com.bytezone.diskbrowser.applefile.FontFile;
-import com.bytezone.diskbrowser.applefile.HiResImage;
-import com.bytezone.diskbrowser.applefile.IconFile;
-import com.bytezone.diskbrowser.applefile.IntegerBasicProgram;
-import com.bytezone.diskbrowser.applefile.LodeRunner;
 import com.bytezone.diskbrowser.applefile.MerlinSource;
-import com.bytezone.diskbrowser.applefile.ObjectModule;
-import com.bytezone.diskbrowser.applefile.OriginalHiResImage;
-import com.bytezone.diskbrowser.applefile.PascalArea;
-import com.bytezone.diskbrowser.applefile.PascalCode;
-import com.bytezone.diskbrowser.applefile.ProdosDirectory;
-import com.bytezone.diskbrowser.applefile.QuickDrawFont;
-import com.bytezone.diskbrowser.applefile.SHRPictureFile1;
-import com.bytezone.diskbrowser.applefile.SHRPictureFile2;
-import com.bytezone.diskbrowser.applefile.Selector;
-import com.bytezone.diskbrowser.applefile.ShapeTable;
-import com.bytezone.diskbrowser.applefile.SimpleText;
-import com.bytezone.diskbrowser.applefile.StoredVariables;
 import com.bytezone.diskbrowser.applefile.TextBuffer;
-import com.bytezone.diskbrowser.appleworks.AppleworksADBFile;
-import com.bytezone.diskbrowser.appleworks.AppleworksSSFile;
-import com.bytezone.diskbrowser.appleworks.AppleworksWPFile;
 import com.bytezone.diskbrowser.disk.DiskAddress;
 import com.bytezone.diskbrowser.gui.DataSource;
 import com.bytezone.diskbrowser.utilities.Utility;
 
 // - Set sector types for each used sector
-// - Populate dataBlocks, indexBlocks, catalogBlock and masterIndexBlock
+// - Populate dataBlocks, indexBlocks, readOrder, catalogBlock and masterIndexBlock
 // - Provide getDataSource ()
 
 // -----------------------------------------------------------------------------------//
@@ -63,10 +32,13 @@ class FileEntry extends CatalogEntry implements ProdosConstants
   private final int headerPointer;
   private DataSource file;
   private final DiskAddress catalogBlock;
-  private ResourceFork resourceFork;
+  private ResourceFork resourceFork;             // read when the file is first shown
 
   private DiskAddress masterIndexBlock;
   private final List<DiskAddress> indexBlocks = new ArrayList<> ();
+  private final List<DiskAddress> readOrder = new ArrayList<> ();   // all the blocks
+  private int dataForkEof;                        // extended files only
+  private int resourceForkEof;
 
   private boolean invalid;
   private FileEntry link;
@@ -111,6 +83,7 @@ class FileEntry extends CatalogEntry implements ProdosConstants
           if (diskAddress == null)
             break;
           dataBlocks.add (diskAddress);
+          readOrder.add (diskAddress);
           byte[] buffer = disk.readBlock (block);
           block = Utility.getShort (buffer, 2);
         } while (block > 0);
@@ -120,6 +93,7 @@ class FileEntry extends CatalogEntry implements ProdosConstants
         for (int i = keyPtr; i < disk.getTotalBlocks (); i++)
         {
           dataBlocks.add (disk.getDiskAddress (i));
+          readOrder.add (disk.getDiskAddress (i));
           parentDisk.setSectorType (i, parentDisk.dataSector);
         }
         break;
@@ -135,6 +109,7 @@ class FileEntry extends CatalogEntry implements ProdosConstants
   {
     parentDisk.setSectorType (keyPtr, parentDisk.extendedKeySector);
     indexBlocks.add (disk.getDiskAddress (keyPtr));
+    readOrder.add (disk.getDiskAddress (keyPtr));
 
     byte[] buffer2 = disk.readBlock (keyPtr);        // data fork and resource fork
 
@@ -143,18 +118,34 @@ class FileEntry extends CatalogEntry implements ProdosConstants
     {
       int storageType = buffer2[i] & 0x0F;
       int keyBlock = Utility.getShort (buffer2, i + 1);
-      int eof = Utility.readTriple (buffer2, i + 3);
+      int eof = Utility.readTriple (buffer2, i + 5);
 
       if (i < 256)
+      {
         addDataBlocks (storageType, keyBlock, dataBlocks);
+        dataForkEof = eof;
+      }
       else
+      {
         addDataBlocks (storageType, keyBlock, resourceBlocks);
+        resourceForkEof = eof;
+      }
     }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private ResourceFork getParsedResourceFork ()
+  // ---------------------------------------------------------------------------------//
+  {
+    if (resourceFork == null && storageType == GSOS_EXTENDED_FILE)
+    {
+      resourceFork = new ResourceFork (disk.readBlocks (resourceBlocks));
 
-    resourceFork = new ResourceFork (disk.readBlocks (resourceBlocks));
+      if (!resourceFork.isValid ())
+        System.out.printf ("Invalid Resource Fork: %s%n", getUniqueName ());
+    }
 
-    if (!resourceFork.isValid ())
-      System.out.printf ("Invalid Resource Fork: %s%n", getUniqueName ());
+    return resourceFork;
   }
 
   // ---------------------------------------------------------------------------------//
@@ -163,6 +154,7 @@ class FileEntry extends CatalogEntry implements ProdosConstants
   {
     DiskAddress emptyDiskAddress = disk.getDiskAddress (0);
     List<Integer> blocks = new ArrayList<> ();
+    List<Integer> indexes = new ArrayList<> ();       // the index for each 256 blocks
 
     switch (storageType)
     {
@@ -173,14 +165,20 @@ class FileEntry extends CatalogEntry implements ProdosConstants
 
       case SAPLING:
         if (isValid (keyPtr))
+        {
+          indexes.add (keyPtr);
           blocks.addAll (readIndex (keyPtr));
+        }
         break;
 
       case TREE:
         if (isValid (keyPtr))
-          for (Integer indexBlock : readMasterIndex (keyPtr))
-            if (isValid (indexBlock))
-              blocks.addAll (readIndex (indexBlock));
+        {
+          indexes.addAll (readMasterIndex (keyPtr));
+          readOrder.add (masterIndexBlock);
+          for (Integer indexBlock : indexes)
+            blocks.addAll (readIndex (indexBlock));     // zero is a sparse index block
+        }
         break;
     }
 
@@ -188,16 +186,35 @@ class FileEntry extends CatalogEntry implements ProdosConstants
     while (blocks.size () > 0 && blocks.get (blocks.size () - 1) == 0)
       blocks.remove (blocks.size () - 1);
 
-    for (Integer block : blocks)
+    for (int i = 0; i < blocks.size (); i++)
     {
+      if (i % 256 == 0)
+        addIndexBlock (indexes, i / 256);       // each index is read before its blocks
+
+      int block = blocks.get (i);
       if (block == 0)
+      {
         dataBlocks.add (emptyDiskAddress);
+        readOrder.add (emptyDiskAddress);
+      }
       else
       {
         parentDisk.setSectorType (block, parentDisk.dataSector);
         dataBlocks.add (disk.getDiskAddress (block));
+        readOrder.add (disk.getDiskAddress (block));
       }
     }
+
+    for (int i = (blocks.size () + 255) / 256; i < indexes.size (); i++)
+      addIndexBlock (indexes, i);               // only holes were left after them
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void addIndexBlock (List<Integer> indexes, int position)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (position < indexes.size () && indexes.get (position) != 0)
+      readOrder.add (disk.getDiskAddress (indexes.get (position)));
   }
 
   // ---------------------------------------------------------------------------------//
@@ -286,280 +303,9 @@ class FileEntry extends CatalogEntry implements ProdosConstants
 
     try
     {
-      switch (fileType)
-      {
-        case FILE_TYPE_OVL:
-          if (endOfFile == 0x2000 && auxType == 0)
-          {
-            file = new OriginalHiResImage (name, exactBuffer, auxType);
-            break;
-          }
-          else if (endOfFile == 0x800 && "SELECTOR.LIST".equals (name))
-          {
-            file = new Selector (name, exactBuffer);
-            break;
-          }
-
-          // drop through !!
-
-        case FILE_TYPE_BINARY:
-        case FILE_TYPE_RELOCATABLE:
-        case FILE_TYPE_SYS:
-        case FILE_TYPE_BAT:
-          if (SimpleText.isHTML (exactBuffer))
-            file = new SimpleText (name, exactBuffer);
-          else if (HiResImage.isGif (exactBuffer) || HiResImage.isPng (exactBuffer))
-            file = new OriginalHiResImage (name, exactBuffer, auxType);
-          else if (name.endsWith (".BMP") && HiResImage.isBmp (exactBuffer))
-            file = new OriginalHiResImage (name, exactBuffer, auxType);
-          else if (name.endsWith (".3200"))           // $C1/02
-            file = new SHRPictureFile2 (name, exactBuffer, 0xC1, 0x02, endOfFile);
-          else if (name.endsWith (".3201") || HiResImage.isAPP (exactBuffer)) // $C0/04
-            // I made up aux=99 to test it without stepping on aux==04
-            file = new SHRPictureFile2 (name, exactBuffer, 0xC0, 99, endOfFile);
-          else if (name.endsWith (".FNT") && FontFile.isFont (exactBuffer))
-            file = new FontFile (name, exactBuffer, auxType);
-          else if (name.endsWith (".FONT") && FontFile.isFont (exactBuffer))
-            file = new FontFile (name, exactBuffer, auxType);
-          else if (ShapeTable.isShapeTable (exactBuffer))
-            file = new ShapeTable (name, exactBuffer);
-          else if (link != null)
-          {
-            if (name.endsWith (".AUX"))
-              file = new DoubleHiResImage (name, link.getBuffer (), exactBuffer);
-            else
-              file = new DoubleHiResImage (name, exactBuffer, link.getBuffer ());
-          }
-          else if (name.endsWith (".PAC") || name.endsWith (".A2FC")
-              || (endOfFile == 0x4000 && auxType == 0x2000))
-            file = new DoubleHiResImage (name, exactBuffer);
-          else if (endOfFile == 0x4000 && auxType == 0x4000)
-            file = new DoubleHiResImage (name, exactBuffer);
-          else if (ExoBuffer.isExomizer (exactBuffer, auxType))
-          {
-            ExoBuffer exoBuffer = new ExoBuffer (exactBuffer);
-            byte[] outBuffer = exoBuffer.getExpandedBuffer ();
-
-            switch (outBuffer.length)
-            {
-              case 0x2000:
-                file = new OriginalHiResImage (name, outBuffer, 0x4000);
-                break;
-              case 0x4000:
-                file = new DoubleHiResImage (name, outBuffer);
-                break;
-              case 0x8000:
-                file = new SHRPictureFile2 (name, outBuffer, FILE_TYPE_PIC, 0x2000, 0x8000);
-                break;
-              default:
-                file = new AssemblerProgram (name, exactBuffer, auxType);
-            }
-          }
-          else if (oneOf (endOfFile, 0x1FF8, 0x1FFF, 0x2000, 0x4000)
-              && oneOf (auxType, 0x1FFF, 0x2000, 0x4000, 0x6000))
-            file = new OriginalHiResImage (name, exactBuffer, auxType);
-          else if (endOfFile == 0x9600 && name.startsWith ("LVL."))
-            file = new LodeRunner (name, exactBuffer);
-          else if (auxType == 0x1000 && CharacterRom.isRom (exactBuffer))
-            file = new CharacterRom (name, exactBuffer);
-          else if (auxType == 0 && endOfFile == 0x8000)
-          {
-            // see gs basic disk, one of the four pictures looks ok
-            file = new SHRPictureFile2 (name, exactBuffer, 0xC1, 0, endOfFile);
-          }
-          //  else if (name.endsWith (".PIC"))          // 0091 X-BASIC../../XBASIC.PIC
-          //    file = new SHRPictureFile2 (name, exactBuffer, fileType, auxType, endOfFile);
-          else if ((name.equals ("DOS.3.3") || name.equals ("DDOS.3.3")) && endOfFile == 0x2800
-              && DosMasterFile.isDos33 (parentDisk, exactBuffer))
-          {
-            file = new DosMasterFile (name, exactBuffer);
-          }
-          else
-          {
-            file = new AssemblerProgram (name, exactBuffer, auxType);
-            if (exactBuffer.length < buffer.length)
-              ((AssemblerProgram) file).setExtraBuffer (buffer, exactBuffer.length,
-                  buffer.length - exactBuffer.length);
-          }
-          break;
-
-        case FILE_TYPE_TEXT:
-          assert auxType == 0;                        // auxType > 0 handled above
-          if (name.endsWith (".S"))
-            file = new MerlinSource (name, exactBuffer, auxType, endOfFile);
-          else if (name.endsWith ("PLA"))
-            file = new SimpleText (name, exactBuffer);
-          else if (name.endsWith (".GIF") && HiResImage.isGif (exactBuffer))
-            file = new OriginalHiResImage (name, exactBuffer, auxType);
-          else
-            file = new BasicTextFile (name, exactBuffer, auxType, endOfFile);
-          break;
-
-        case FILE_TYPE_APPLESOFT_BASIC:
-          file = new ApplesoftBasicProgram (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_GS_BASIC:
-          // 0132 816-Paint.po has GSB files that crash because they are palettes
-          if (buffer[0] == 4 && buffer[1] == 16)      // complete guess
-            file = new BasicProgramGS (name, exactBuffer);
-          else
-            file = new DefaultAppleFile (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_INTEGER_BASIC:
-          file = new IntegerBasicProgram (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_DIRECTORY:
-          VolumeDirectoryHeader vdh = parentDisk.getVolumeDirectoryHeader ();
-          file = new ProdosDirectory (parentDisk, name, buffer, vdh.totalBlocks, vdh.freeBlocks,
-              vdh.usedBlocks);
-          break;
-
-        case FILE_TYPE_APPLESOFT_BASIC_VARS:
-          if (endOfFile == 0)
-          {
-            System.out.println ("Stored Variables EOF = 0");
-            file = new StoredVariables (name, buffer);
-          }
-          else
-            file = new StoredVariables (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_APPLETALK:
-          file = new DefaultAppleFile (name + " (Appletalk file)", buffer);
-          break;
-
-        case FILE_TYPE_GWP:
-          file = new SimpleText (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_AWP:
-          file = new AppleworksWPFile (name + " (Appleworks Word Processor)", buffer);
-          break;
-
-        case FILE_TYPE_ADB:
-          file = new AppleworksADBFile (name + " (Appleworks Database File)", buffer);
-          break;
-
-        case FILE_TYPE_ASP:
-          file = new AppleworksSSFile (name + " (Appleworks Spreadsheet File)", buffer);
-          break;
-
-        case FILE_TYPE_IIGS_SOURCE:       // I think this has a resource fork
-          file = new SimpleText (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_IIGS_APPLICATION:
-          file = new ObjectModule (name, exactBuffer, auxType);
-          break;
-
-        case FILE_TYPE_IIGS_DEVICE_DRIVER:
-          file = new DeviceDriver (name, exactBuffer, auxType);
-          break;
-
-        case FILE_TYPE_TIF:
-          file = new DefaultAppleFile (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_ICN:
-          file = new IconFile (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_PNT:
-          if (auxType == 2)
-            file = new SHRPictureFile1 (name, exactBuffer, fileType, auxType, endOfFile);
-          else if (endOfFile < 0x222)
-            file = new DefaultAppleFile (name, exactBuffer);
-          else
-            file = new SHRPictureFile2 (name, exactBuffer, fileType, auxType, endOfFile);
-          break;
-
-        case FILE_TYPE_ANI:
-          file = new SHRPictureFile2 (name, exactBuffer, fileType, auxType, endOfFile);
-          break;
-
-        case FILE_TYPE_PIC:
-          file = new SHRPictureFile2 (name, exactBuffer, fileType, auxType, endOfFile);
-          break;
-
-        case FILE_TYPE_FOT:
-          if (auxType == HiResImage.FADDEN_AUX)
-            file = new FaddenHiResImage (name, exactBuffer, fileType, auxType, endOfFile);
-          else if (auxType < 0x4000)
-          {
-            file = new OriginalHiResImage (name, exactBuffer, 0x2000);
-            System.out.printf ("FOT %02X%n", exactBuffer[121]);
-          }
-          else if (auxType == 0x4000)
-          {
-            // packed hi-res
-            System.out.println ("FOT - packed hi res");
-            file = new DefaultAppleFile (name, exactBuffer);
-          }
-          else if (auxType == 0x4001)
-          {
-            // packed double hi-res
-            System.out.println ("FOT - double hi res");
-            file = new DefaultAppleFile (name, exactBuffer);
-          }
-          else
-          {
-            file = new DefaultAppleFile (name, exactBuffer);
-            //   file =
-            //     new OriginalHiResImage (name, exactBuffer, fileType, auxType, endOfFile);
-          }
-          break;
-
-        case FILE_TYPE_FNT:
-          file = new FontFile (name, exactBuffer, auxType);
-          break;
-
-        case FILE_TYPE_FONT:
-          file = new QuickDrawFont (name, exactBuffer, fileType, auxType);
-          break;
-
-        case FILE_TYPE_DESCRIPTOR_TABLE:
-          file = new FileTypeDescriptorTable (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_GSOS_FILE_SYSTEM_TRANSLATOR:
-          file = new FileSystemTranslator (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_PASCAL_VOLUME:
-          file = new PascalArea (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_GEO:
-        case FILE_TYPE_LDF:
-        case FILE_TYPE_PAL:
-        case FILE_TYPE_IIGS_OBJECT:
-          file = new DefaultAppleFile (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_PCD:
-          //        case FILE_TYPE_PDA:
-          file = new PascalCode (name, exactBuffer, 0);
-          break;
-
-        case FILE_TYPE_NON:
-          if (name.endsWith (".TIFF") && HiResImage.isTiff (exactBuffer))
-            file = new OriginalHiResImage (name, exactBuffer, auxType);
-          else
-            file = new DefaultAppleFile (name, exactBuffer);
-          break;
-
-        case FILE_TYPE_FINDER:
-          file = new FinderData (name, exactBuffer);
-          break;
-
-        default:
-          // System.out.format ("%02X  %s  %s - Unknown Prodos file type%n",
-          // fileType, fileTypes[fileType], name);
-          file = new DefaultAppleFile (name, exactBuffer);
-      }
+      // random access text files (auxType > 0) have been handled above
+      file = ProdosFileFactory.createDataSource (parentDisk, name, fileType, auxType,
+          endOfFile, buffer, exactBuffer, link == null ? null : link.getBuffer ());
     }
     catch (Exception e)
     {
@@ -567,22 +313,12 @@ class FileEntry extends CatalogEntry implements ProdosConstants
       e.printStackTrace ();
     }
 
-    if (resourceFork != null)
-      ((AbstractFile) file).setResourceFork (resourceFork);
+    if (storageType == GSOS_EXTENDED_FILE)
+      ((AbstractFile) file).setResourceFork (getParsedResourceFork ());
 
     return file;
   }
 
-  // ---------------------------------------------------------------------------------//
-  private boolean oneOf (int val, int... values)
-  // ---------------------------------------------------------------------------------//
-  {
-    for (int value : values)
-      if (val == value)
-        return true;
-    return false;
-  }
-
   // ---------------------------------------------------------------------------------//
   private DataSource getRandomAccessTextFile ()
   // ---------------------------------------------------------------------------------//
@@ -701,6 +437,46 @@ class FileEntry extends CatalogEntry implements ProdosConstants
     }
   }
 
+  // the forks exactly as stored, holes are returned as zeroes
+  // ---------------------------------------------------------------------------------//
+  byte[] getDataFork ()
+  // ---------------------------------------------------------------------------------//
+  {
+    int eof = storageType == GSOS_EXTENDED_FILE ? dataForkEof : endOfFile;
+    return Arrays.copyOf (disk.readBlocks (dataBlocks), eof);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  byte[] getResourceFork ()
+  // ---------------------------------------------------------------------------------//
+  {
+    if (storageType != GSOS_EXTENDED_FILE)
+      return null;
+
+    return Arrays.copyOf (disk.readBlocks (resourceBlocks), resourceForkEof);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  int getFileType ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return fileType;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  int getAuxType ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return auxType;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  LocalDateTime getModified ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return modified;
+  }
+
   // ---------------------------------------------------------------------------------//
   private byte[] getExactBuffer (byte[] buffer)
   // ---------------------------------------------------------------------------------//
@@ -750,14 +526,9 @@ class FileEntry extends CatalogEntry implements ProdosConstants
   public List<DiskAddress> getSectors ()
   // ---------------------------------------------------------------------------------//
   {
-    List<DiskAddress> sectors = new ArrayList<> ();
+    List<DiskAddress> sectors = new ArrayList<> (readOrder.size () + 1);
     sectors.add (catalogBlock);
-    if (masterIndexBlock != null)
-      sectors.add (masterIndexBlock);
-
-    sectors.addAll (indexBlocks);
-    sectors.addAll (dataBlocks);
-    sectors.addAll (resourceBlocks);
+    sectors.addAll (readOrder);                 // in the order ProDOS reads them
 
     return sectors;
   }
@@ -778,7 +549,7 @@ class FileEntry extends CatalogEntry implements ProdosConstants
         return true;
 
     for (DiskAddress block : dataBlocks)
-      if (da.matches (block))
+      if (block.getBlockNo () > 0 && da.matches (block))      // block 0 is a hole
         return true;
 
     for (DiskAddress block : resourceBlocks)
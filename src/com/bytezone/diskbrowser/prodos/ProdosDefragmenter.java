@@ -0,0 +1,372 @@
+package com.bytezone.diskbrowser.prodos;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import com.bytezone.diskbrowser.applefile.AppleFileSource;
+import com.bytezone.diskbrowser.disk.DiskAddress;
+import com.bytezone.diskbrowser.disk.DiskFactory;
+import com.bytezone.diskbrowser.disk.FormattedDisk;
+import com.bytezone.diskbrowser.gui.ProdosPreferences;
+import com.bytezone.diskbrowser.prodos.write.DiskFullException;
+import com.bytezone.diskbrowser.prodos.write.FileAlreadyExistsException;
+import com.bytezone.diskbrowser.prodos.write.VolumeCatalogFullException;
+
+// Copies every directory and file of a ProDOS volume, in catalog order, to a new
+// image where each one is stored contiguously. Dates, access bits and the version
+// bytes (GS/OS keeps the lowercase name flags there) are copied as well.
+// -----------------------------------------------------------------------------------//
+public class ProdosDefragmenter
+// -----------------------------------------------------------------------------------//
+{
+  private final ProdosDisk disk;
+  private final List<FileEntry> fileEntries = new ArrayList<> ();
+
+  // ---------------------------------------------------------------------------------//
+  public ProdosDefragmenter (ProdosDisk disk)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.disk = disk;
+
+    for (AppleFileSource fileSource : disk.getCatalogList ())
+      fileEntries.add ((FileEntry) fileSource);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public ProdosDisk defragment (Path imageFile) throws IOException, DiskFullException,
+      VolumeCatalogFullException
+  // ---------------------------------------------------------------------------------//
+  {
+    VolumeDirectoryHeader volumeDirectoryHeader =
+        (VolumeDirectoryHeader) disk.getDirectoryHeaders ().get (0);
+    com.bytezone.diskbrowser.prodos.write.ProdosDisk newDisk =
+        new com.bytezone.diskbrowser.prodos.write.ProdosDisk (imageFile,
+            volumeDirectoryHeader.totalBlocks, volumeDirectoryHeader.getName ());
+
+    try
+    {
+      // directories are created with all their blocks when they are first seen
+      Map<String, Integer> directorySizes = new HashMap<> ();
+      for (FileEntry fileEntry : fileEntries)
+        directorySizes.merge (getParentPath (fileEntry), 1, Integer::sum);
+
+      Map<FileEntry, com.bytezone.diskbrowser.prodos.write.FileEntry> newDirectories =
+          new HashMap<> ();
+
+      for (FileEntry fileEntry : fileEntries)
+      {
+        String path = getPath (fileEntry);
+
+        switch (fileEntry.storageType)
+        {
+          case ProdosConstants.SUBDIRECTORY:
+            newDirectories.put (fileEntry,
+                newDisk.addDirectory (path, directorySizes.getOrDefault (path, 0)));
+            break;
+
+          case ProdosConstants.SEEDLING:
+          case ProdosConstants.SAPLING:
+          case ProdosConstants.TREE:
+          case ProdosConstants.GSOS_EXTENDED_FILE:
+            copyFile (newDisk, fileEntry, path);
+            break;
+
+          default:
+            System.out.printf ("Not copied: %s (storage type %d)%n", path,
+                fileEntry.storageType);
+        }
+      }
+
+      // after their files have been added, which changes the modified dates
+      Map<Integer, DirectoryHeader> headers = getHeaders (disk);
+      for (Map.Entry<FileEntry, com.bytezone.diskbrowser.prodos.write.FileEntry> entry
+          : newDirectories.entrySet ())
+      {
+        FileEntry fileEntry = entry.getKey ();
+        copyAttributes (newDisk, fileEntry, entry.getValue ());
+
+        DirectoryHeader header = headers.get (fileEntry.keyPtr);
+        if (header != null)
+          newDisk.setHeaderAttributes (entry.getValue (), header.created, header.version,
+              header.minVersion, header.access);
+      }
+
+      newDisk.setHeaderAttributes (null, volumeDirectoryHeader.created,
+          volumeDirectoryHeader.version, volumeDirectoryHeader.minVersion,
+          volumeDirectoryHeader.access);
+
+      newDisk.close ();
+    }
+    finally
+    {
+      // if the copy failed before closing the disk
+      if (!newDisk.discard ())
+        System.out.printf ("Unable to delete %s%n", imageFile);
+    }
+
+    FormattedDisk formattedDisk = DiskFactory.createDisk (imageFile.toFile ());
+    if (formattedDisk instanceof ProdosDisk prodosDisk)
+      return prodosDisk;
+
+    throw new IOException ("Unable to read " + imageFile);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void copyFile (com.bytezone.diskbrowser.prodos.write.ProdosDisk newDisk,
+      FileEntry fileEntry, String path)
+      throws DiskFullException, VolumeCatalogFullException
+  // ---------------------------------------------------------------------------------//
+  {
+    try
+    {
+      byte[] dataFork = fileEntry.getDataFork ();
+      com.bytezone.diskbrowser.prodos.write.FileEntry newEntry =
+          newDisk.addFile (path, (byte) fileEntry.getFileType (), fileEntry.getAuxType (),
+              fileEntry.created, fileEntry.getModified (), dataFork, dataFork.length);
+
+      byte[] resourceFork = fileEntry.getResourceFork ();
+      if (resourceFork != null)
+        newDisk.addResourceFork (newEntry, resourceFork, resourceFork.length);
+
+      copyAttributes (newDisk, fileEntry, newEntry);
+    }
+    catch (FileAlreadyExistsException e)
+    {
+      System.out.printf ("Duplicate file not copied: %s%n", path);
+    }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void copyAttributes (com.bytezone.diskbrowser.prodos.write.ProdosDisk newDisk,
+      FileEntry fileEntry, com.bytezone.diskbrowser.prodos.write.FileEntry newEntry)
+  // ---------------------------------------------------------------------------------//
+  {
+    newDisk.setAttributes (newEntry, fileEntry.created, fileEntry.getModified (),
+        fileEntry.version, fileEntry.minVersion, fileEntry.access);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private boolean sameAttributes (CatalogEntry entry, CatalogEntry newEntry)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (entry == null || newEntry == null)
+      return entry == newEntry;
+
+    return entry.access == newEntry.access && entry.version == newEntry.version
+        && entry.minVersion == newEntry.minVersion
+        && Objects.equals (entry.created, newEntry.created);
+  }
+
+  // compare the attributes and forks of every file and directory, and check that the
+  // bitmap doesn't free used blocks
+  // ---------------------------------------------------------------------------------//
+  public boolean verify (ProdosDisk newDisk)
+  // ---------------------------------------------------------------------------------//
+  {
+    Map<String, FileEntry> newEntries = new HashMap<> ();
+    for (AppleFileSource fileSource : newDisk.getCatalogList ())
+      newEntries.put (getPath ((FileEntry) fileSource), (FileEntry) fileSource);
+
+    Map<Integer, DirectoryHeader> headers = getHeaders (disk);
+    Map<Integer, DirectoryHeader> newHeaders = getHeaders (newDisk);
+
+    int errors = 0;
+    if (!sameAttributes (headers.get (2), newHeaders.get (2)))
+    {
+      System.out.println ("Different volume directory header");
+      ++errors;
+    }
+
+    for (FileEntry fileEntry : fileEntries)
+    {
+      String path = getPath (fileEntry);
+      FileEntry newEntry = newEntries.get (path);
+
+      if (newEntry == null)
+        System.out.printf ("Missing: %s%n", path);
+      else if (!sameAttributes (fileEntry, newEntry)
+          || !Objects.equals (fileEntry.getModified (), newEntry.getModified ()))
+        System.out.printf ("Different attributes: %s%n", path);
+      else if (fileEntry.storageType == ProdosConstants.SUBDIRECTORY
+          && !sameAttributes (headers.get (fileEntry.keyPtr),
+              newHeaders.get (newEntry.keyPtr)))
+        System.out.printf ("Different directory header: %s%n", path);
+      else if (fileEntry.storageType == ProdosConstants.SUBDIRECTORY)
+        continue;
+      else if (fileEntry.getFileType () != newEntry.getFileType ()
+          || fileEntry.getAuxType () != newEntry.getAuxType ())
+        System.out.printf ("Different type: %s%n", path);
+      else if (!Arrays.equals (fileEntry.getDataFork (), newEntry.getDataFork ()))
+        System.out.printf ("Different data fork: %s%n", path);
+      else if (!Arrays.equals (fileEntry.getResourceFork (), newEntry.getResourceFork ()))
+        System.out.printf ("Different resource fork: %s%n", path);
+      else
+        continue;
+
+      ++errors;
+    }
+
+    newDisk.verify ();
+
+    return errors == 0 && newDisk.falsePositiveBlocks () == 0;   // no used blocks free
+  }
+
+  // the directory headers by the block they start in
+  // ---------------------------------------------------------------------------------//
+  private Map<Integer, DirectoryHeader> getHeaders (ProdosDisk prodosDisk)
+  // ---------------------------------------------------------------------------------//
+  {
+    Map<Integer, DirectoryHeader> headers = new HashMap<> ();
+    for (DirectoryHeader directoryHeader : prodosDisk.getDirectoryHeaders ())
+      headers.put (directoryHeader.blockNo, directoryHeader);
+
+    return headers;
+  }
+
+  // path without the volume name
+  // ---------------------------------------------------------------------------------//
+  private String getPath (FileEntry fileEntry)
+  // ---------------------------------------------------------------------------------//
+  {
+    String path = fileEntry.getUniqueName ();
+    return path.substring (path.indexOf ('/') + 1);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private String getParentPath (FileEntry fileEntry)
+  // ---------------------------------------------------------------------------------//
+  {
+    String path = getPath (fileEntry);
+    int pos = path.lastIndexOf ('/');
+    return pos < 0 ? "" : path.substring (0, pos);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public static void main (String[] args)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (args.length != 2)
+    {
+      System.out.println ("Usage: ProdosDefragmenter <image> <new image>");
+      return;
+    }
+
+    if (ProdosDisk.prodosPreferences == null)
+      ProdosDisk.setProdosPreferences (new ProdosPreferences ());
+
+    try
+    {
+      FormattedDisk formattedDisk = DiskFactory.createDisk (args[0]);
+      if (!(formattedDisk instanceof ProdosDisk disk))
+      {
+        System.out.printf ("%s is not a ProDOS disk%n", args[0]);
+        return;
+      }
+
+      ProdosDefragmenter defragmenter = new ProdosDefragmenter (disk);
+      ProdosDisk newDisk = defragmenter.defragment (Paths.get (args[1]));
+
+      System.out.println ("Before");
+      System.out.println (new Fragmentation (disk));
+      System.out.println ("After");
+      System.out.println (new Fragmentation (newDisk));
+
+      System.out.println (defragmenter.verify (newDisk) ? "Verified" : "*** Failed ***");
+    }
+    catch (Exception e)
+    {
+      e.printStackTrace ();
+    }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public static class Fragmentation
+  // ---------------------------------------------------------------------------------//
+  {
+    int files;
+    int fragmentedFiles;
+    int extents;
+    int freeBlocks;
+    int freeExtents;
+    int largestFreeExtent;
+
+    // -------------------------------------------------------------------------------//
+    public Fragmentation (ProdosDisk disk)
+    // -------------------------------------------------------------------------------//
+    {
+      for (AppleFileSource fileSource : disk.getCatalogList ())
+      {
+        int fileExtents = countExtents ((FileEntry) fileSource);
+        ++files;
+        extents += fileExtents;
+        if (fileExtents > 1)
+          ++fragmentedFiles;
+      }
+
+      int extentSize = 0;
+      for (int blockNo = 0, max = disk.getDisk ().getTotalBlocks (); blockNo <= max;
+          blockNo++)
+      {
+        if (blockNo < max && disk.isSectorFree (blockNo))
+        {
+          ++freeBlocks;
+          ++extentSize;
+        }
+        else if (extentSize > 0)
+        {
+          ++freeExtents;
+          largestFreeExtent = Math.max (largestFreeExtent, extentSize);
+          extentSize = 0;
+        }
+      }
+    }
+
+    // runs of consecutive blocks in the order they are read (directory, index and
+    // data blocks), so a file whose blocks are out of order counts as fragmented
+    // -------------------------------------------------------------------------------//
+    private int countExtents (FileEntry fileEntry)
+    // -------------------------------------------------------------------------------//
+    {
+      List<DiskAddress> sectors = fileEntry.getSectors ();
+      int fileExtents = 0;
+      int lastBlock = -1;
+
+      for (DiskAddress da : sectors.subList (1, sectors.size ()))     // skip catalog
+      {
+        int block = da.getBlockNo ();
+        if (block == 0)
+          continue;                                                   // skip holes
+
+        if (block != lastBlock + 1)
+          ++fileExtents;
+        lastBlock = block;
+      }
+
+      return fileExtents;
+    }
+
+    // -------------------------------------------------------------------------------//
+    @Override
+    public String toString ()
+    // -------------------------------------------------------------------------------//
+    {
+      StringBuilder text = new StringBuilder ();
+
+      text.append (String.format ("Files and directories : %,7d%n", files));
+      text.append (String.format ("Fragmented            : %,7d%n", fragmentedFiles));
+      text.append (String.format ("Extents               : %,7d%n", extents));
+      text.append (String.format ("Free blocks           : %,7d%n", freeBlocks));
+      text.append (String.format ("Free extents          : %,7d%n", freeExtents));
+      text.append (String.format ("Largest free extent   : %,7d", largestFreeExtent));
+
+      return text.toString ();
+    }
+  }
+}
@@ -84,6 +84,18 @@ public class ProdosDisk extends AbstractFormattedDisk
     root.add (volumeNode);
 
     processDirectoryBlock (2, null, volumeNode);
+
+    // link double hi-res files
+    for (AppleFileSource fe : fileEntries)
+    {
+      AppleFileSource fe2 = getAuxPartner (fe);
+      if (fe2 != null)
+      {
+        ((FileEntry) fe2).link ((FileEntry) fe);
+        ((FileEntry) fe).link ((FileEntry) fe2);
+      }
+    }
+
     makeNodeVisible (volumeNode.getFirstLeaf ());
 
     for (DiskAddress da2 : disk)
@@ -182,24 +194,6 @@ public class ProdosDisk extends AbstractFormattedDisk
       }
       block = Utility.getShort (sectorBuffer, 2);
     } while (block > 0);
-
-    // link double hi-res files
-    for (AppleFileSource fe : fileEntries)
-    {
-      String name = fe.getUniqueName ();
-      if (name.endsWith (".AUX"))
-      {
-        String partner1 = name.substring (0, name.length () - 4);
-        String partner2 = name.substring (0, name.length () - 4) + ".BIN";
-        for (AppleFileSource fe2 : fileEntries)
-          if (fe2.getUniqueName ().equals (partner1)
-              || fe2.getUniqueName ().equals (partner2))
-          {
-            ((FileEntry) fe2).link ((FileEntry) fe);
-            ((FileEntry) fe).link ((FileEntry) fe2);
-          }
-      }
-    }
   }
 
   // ---------------------------------------------------------------------------------//
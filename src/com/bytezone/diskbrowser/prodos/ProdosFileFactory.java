@@ -0,0 +1,354 @@
+package com.bytezone.diskbrowser.prodos;
+
+import com.bytezone.diskbrowser.applefile.ApplesoftBasicProgram;
+import com.bytezone.diskbrowser.applefile.AssemblerProgram;
+import com.bytezone.diskbrowser.applefile.BasicProgramGS;
+import com.bytezone.diskbrowser.applefile.BasicTextFile;
+import com.bytezone.diskbrowser.applefile.CharacterRom;
+import com.bytezone.diskbrowser.applefile.DefaultAppleFile;
+import com.bytezone.diskbrowser.applefile.DeviceDriver;
+import com.bytezone.diskbrowser.applefile.DosMasterFile;
+import com.bytezone.diskbrowser.applefile.DoubleHiResImage;
+import com.bytezone.diskbrowser.applefile.ExoBuffer;
+import com.bytezone.diskbrowser.applefile.FaddenHiResImage;
+import com.bytezone.diskbrowser.applefile.FileSystemTranslator;
+import com.bytezone.diskbrowser.applefile.FileTypeDescriptorTable;
+import com.bytezone.diskbrowser.applefile.FinderData;
+import com.bytezone.diskbrowser.applefile.FontFile;
+import com.bytezone.diskbrowser.applefile.HiResImage;
+import com.bytezone.diskbrowser.applefile.IconFile;
+import com.bytezone.diskbrowser.applefile.IntegerBasicProgram;
+import com.bytezone.diskbrowser.applefile.LodeRunner;
+import com.bytezone.diskbrowser.applefile.MerlinSource;
+import com.bytezone.diskbrowser.applefile.ObjectModule;
+import com.bytezone.diskbrowser.applefile.OriginalHiResImage;
+import com.bytezone.diskbrowser.applefile.PascalArea;
+import com.bytezone.diskbrowser.applefile.PascalCode;
+import com.bytezone.diskbrowser.applefile.ProdosDirectory;
+import com.bytezone.diskbrowser.applefile.QuickDrawFont;
+import com.bytezone.diskbrowser.applefile.SHRPictureFile1;
+import com.bytezone.diskbrowser.applefile.SHRPictureFile2;
+import com.bytezone.diskbrowser.applefile.Selector;
+import com.bytezone.diskbrowser.applefile.ShapeTable;
+import com.bytezone.diskbrowser.applefile.SimpleText;
+import com.bytezone.diskbrowser.applefile.StoredVariables;
+import com.bytezone.diskbrowser.appleworks.AppleworksADBFile;
+import com.bytezone.diskbrowser.appleworks.AppleworksSSFile;
+import com.bytezone.diskbrowser.appleworks.AppleworksWPFile;
+import com.bytezone.diskbrowser.gui.DataSource;
+
+// Creates the DataSource for a file from its ProDOS file type. Used by FileEntry, and
+// for ProDOS files that aren't on a disk (eg in a NuFX archive), when parentDisk and
+// linkBuffer are null.
+// -----------------------------------------------------------------------------------//
+public class ProdosFileFactory implements ProdosConstants
+// -----------------------------------------------------------------------------------//
+{
+  // ---------------------------------------------------------------------------------//
+  private ProdosFileFactory ()
+  // ---------------------------------------------------------------------------------//
+  {
+  }
+
+  // buffer may be longer than endOfFile, exactBuffer is trimmed to it
+  // ---------------------------------------------------------------------------------//
+  public static DataSource createDataSource (ProdosDisk parentDisk, String name,
+      int fileType, int auxType, int endOfFile, byte[] buffer, byte[] exactBuffer,
+      byte[] linkBuffer)
+  // ---------------------------------------------------------------------------------//
+  {
+    DataSource file;
+
+    switch (fileType)
+    {
+      case FILE_TYPE_OVL:
+        if (endOfFile == 0x2000 && auxType == 0)
+        {
+          file = new OriginalHiResImage (name, exactBuffer, auxType);
+          break;
+        }
+        else if (endOfFile == 0x800 && "SELECTOR.LIST".equals (name))
+        {
+          file = new Selector (name, exactBuffer);
+          break;
+        }
+
+        // drop through !!
+
+      case FILE_TYPE_BINARY:
+      case FILE_TYPE_RELOCATABLE:
+      case FILE_TYPE_SYS:
+      case FILE_TYPE_BAT:
+        if (SimpleText.isHTML (exactBuffer))
+          file = new SimpleText (name, exactBuffer);
+        else if (HiResImage.isGif (exactBuffer) || HiResImage.isPng (exactBuffer))
+          file = new OriginalHiResImage (name, exactBuffer, auxType);
+        else if (name.endsWith (".BMP") && HiResImage.isBmp (exactBuffer))
+          file = new OriginalHiResImage (name, exactBuffer, auxType);
+        else if (name.endsWith (".3200"))           // $C1/02
+          file = new SHRPictureFile2 (name, exactBuffer, 0xC1, 0x02, endOfFile);
+        else if (name.endsWith (".3201") || HiResImage.isAPP (exactBuffer)) // $C0/04
+          // I made up aux=99 to test it without stepping on aux==04
+          file = new SHRPictureFile2 (name, exactBuffer, 0xC0, 99, endOfFile);
+        else if (name.endsWith (".FNT") && FontFile.isFont (exactBuffer))
+          file = new FontFile (name, exactBuffer, auxType);
+        else if (name.endsWith (".FONT") && FontFile.isFont (exactBuffer))
+          file = new FontFile (name, exactBuffer, auxType);
+        else if (ShapeTable.isShapeTable (exactBuffer))
+          file = new ShapeTable (name, exactBuffer);
+        else if (linkBuffer != null)
+        {
+          if (name.endsWith (".AUX"))
+            file = new DoubleHiResImage (name, linkBuffer, exactBuffer);
+          else
+            file = new DoubleHiResImage (name, exactBuffer, linkBuffer);
+        }
+        else if (name.endsWith (".PAC") || name.endsWith (".A2FC")
+            || (endOfFile == 0x4000 && auxType == 0x2000))
+          file = new DoubleHiResImage (name, exactBuffer);
+        else if (endOfFile == 0x4000 && auxType == 0x4000)
+          file = new DoubleHiResImage (name, exactBuffer);
+        else if (ExoBuffer.isExomizer (exactBuffer, auxType))
+        {
+          ExoBuffer exoBuffer = new ExoBuffer (exactBuffer);
+          byte[] outBuffer = exoBuffer.getExpandedBuffer ();
+
+          switch (outBuffer.length)
+          {
+            case 0x2000:
+              file = new OriginalHiResImage (name, outBuffer, 0x4000);
+              break;
+            case 0x4000:
+              file = new DoubleHiResImage (name, outBuffer);
+              break;
+            case 0x8000:
+              file = new SHRPictureFile2 (name, outBuffer, FILE_TYPE_PIC, 0x2000, 0x8000);
+              break;
+            default:
+              file = new AssemblerProgram (name, exactBuffer, auxType);
+          }
+        }
+        else if (oneOf (endOfFile, 0x1FF8, 0x1FFF, 0x2000, 0x4000)
+            && oneOf (auxType, 0x1FFF, 0x2000, 0x4000, 0x6000))
+          file = new OriginalHiResImage (name, exactBuffer, auxType);
+        else if (endOfFile == 0x9600 && name.startsWith ("LVL."))
+          file = new LodeRunner (name, exactBuffer);
+        else if (auxType == 0x1000 && CharacterRom.isRom (exactBuffer))
+          file = new CharacterRom (name, exactBuffer);
+        else if (auxType == 0 && endOfFile == 0x8000)
+        {
+          // see gs basic disk, one of the four pictures looks ok
+          file = new SHRPictureFile2 (name, exactBuffer, 0xC1, 0, endOfFile);
+        }
+        //  else if (name.endsWith (".PIC"))          // 0091 X-BASIC../../XBASIC.PIC
+        //    file = new SHRPictureFile2 (name, exactBuffer, fileType, auxType, endOfFile);
+        else if ((name.equals ("DOS.3.3") || name.equals ("DDOS.3.3"))
+            && endOfFile == 0x2800 && parentDisk != null
+            && DosMasterFile.isDos33 (parentDisk, exactBuffer))
+        {
+          file = new DosMasterFile (name, exactBuffer);
+        }
+        else
+        {
+          file = new AssemblerProgram (name, exactBuffer, auxType);
+          if (exactBuffer.length < buffer.length)
+            ((AssemblerProgram) file).setExtraBuffer (buffer, exactBuffer.length,
+                buffer.length - exactBuffer.length);
+        }
+        break;
+
+      case FILE_TYPE_TEXT:
+        if (name.endsWith (".S"))
+          file = new MerlinSource (name, exactBuffer, auxType, endOfFile);
+        else if (name.endsWith ("PLA"))
+          file = new SimpleText (name, exactBuffer);
+        else if (name.endsWith (".GIF") && HiResImage.isGif (exactBuffer))
+          file = new OriginalHiResImage (name, exactBuffer, auxType);
+        else
+          file = new BasicTextFile (name, exactBuffer, auxType, endOfFile);
+        break;
+
+      case FILE_TYPE_APPLESOFT_BASIC:
+        file = new ApplesoftBasicProgram (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_GS_BASIC:
+        // 0132 816-Paint.po has GSB files that crash because they are palettes
+        if (buffer[0] == 4 && buffer[1] == 16)      // complete guess
+          file = new BasicProgramGS (name, exactBuffer);
+        else
+          file = new DefaultAppleFile (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_INTEGER_BASIC:
+        file = new IntegerBasicProgram (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_DIRECTORY:
+        if (parentDisk == null)
+        {
+          file = new DefaultAppleFile (name, buffer);
+          break;
+        }
+        VolumeDirectoryHeader vdh = parentDisk.getVolumeDirectoryHeader ();
+        file = new ProdosDirectory (parentDisk, name, buffer, vdh.totalBlocks,
+            vdh.freeBlocks, vdh.usedBlocks);
+        break;
+
+      case FILE_TYPE_APPLESOFT_BASIC_VARS:
+        if (endOfFile == 0)
+        {
+          System.out.println ("Stored Variables EOF = 0");
+          file = new StoredVariables (name, buffer);
+        }
+        else
+          file = new StoredVariables (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_APPLETALK:
+        file = new DefaultAppleFile (name + " (Appletalk file)", buffer);
+        break;
+
+      case FILE_TYPE_GWP:
+        file = new SimpleText (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_AWP:
+        file = new AppleworksWPFile (name + " (Appleworks Word Processor)", buffer);
+        break;
+
+      case FILE_TYPE_ADB:
+        file = new AppleworksADBFile (name + " (Appleworks Database File)", buffer);
+        break;
+
+      case FILE_TYPE_ASP:
+        file = new AppleworksSSFile (name + " (Appleworks Spreadsheet File)", buffer);
+        break;
+
+      case FILE_TYPE_IIGS_SOURCE:       // I think this has a resource fork
+        file = new SimpleText (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_IIGS_APPLICATION:
+        file = new ObjectModule (name, exactBuffer, auxType);
+        break;
+
+      case FILE_TYPE_IIGS_DEVICE_DRIVER:
+        file = new DeviceDriver (name, exactBuffer, auxType);
+        break;
+
+      case FILE_TYPE_TIF:
+        file = new DefaultAppleFile (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_ICN:
+        file = new IconFile (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_PNT:
+        if (auxType == 2)
+          file = new SHRPictureFile1 (name, exactBuffer, fileType, auxType, endOfFile);
+        else if (endOfFile < 0x222)
+          file = new DefaultAppleFile (name, exactBuffer);
+        else
+          file = new SHRPictureFile2 (name, exactBuffer, fileType, auxType, endOfFile);
+        break;
+
+      case FILE_TYPE_ANI:
+        file = new SHRPictureFile2 (name, exactBuffer, fileType, auxType, endOfFile);
+        break;
+
+      case FILE_TYPE_PIC:
+        file = new SHRPictureFile2 (name, exactBuffer, fileType, auxType, endOfFile);
+        break;
+
+      case FILE_TYPE_FOT:
+        if (auxType == HiResImage.FADDEN_AUX)
+          file = new FaddenHiResImage (name, exactBuffer, fileType, auxType, endOfFile);
+        else if (auxType < 0x4000)
+        {
+          file = new OriginalHiResImage (name, exactBuffer, 0x2000);
+          System.out.printf ("FOT %02X%n", exactBuffer[121]);
+        }
+        else if (auxType == 0x4000)
+        {
+          // packed hi-res
+          System.out.println ("FOT - packed hi res");
+          file = new DefaultAppleFile (name, exactBuffer);
+        }
+        else if (auxType == 0x4001)
+        {
+          // packed double hi-res
+          System.out.println ("FOT - double hi res");
+          file = new DefaultAppleFile (name, exactBuffer);
+        }
+        else
+        {
+          file = new DefaultAppleFile (name, exactBuffer);
+          //   file =
+          //     new OriginalHiResImage (name, exactBuffer, fileType, auxType, endOfFile);
+        }
+        break;
+
+      case FILE_TYPE_FNT:
+        file = new FontFile (name, exactBuffer, auxType);
+        break;
+
+      case FILE_TYPE_FONT:
+        file = new QuickDrawFont (name, exactBuffer, fileType, auxType);
+        break;
+
+      case FILE_TYPE_DESCRIPTOR_TABLE:
+        file = new FileTypeDescriptorTable (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_GSOS_FILE_SYSTEM_TRANSLATOR:
+        file = new FileSystemTranslator (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_PASCAL_VOLUME:
+        file = new PascalArea (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_GEO:
+      case FILE_TYPE_LDF:
+      case FILE_TYPE_PAL:
+      case FILE_TYPE_IIGS_OBJECT:
+        file = new DefaultAppleFile (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_PCD:
+        //        case FILE_TYPE_PDA:
+        file = new PascalCode (name, exactBuffer, 0);
+        break;
+
+      case FILE_TYPE_NON:
+        if (name.endsWith (".TIFF") && HiResImage.isTiff (exactBuffer))
+          file = new OriginalHiResImage (name, exactBuffer, auxType);
+        else
+          file = new DefaultAppleFile (name, exactBuffer);
+        break;
+
+      case FILE_TYPE_FINDER:
+        file = new FinderData (name, exactBuffer);
+        break;
+
+      default:
+        // System.out.format ("%02X  %s  %s - Unknown Prodos file type%n",
+        // fileType, fileTypes[fileType], name);
+        file = new DefaultAppleFile (name, exactBuffer);
+    }
+
+    return file;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private static boolean oneOf (int val, int... values)
+  // ---------------------------------------------------------------------------------//
+  {
+    for (int value : values)
+      if (val == value)
+        return true;
+    return false;
+  }
+}
@@ -1,7 +1,9 @@
 package com.bytezone.diskbrowser.prodos;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.bytezone.diskbrowser.utilities.HexFormatter;
 import com.bytezone.diskbrowser.utilities.Utility;
@@ -30,11 +32,32 @@ public class ResourceFork
     resourceFileHeader = new ResourceFileHeader (buffer);
   }
 
+  // ---------------------------------------------------------------------------------//
   public boolean isValid ()
+  // ---------------------------------------------------------------------------------//
   {
     return resourceFileHeader.resourceMap != null;
   }
 
+  // returns null if there is no such resource
+  // ---------------------------------------------------------------------------------//
+  public byte[] getResource (int type, int id)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (!isValid ())
+      return null;
+
+    ResourceReferenceRecord record = resourceFileHeader.resourceMap.get (type, id);
+    if (record == null || record.resOffset < 0
+        || record.resOffset + record.resSize > buffer.length)
+      return null;
+
+    byte[] resource = new byte[record.resSize];
+    System.arraycopy (buffer, record.resOffset, resource, 0, record.resSize);
+
+    return resource;
+  }
+
   // ---------------------------------------------------------------------------------//
   @Override
   public String toString ()
@@ -97,6 +120,7 @@ public class ResourceFork
     int mapFreeListUsed;
     List<ResourceFreeBlock> resourceFreeBlocks = new ArrayList<> ();
     List<ResourceReferenceRecord> resourceReferenceRecords = new ArrayList<> ();
+    Map<Long, ResourceReferenceRecord> resourceIndex = new HashMap<> ();    // type/id
 
     // -------------------------------------------------------------------------------//
     ResourceMap (byte[] buffer, int ptr, int size)
@@ -132,11 +156,27 @@ public class ResourceFork
       ptr = offset + mapToIndex;
       for (int i = 0; i < mapIndexUsed; i++)
       {
-        resourceReferenceRecords.add (new ResourceReferenceRecord (buffer, ptr));
+        ResourceReferenceRecord record = new ResourceReferenceRecord (buffer, ptr);
+        resourceReferenceRecords.add (record);
+        resourceIndex.putIfAbsent (getKey (record.resType, record.resId), record);
         ptr += 20;
       }
     }
 
+    // -------------------------------------------------------------------------------//
+    ResourceReferenceRecord get (int type, int id)
+    // -------------------------------------------------------------------------------//
+    {
+      return resourceIndex.get (getKey (type, id));
+    }
+
+    // -------------------------------------------------------------------------------//
+    private long getKey (int type, int id)
+    // -------------------------------------------------------------------------------//
+    {
+      return ((long) (type & 0xFFFF) << 32) | (id & 0xFFFFFFFFL);
+    }
+
     // -------------------------------------------------------------------------------//
     @Override
     public String toString ()
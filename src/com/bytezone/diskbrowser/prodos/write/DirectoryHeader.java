@@ -9,6 +9,8 @@ import static com.bytezone.diskbrowser.utilities.Utility.putAppleDate;
 import static com.bytezone.diskbrowser.utilities.Utility.writeShort;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
 
 // -----------------------------------------------------------------------------------//
 public class DirectoryHeader
@@ -16,7 +18,6 @@ public class DirectoryHeader
 {
   static final String UNDERLINE = "--------------------------------------------";
   ProdosDisk disk;
-  byte[] buffer;
   int ptr;
 
   String fileName;
@@ -29,46 +30,66 @@ public class DirectoryHeader
   byte entriesPerBlock = ENTRIES_PER_BLOCK;
   int fileCount;
 
+  // kept in step with the catalog blocks by ProdosDisk, entries are never removed
+  final Map<String, FileEntry> entries = new HashMap<> ();
+  int lastBlockNo;                  // last block in the directory chain
+  int freeSlotPtr;                  // next unused entry, may be past the end of the block
+
   // ---------------------------------------------------------------------------------//
   public DirectoryHeader (ProdosDisk disk, int ptr)
   // ---------------------------------------------------------------------------------//
   {
     this.disk = disk;
-    this.buffer = disk.getBuffer ();
     this.ptr = ptr;
+
+    lastBlockNo = ptr / BLOCK_SIZE;
+    freeSlotPtr = ptr + ENTRY_SIZE;             // the header uses the first slot
+  }
+
+  // ---------------------------------------------------------------------------------//
+  boolean isBlockFull ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return freeSlotPtr >= lastBlockNo * BLOCK_SIZE + 4 + ENTRIES_PER_BLOCK * ENTRY_SIZE;
   }
 
   // ---------------------------------------------------------------------------------//
   void read ()
   // ---------------------------------------------------------------------------------//
   {
-    storageType = (byte) ((buffer[ptr] & 0xF0) >>> 4);
-    int nameLength = buffer[ptr] & 0x0F;
-    fileName = new String (buffer, ptr + 1, nameLength);
-
-    creationDate = getAppleDate (buffer, ptr + 0x18);
-    version = buffer[ptr + 0x1C];
-    minVersion = buffer[ptr + 0x1D];
-    access = buffer[ptr + 0x1E];
-    entryLength = buffer[ptr + 0x1F];
-    entriesPerBlock = buffer[ptr + 0x20];
-    fileCount = getShort (buffer, ptr + 0x21);
+    byte[] buffer = disk.getBlock (ptr / BLOCK_SIZE);
+    int offset = ptr % BLOCK_SIZE;
+
+    storageType = (byte) ((buffer[offset] & 0xF0) >>> 4);
+    int nameLength = buffer[offset] & 0x0F;
+    fileName = new String (buffer, offset + 1, nameLength);
+
+    creationDate = getAppleDate (buffer, offset + 0x18);
+    version = buffer[offset + 0x1C];
+    minVersion = buffer[offset + 0x1D];
+    access = buffer[offset + 0x1E];
+    entryLength = buffer[offset + 0x1F];
+    entriesPerBlock = buffer[offset + 0x20];
+    fileCount = getShort (buffer, offset + 0x21);
   }
 
   // ---------------------------------------------------------------------------------//
   void write ()
   // ---------------------------------------------------------------------------------//
   {
-    buffer[ptr] = (byte) ((storageType << 4) | fileName.length ());
-    System.arraycopy (fileName.getBytes (), 0, buffer, ptr + 1, fileName.length ());
-
-    putAppleDate (buffer, ptr + 0x18, creationDate);
-    buffer[ptr + 0x1C] = version;
-    buffer[ptr + 0x1D] = minVersion;
-    buffer[ptr + 0x1E] = access;
-    buffer[ptr + 0x1F] = entryLength;
-    buffer[ptr + 0x20] = entriesPerBlock;
-    writeShort (buffer, ptr + 0x21, fileCount);
+    byte[] buffer = disk.updateBlock (ptr / BLOCK_SIZE);
+    int offset = ptr % BLOCK_SIZE;
+
+    buffer[offset] = (byte) ((storageType << 4) | fileName.length ());
+    System.arraycopy (fileName.getBytes (), 0, buffer, offset + 1, fileName.length ());
+
+    putAppleDate (buffer, offset + 0x18, creationDate);
+    buffer[offset + 0x1C] = version;
+    buffer[offset + 0x1D] = minVersion;
+    buffer[offset + 0x1E] = access;
+    buffer[offset + 0x1F] = entryLength;
+    buffer[offset + 0x20] = entriesPerBlock;
+    writeShort (buffer, offset + 0x21, fileCount);
   }
 
   // ---------------------------------------------------------------------------------//
@@ -83,22 +104,22 @@ public class DirectoryHeader
 
     do
     {
-      int offset = blockNo * BLOCK_SIZE;
-      int ptr = offset + 4;
+      byte[] buffer = disk.getBlock (blockNo);
+      int ptr = 4;
       for (int i = 0; i < ENTRIES_PER_BLOCK; i++)
       {
         int storageType = (buffer[ptr] & 0xF0) >>> 4;
         int nameLength = buffer[ptr] & 0x0F;
         if (nameLength != 0 && storageType < 0x0E)
         {
-          FileEntry fileEntry = new FileEntry (disk, ptr);
+          FileEntry fileEntry = new FileEntry (disk, blockNo * BLOCK_SIZE + ptr);
           fileEntry.read ();
           System.out.println (fileEntry.toText ());
         }
 
         ptr += ENTRY_SIZE;
       }
-      blockNo = getShort (buffer, offset + 2);
+      blockNo = getShort (buffer, 2);
     } while (blockNo > 0);
     System.out.println ();
   }
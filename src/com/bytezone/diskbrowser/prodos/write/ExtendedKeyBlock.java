@@ -1,5 +1,7 @@
 package com.bytezone.diskbrowser.prodos.write;
 
+import static com.bytezone.diskbrowser.prodos.ProdosConstants.BLOCK_SIZE;
+
 import com.bytezone.diskbrowser.utilities.Utility;
 
 // -----------------------------------------------------------------------------------//
@@ -67,11 +69,15 @@ public class ExtendedKeyBlock
   void write ()
   // ---------------------------------------------------------------------------------//
   {
+    byte[] buffer = new byte[BLOCK_SIZE];
+
     if (dataFork != null)                     // else zero buffer??
-      dataFork.write (disk.getBuffer (), ptr);
+      dataFork.write (buffer, 0);
 
     if (resourceFork != null)
-      resourceFork.write (disk.getBuffer (), ptr + 0x100);
+      resourceFork.write (buffer, 0x100);
+
+    disk.writeData (ptr, buffer, 0, BLOCK_SIZE);
   }
 
   // ---------------------------------------------------------------------------------//
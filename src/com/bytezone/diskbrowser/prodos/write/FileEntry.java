@@ -17,7 +17,6 @@ public class FileEntry
 // -----------------------------------------------------------------------------------//
 {
   private final ProdosDisk disk;
-  private final byte[] buffer;
   private final int ptr;
 
   String fileName;
@@ -39,7 +38,6 @@ public class FileEntry
   // ---------------------------------------------------------------------------------//
   {
     this.disk = disk;
-    this.buffer = disk.getBuffer ();
     this.ptr = ptr;
   }
 
@@ -61,49 +59,55 @@ public class FileEntry
   void read ()
   // ---------------------------------------------------------------------------------//
   {
-    storageType = (byte) ((buffer[ptr] & 0xF0) >>> 4);
+    byte[] buffer = disk.getBlock (ptr / BLOCK_SIZE);
+    int offset = ptr % BLOCK_SIZE;
 
-    int nameLength = buffer[ptr] & 0x0F;
+    storageType = (byte) ((buffer[offset] & 0xF0) >>> 4);
+
+    int nameLength = buffer[offset] & 0x0F;
     if (nameLength > 0)
-      fileName = new String (buffer, ptr + 1, nameLength);
+      fileName = new String (buffer, offset + 1, nameLength);
     else
       fileName = "";
 
-    fileType = buffer[ptr + 0x10];
-    keyPointer = getShort (buffer, ptr + 0x11);
-    blocksUsed = getShort (buffer, ptr + 0x13);
-    eof = readTriple (buffer, ptr + 0x15);
-    creationDate = getAppleDate (buffer, ptr + 0x18);
+    fileType = buffer[offset + 0x10];
+    keyPointer = getShort (buffer, offset + 0x11);
+    blocksUsed = getShort (buffer, offset + 0x13);
+    eof = readTriple (buffer, offset + 0x15);
+    creationDate = getAppleDate (buffer, offset + 0x18);
 
-    version = buffer[ptr + 0x1C];
-    minVersion = buffer[ptr + 0x1D];
-    access = buffer[ptr + 0x1E];
+    version = buffer[offset + 0x1C];
+    minVersion = buffer[offset + 0x1D];
+    access = buffer[offset + 0x1E];
 
-    auxType = getShort (buffer, ptr + 0x1F);
-    modifiedDate = getAppleDate (buffer, ptr + 0x21);
-    headerPointer = getShort (buffer, ptr + 0x25);
+    auxType = getShort (buffer, offset + 0x1F);
+    modifiedDate = getAppleDate (buffer, offset + 0x21);
+    headerPointer = getShort (buffer, offset + 0x25);
   }
 
   // ---------------------------------------------------------------------------------//
   void write ()
   // ---------------------------------------------------------------------------------//
   {
-    buffer[ptr] = (byte) ((storageType << 4) | fileName.length ());
-    System.arraycopy (fileName.getBytes (), 0, buffer, ptr + 1, fileName.length ());
-
-    buffer[ptr + 0x10] = fileType;
-    writeShort (buffer, ptr + 0x11, keyPointer);
-    writeShort (buffer, ptr + 0x13, blocksUsed);
-    writeTriple (buffer, ptr + 0x15, eof);
-    putAppleDate (buffer, ptr + 0x18, creationDate);
-
-    buffer[ptr + 0x1C] = version;
-    buffer[ptr + 0x1D] = minVersion;
-    buffer[ptr + 0x1E] = access;
-
-    writeShort (buffer, ptr + 0x1F, auxType);
-    putAppleDate (buffer, ptr + 0x21, modifiedDate);
-    writeShort (buffer, ptr + 0x25, headerPointer);
+    byte[] buffer = disk.updateBlock (ptr / BLOCK_SIZE);
+    int offset = ptr % BLOCK_SIZE;
+
+    buffer[offset] = (byte) ((storageType << 4) | fileName.length ());
+    System.arraycopy (fileName.getBytes (), 0, buffer, offset + 1, fileName.length ());
+
+    buffer[offset + 0x10] = fileType;
+    writeShort (buffer, offset + 0x11, keyPointer);
+    writeShort (buffer, offset + 0x13, blocksUsed);
+    writeTriple (buffer, offset + 0x15, eof);
+    putAppleDate (buffer, offset + 0x18, creationDate);
+
+    buffer[offset + 0x1C] = version;
+    buffer[offset + 0x1D] = minVersion;
+    buffer[offset + 0x1E] = access;
+
+    writeShort (buffer, offset + 0x1F, auxType);
+    putAppleDate (buffer, offset + 0x21, modifiedDate);
+    writeShort (buffer, offset + 0x25, headerPointer);
   }
 
   // ---------------------------------------------------------------------------------//
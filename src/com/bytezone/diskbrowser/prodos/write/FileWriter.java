@@ -5,6 +5,8 @@ import static com.bytezone.diskbrowser.prodos.ProdosConstants.SAPLING;
 import static com.bytezone.diskbrowser.prodos.ProdosConstants.SEEDLING;
 import static com.bytezone.diskbrowser.prodos.ProdosConstants.TREE;
 
+import java.util.BitSet;
+
 // -----------------------------------------------------------------------------------//
 public class FileWriter
 // -----------------------------------------------------------------------------------//
@@ -19,6 +21,9 @@ public class FileWriter
   int blocksUsed;
   int eof;
 
+  private int nextReservedBlock;        // contiguous blocks from ProdosDisk.allocateBlocks
+  private int lastReservedBlock = -1;
+
   // ---------------------------------------------------------------------------------//
   FileWriter (ProdosDisk disk)
   // ---------------------------------------------------------------------------------//
@@ -32,24 +37,93 @@ public class FileWriter
   {
     this.eof = Math.min (eof, dataBuffer.length);
 
-    int dataPtr = 0;
-    int remaining = this.eof;
+    // blocks of zeroes are left as holes (the first block is always allocated)
+    int dataBlocks = this.eof == 0 ? 0 : (this.eof - 1) / BLOCK_SIZE + 1;
+    BitSet usedBlocks = new BitSet (dataBlocks);
+    for (int logicalBlockNo = 0; logicalBlockNo < dataBlocks; logicalBlockNo++)
+    {
+      int dataPtr = logicalBlockNo * BLOCK_SIZE;
+      int transfer = Math.min (this.eof - dataPtr, BLOCK_SIZE);
+      if (logicalBlockNo == 0 || !isEmpty (dataBuffer, dataPtr, transfer))
+        usedBlocks.set (logicalBlockNo);
+    }
 
-    while (dataPtr < this.eof)
+    // reserve the data and index blocks as one run, and set up the index blocks first
+    // so that each one comes before its data blocks
+    int totalBlocks = getTotalBlocks (usedBlocks, dataBlocks);
+    int firstBlock = disk.allocateBlocks (totalBlocks);
+    if (firstBlock >= 0)
     {
-      int actualBlockNo = allocateNextBlock ();
-      map (dataPtr / BLOCK_SIZE, actualBlockNo);
+      nextReservedBlock = firstBlock;
+      lastReservedBlock = firstBlock + totalBlocks - 1;
+    }
 
-      int bufferPtr = actualBlockNo * BLOCK_SIZE;
-      int transfer = Math.min (remaining, BLOCK_SIZE);
+    if (dataBlocks > 0x100)
+    {
+      masterIndexBlock = new MasterIndexBlock (allocateNextBlock ());
+      keyPointer = masterIndexBlock.blockNo;
+      storageType = TREE;
+    }
+    else if (dataBlocks > 1)
+    {
+      indexBlock = new IndexBlock (allocateNextBlock ());
+      keyPointer = indexBlock.blockNo;
+      storageType = SAPLING;
+    }
 
-      System.arraycopy (dataBuffer, dataPtr, disk.getBuffer (), bufferPtr, transfer);
+    for (int logicalBlockNo = usedBlocks.nextSetBit (0); logicalBlockNo >= 0;
+        logicalBlockNo = usedBlocks.nextSetBit (logicalBlockNo + 1))
+    {
+      if (storageType == TREE)
+        getIndexBlock (logicalBlockNo / 0x100);
 
-      dataPtr += transfer;
-      remaining -= transfer;
+      int actualBlockNo = allocateNextBlock ();
+      map (logicalBlockNo, actualBlockNo);
+
+      int dataPtr = logicalBlockNo * BLOCK_SIZE;
+      int transfer = Math.min (this.eof - dataPtr, BLOCK_SIZE);
+
+      disk.writeData (actualBlockNo * BLOCK_SIZE, dataBuffer, dataPtr, transfer);
     }
 
     writeIndices ();
+
+    disk.releaseBlocks (nextReservedBlock, lastReservedBlock);      // should be none
+    lastReservedBlock = -1;
+  }
+
+  // same as ProdosDisk.getForkBlocks () but without the holes
+  // ---------------------------------------------------------------------------------//
+  private int getTotalBlocks (BitSet usedBlocks, int dataBlocks)
+  // ---------------------------------------------------------------------------------//
+  {
+    int totalBlocks = usedBlocks.cardinality ();
+
+    if (dataBlocks > 0x100)                                   // tree
+    {
+      totalBlocks++;                                          // master index
+      for (int i = 0; i < dataBlocks; i += 0x100)
+      {
+        int nextBlock = usedBlocks.nextSetBit (i);
+        if (nextBlock >= 0 && nextBlock < i + 0x100)
+          totalBlocks++;                                      // index
+      }
+    }
+    else if (dataBlocks > 1)                                  // sapling
+      totalBlocks++;
+
+    return totalBlocks;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private boolean isEmpty (byte[] buffer, int offset, int length)
+  // ---------------------------------------------------------------------------------//
+  {
+    for (int i = offset, max = offset + length; i < max; i++)
+      if (buffer[i] != 0)
+        return false;
+
+    return true;
   }
 
   // ---------------------------------------------------------------------------------//
@@ -73,10 +147,15 @@ public class FileWriter
       int blockOffset = destPtr % BLOCK_SIZE;
       int tfr = Math.min (BLOCK_SIZE - blockOffset, remaining);
 
-      int actualBlockNo = getActualBlockNo (logicalBlockNo);
-      int bufferPtr = actualBlockNo * BLOCK_SIZE + blockOffset;
+      // don't allocate a block just to fill part of it with zeroes
+      if (logicalBlockNo == 0 || getMappedBlockNo (logicalBlockNo) != 0
+          || !isEmpty (dataBuffer, dataPtr, tfr))
+      {
+        int actualBlockNo = getActualBlockNo (logicalBlockNo);
+        int bufferPtr = actualBlockNo * BLOCK_SIZE + blockOffset;
 
-      System.arraycopy (dataBuffer, dataPtr, disk.getBuffer (), bufferPtr, tfr);
+        disk.writeData (bufferPtr, dataBuffer, dataPtr, tfr);
+      }
 
       destPtr += tfr;
       dataPtr += tfr;
@@ -91,6 +170,10 @@ public class FileWriter
   // ---------------------------------------------------------------------------------//
   {
     blocksUsed++;
+
+    if (nextReservedBlock <= lastReservedBlock)
+      return nextReservedBlock++;
+
     return disk.allocateNextBlock ();
   }
 
@@ -98,33 +181,37 @@ public class FileWriter
   private int getActualBlockNo (int logicalBlockNo) throws DiskFullException
   // ---------------------------------------------------------------------------------//
   {
-    int actualBlockNo = 0;
+    int actualBlockNo = getMappedBlockNo (logicalBlockNo);
 
+    if (actualBlockNo == 0)
+    {
+      actualBlockNo = allocateNextBlock ();
+      map (logicalBlockNo, actualBlockNo);
+    }
+
+    return actualBlockNo;
+  }
+
+  // returns zero if the block has not been allocated
+  // ---------------------------------------------------------------------------------//
+  private int getMappedBlockNo (int logicalBlockNo)
+  // ---------------------------------------------------------------------------------//
+  {
     switch (storageType)
     {
       case TREE:
-        actualBlockNo = masterIndexBlock.get (logicalBlockNo / 0x100)
-            .getPosition (logicalBlockNo % 0x100);
-        break;
+        IndexBlock treeIndexBlock = masterIndexBlock.get (logicalBlockNo / 0x100);
+        return treeIndexBlock == null ? 0
+            : treeIndexBlock.getPosition (logicalBlockNo % 0x100);
 
       case SAPLING:
-        if (logicalBlockNo < 0x100)
-          actualBlockNo = indexBlock.getPosition (logicalBlockNo);
-        break;
+        return logicalBlockNo < 0x100 ? indexBlock.getPosition (logicalBlockNo) : 0;
 
       case SEEDLING:
-        if (logicalBlockNo == 0)
-          actualBlockNo = keyPointer;
-        break;
+        return logicalBlockNo == 0 ? keyPointer : 0;
     }
 
-    if (actualBlockNo == 0)
-    {
-      actualBlockNo = allocateNextBlock ();
-      map (logicalBlockNo, actualBlockNo);
-    }
-
-    return actualBlockNo;
+    return 0;
   }
 
   // ---------------------------------------------------------------------------------//
@@ -132,9 +219,9 @@ public class FileWriter
   // ---------------------------------------------------------------------------------//
   {
     if (storageType == TREE)
-      masterIndexBlock.write (disk.getBuffer ());
+      masterIndexBlock.write (disk);
     else if (storageType == SAPLING)
-      indexBlock.write (disk.getBuffer ());
+      indexBlock.write (disk);
   }
 
   // ---------------------------------------------------------------------------------//
@@ -35,25 +35,19 @@ public class IndexBlock
   }
 
   // ---------------------------------------------------------------------------------//
-  void write (byte[] buffer)
+  void write (ProdosDisk disk)
   // ---------------------------------------------------------------------------------//
   {
-    int ptr = blockNo * BLOCK_SIZE;
+    byte[] buffer = new byte[BLOCK_SIZE];
 
     for (int i = 0; i < blocks.length; i++)
     {
-      if (blocks[i] == 0)
-      {
-        buffer[ptr + i] = 0;
-        buffer[ptr + i + 0x100] = 0;
-      }
-      else
-      {
-        int blockNo = blocks[i];
-        buffer[ptr + i] = (byte) (blockNo & 0xFF);
-        buffer[ptr + i + 0x100] = (byte) ((blockNo & 0xFF00) >>> 8);
-      }
+      int blockNo = blocks[i];
+      buffer[i] = (byte) (blockNo & 0xFF);
+      buffer[i + 0x100] = (byte) ((blockNo & 0xFF00) >>> 8);
     }
+
+    disk.writeData (blockNo * BLOCK_SIZE, buffer, 0, BLOCK_SIZE);
   }
 
   // ---------------------------------------------------------------------------------//
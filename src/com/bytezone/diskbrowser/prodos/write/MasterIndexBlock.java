@@ -35,27 +35,24 @@ public class MasterIndexBlock
   }
 
   // ---------------------------------------------------------------------------------//
-  void write (byte[] buffer)
+  void write (ProdosDisk disk)
   // ---------------------------------------------------------------------------------//
   {
-    int ptr = blockNo * BLOCK_SIZE;
+    byte[] buffer = new byte[BLOCK_SIZE];
 
     for (int i = 0; i < indexBlocks.length; i++)
     {
       IndexBlock indexBlock = indexBlocks[i];
-      if (indexBlock == null)
+      if (indexBlock != null)
       {
-        buffer[ptr + i] = 0;
-        buffer[ptr + i + 0x100] = 0;
-      }
-      else
-      {
-        indexBlock.write (buffer);
+        indexBlock.write (disk);
 
         int blockNo = indexBlock.blockNo;
-        buffer[ptr + i] = (byte) (blockNo & 0xFF);
-        buffer[ptr + i + 0x100] = (byte) ((blockNo & 0xFF00) >>> 8);
+        buffer[i] = (byte) (blockNo & 0xFF);
+        buffer[i + 0x100] = (byte) ((blockNo & 0xFF00) >>> 8);
       }
     }
+
+    disk.writeData (blockNo * BLOCK_SIZE, buffer, 0, BLOCK_SIZE);
   }
 }
@@ -5,15 +5,26 @@ import static com.bytezone.diskbrowser.prodos.ProdosConstants.ENTRIES_PER_BLOCK;
 import static com.bytezone.diskbrowser.prodos.ProdosConstants.ENTRY_SIZE;
 import static com.bytezone.diskbrowser.prodos.ProdosConstants.FILE_TYPE_DIRECTORY;
 import static com.bytezone.diskbrowser.prodos.ProdosConstants.SUBDIRECTORY;
-import static com.bytezone.diskbrowser.prodos.ProdosConstants.SUBDIRECTORY_HEADER;
 import static com.bytezone.diskbrowser.utilities.Utility.getShort;
 import static com.bytezone.diskbrowser.utilities.Utility.writeShort;
 
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
 import java.io.DataInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.BitSet;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -36,10 +47,20 @@ public class ProdosDisk
         "Subdirectory", "Subdirectory Header", "Volume Directory Header" };
 
   private BitSet volumeBitMap;
+  private int freeBlocks;
+  private int firstFreeBlock;             // no free blocks below this one
   private final int maxBlocks;
-  private final byte[] buffer;
+  private final byte[] buffer;                    // null when writing to a file
+  private ByteBuffer volume;                      // the buffer, or the mapped file
+  private final FileChannel channel;
+  private final Path path;                        // null when building in memory
+  private boolean closed;
   private final byte[] bootSector = new byte[BLOCK_SIZE];
 
+  // directory blocks are updated here, and copied to the volume by flush ()
+  private final Map<Integer, byte[]> directoryBlocks = new HashMap<> ();
+  private final BitSet dirtyBlocks = new BitSet ();
+
   private VolumeDirectoryHeader volumeDirectoryHeader;
   private Map<Integer, SubdirectoryHeader> subdirectoryHeaders = new TreeMap<> ();
   private List<String> paths = new ArrayList<> ();
@@ -47,6 +68,24 @@ public class ProdosDisk
   // ---------------------------------------------------------------------------------//
   public ProdosDisk (int blocks, String volumeName) throws IOException, DiskFullException
   // ---------------------------------------------------------------------------------//
+  {
+    this (blocks, volumeName, null);
+  }
+
+  // builds the volume directly in the file (eg an HDV), either close () or discard ()
+  // must be called
+  // ---------------------------------------------------------------------------------//
+  public ProdosDisk (Path path, int blocks, String volumeName)
+      throws IOException, DiskFullException
+  // ---------------------------------------------------------------------------------//
+  {
+    this (blocks, volumeName, path);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private ProdosDisk (int blocks, String volumeName, Path path)
+      throws IOException, DiskFullException
+  // ---------------------------------------------------------------------------------//
   {
     try (DataInputStream in = new DataInputStream (ProdosDisk.class.getClassLoader ()
         .getResourceAsStream ("com/bytezone/diskbrowser/prodos/write/block-00.bin")))
@@ -61,11 +100,32 @@ public class ProdosDisk
     }
 
     maxBlocks = blocks;
-    buffer = new byte[blocks * BLOCK_SIZE];
+    this.path = path;
+
+    if (path == null)
+    {
+      channel = null;
+      buffer = new byte[blocks * BLOCK_SIZE];
+      volume = ByteBuffer.wrap (buffer);
+    }
+    else
+    {
+      channel = FileChannel.open (path, CREATE, TRUNCATE_EXISTING, READ, WRITE);
+      buffer = null;
+      try
+      {
+        volume = channel.map (MapMode.READ_WRITE, 0, (long) blocks * BLOCK_SIZE);
+      }
+      catch (IOException e)
+      {
+        discard ();
+        throw e;
+      }
+    }
 
     volumeBitMap = new BitSet (blocks);
-    for (int i = 0; i < blocks; i++)
-      volumeBitMap.set (i, true);
+    volumeBitMap.set (0, blocks);
+    freeBlocks = blocks;
 
     createCatalog (volumeName);
 
@@ -82,8 +142,8 @@ public class ProdosDisk
     allocateNextBlock ();
     allocateNextBlock ();
 
-    System.arraycopy (bootSector, 0, buffer, 0, 512);
-    System.arraycopy (message.getBytes (), 0, buffer, 768, message.length ());
+    writeData (0, bootSector, 0, BLOCK_SIZE);
+    writeData (768, message.getBytes (), 0, message.length ());
 
     // write 4 catalog blocks
     for (int i = 0, prevBlockNo = 0; i < CATALOG_SIZE; i++)
@@ -91,11 +151,10 @@ public class ProdosDisk
       int blockNo = allocateNextBlock ();
       int ptr = blockNo * BLOCK_SIZE;
 
-      writeShort (buffer, ptr, prevBlockNo);
-      writeShort (buffer, ptr + 2, 0);
+      writeShort (updateBlock (blockNo), 0, prevBlockNo);
 
       if (prevBlockNo > 0)
-        writeShort (buffer, prevBlockNo * BLOCK_SIZE + 2, blockNo);
+        writeShort (updateBlock (prevBlockNo), 2, blockNo);
 
       prevBlockNo = blockNo;
 
@@ -117,11 +176,44 @@ public class ProdosDisk
     writeVolumeBitMap ();
   }
 
+  // blocks used by the boot blocks, the volume directory and the volume bitmap
+  // ---------------------------------------------------------------------------------//
+  public static int getOverheadBlocks (int totalBlocks)
+  // ---------------------------------------------------------------------------------//
+  {
+    return 2 + CATALOG_SIZE + (totalBlocks - 1) / BITS_PER_BLOCK + 1;
+  }
+
+  // data blocks plus any index and master index blocks that FileWriter will allocate
+  // ---------------------------------------------------------------------------------//
+  public static int getForkBlocks (int eof)
+  // ---------------------------------------------------------------------------------//
+  {
+    int dataBlocks = (eof - 1) / BLOCK_SIZE + 1;
+
+    if (eof <= 0)
+      return 0;
+    if (dataBlocks == 1)                              // seedling
+      return 1;
+    if (dataBlocks <= 0x100)                          // sapling
+      return dataBlocks + 1;
+
+    return dataBlocks + (dataBlocks - 1) / 0x100 + 2; // tree
+  }
+
+  // key block plus any extra blocks needed to hold the entries of a subdirectory
+  // ---------------------------------------------------------------------------------//
+  public static int getSubdirectoryBlocks (int entries)
+  // ---------------------------------------------------------------------------------//
+  {
+    return entries / ENTRIES_PER_BLOCK + 1;       // the header uses the first slot
+  }
+
   // ---------------------------------------------------------------------------------//
   public int getFreeBlocks ()
   // ---------------------------------------------------------------------------------//
   {
-    return volumeBitMap.cardinality ();
+    return freeBlocks;
   }
 
   // ---------------------------------------------------------------------------------//
@@ -188,11 +280,87 @@ public class ProdosDisk
 
       fileEntry.write ();
       updateFileCount (fileEntry.headerPointer);
+      getDirectoryHeader (catalogBlockNo).entries.put (fileName, fileEntry);
     }
 
     return fileEntry;
   }
 
+  // creates the subdirectory and any missing parents, used for empty folders
+  // ---------------------------------------------------------------------------------//
+  public void addDirectory (String path)
+      throws DiskFullException, VolumeCatalogFullException
+  // ---------------------------------------------------------------------------------//
+  {
+    if (path.isBlank ())
+      throw new IllegalArgumentException ("Path is empty");
+
+    createPath (path.split ("/"));
+  }
+
+  // also allocates all the blocks needed for the entries, so that they are together,
+  // and returns the subdirectory's entry
+  // ---------------------------------------------------------------------------------//
+  public FileEntry addDirectory (String path, int totalEntries)
+      throws DiskFullException, VolumeCatalogFullException
+  // ---------------------------------------------------------------------------------//
+  {
+    if (path.isBlank ())
+      throw new IllegalArgumentException ("Path is empty");
+
+    SubdirectoryHeader directoryHeader =
+        subdirectoryHeaders.get (createPath (path.split ("/")));
+
+    int lastBlockNo = directoryHeader.ptr / BLOCK_SIZE;
+    int nextBlockNo = getShort (getBlock (lastBlockNo), 2);
+    int totalBlocks = 1;
+
+    while (nextBlockNo > 0)                           // find the end of the chain
+    {
+      lastBlockNo = nextBlockNo;
+      nextBlockNo = getShort (getBlock (lastBlockNo), 2);
+      totalBlocks++;
+    }
+
+    while (totalBlocks++ < getSubdirectoryBlocks (totalEntries))
+      lastBlockNo = addCatalogBlock (directoryHeader, lastBlockNo);
+
+    return directoryHeader.getParentFileEntry ();
+  }
+
+  // replaces the values that addFile () and addDirectory () set, eg when copying an
+  // existing volume (a directory's modified date changes whenever it grows)
+  // ---------------------------------------------------------------------------------//
+  public void setAttributes (FileEntry fileEntry, LocalDateTime created,
+      LocalDateTime modified, int version, int minVersion, int access)
+  // ---------------------------------------------------------------------------------//
+  {
+    fileEntry.creationDate = created;
+    fileEntry.modifiedDate = modified;
+    fileEntry.version = (byte) version;
+    fileEntry.minVersion = (byte) minVersion;
+    fileEntry.access = (byte) access;
+
+    fileEntry.write ();
+  }
+
+  // directoryEntry is null for the volume directory header
+  // ---------------------------------------------------------------------------------//
+  public void setHeaderAttributes (FileEntry directoryEntry, LocalDateTime created,
+      int version, int minVersion, int access)
+  // ---------------------------------------------------------------------------------//
+  {
+    DirectoryHeader directoryHeader = directoryEntry == null ? volumeDirectoryHeader
+        : subdirectoryHeaders.get (directoryEntry.keyPointer);
+
+    directoryHeader.creationDate = created;
+    directoryHeader.version = (byte) version;
+    directoryHeader.minVersion = (byte) minVersion;
+    directoryHeader.access = (byte) access;
+
+    directoryHeader.write ();
+  }
+
   // ---------------------------------------------------------------------------------//
   private int createPath (String[] subdirectories)
       throws DiskFullException, VolumeCatalogFullException
@@ -314,11 +482,29 @@ public class ProdosDisk
   public void close ()
   // ---------------------------------------------------------------------------------//
   {
+    if (closed)
+      return;
+    closed = true;
+
     writeVolumeBitMap ();
     volumeDirectoryHeader.write ();
     for (SubdirectoryHeader subdirectoryHeader : subdirectoryHeaders.values ())
       subdirectoryHeader.write ();
 
+    flush ();
+
+    if (channel != null)
+      try
+      {
+        ((MappedByteBuffer) volume).force ();
+        volume = null;                // the file stays mapped until this is collected
+        channel.close ();
+      }
+      catch (IOException e)
+      {
+        e.printStackTrace ();
+      }
+
     if (false)
     {
       System.out.printf ("Verifying %s files%n", paths.size ());
@@ -336,44 +522,66 @@ public class ProdosDisk
     //    display ();
   }
 
+  // releases and deletes an image file that couldn't be finished, does nothing if the
+  // volume has already been closed. Returns false if the file could not be deleted.
   // ---------------------------------------------------------------------------------//
-  private Optional<FileEntry> searchDirectory (int blockNo, String fileName)
+  public boolean discard ()
   // ---------------------------------------------------------------------------------//
   {
-    int emptySlotPtr = 0;
+    if (closed)
+      return true;
+    closed = true;
+
+    if (channel == null)
+      return true;
 
-    do
+    // a mapped file can't be deleted on some systems (eg Windows) until the mapping
+    // has been collected
+    volume = null;
+
+    try
     {
-      int offset = blockNo * BLOCK_SIZE;
-      int ptr = offset + 4;
-      for (int i = 0; i < ENTRIES_PER_BLOCK; i++)
+      channel.close ();
+      if (!delete ())
       {
-        int storageTypeNameLength = buffer[ptr] & 0xFF;
-        if (storageTypeNameLength == 0)
-        {
-          if (emptySlotPtr == 0)
-            emptySlotPtr = ptr;
-        }
-        else
-        {
-          int nameLength = buffer[ptr] & 0x0F;
-          int storageType = (buffer[ptr] & 0xF0) >>> 4;
-
-          if (storageType < SUBDIRECTORY_HEADER
-              && fileName.equals (new String (buffer, ptr + 1, nameLength)))
-          {
-            FileEntry fileEntry = new FileEntry (this, ptr);
-            fileEntry.read ();
-            return Optional.of (fileEntry);
-          }
-        }
-
-        ptr += ENTRY_SIZE;
+        System.gc ();
+        return delete ();
       }
-      blockNo = getShort (buffer, offset + 2);
-    } while (blockNo > 0);
+      return true;
+    }
+    catch (IOException e)
+    {
+      return false;
+    }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private boolean delete ()
+  // ---------------------------------------------------------------------------------//
+  {
+    try
+    {
+      Files.deleteIfExists (path);
+      return true;
+    }
+    catch (IOException e)
+    {
+      return false;
+    }
+  }
 
-    return Optional.empty ();
+  // ---------------------------------------------------------------------------------//
+  private Optional<FileEntry> searchDirectory (int blockNo, String fileName)
+  // ---------------------------------------------------------------------------------//
+  {
+    return Optional.ofNullable (getDirectoryHeader (blockNo).entries.get (fileName));
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private DirectoryHeader getDirectoryHeader (int blockNo)
+  // ---------------------------------------------------------------------------------//
+  {
+    return blockNo == 2 ? volumeDirectoryHeader : subdirectoryHeaders.get (blockNo);
   }
 
   // ---------------------------------------------------------------------------------//
@@ -403,6 +611,7 @@ public class ProdosDisk
     fileEntry.write ();
 
     updateFileCount (fileEntry.headerPointer);
+    getDirectoryHeader (blockNo).entries.put (name, fileEntry);
 
     SubdirectoryHeader subdirectoryHeader =
         new SubdirectoryHeader (this, fileEntry.keyPointer * BLOCK_SIZE + 4);
@@ -440,15 +649,57 @@ public class ProdosDisk
   int allocateNextBlock () throws DiskFullException
   // ---------------------------------------------------------------------------------//
   {
-    int nextBlock = volumeBitMap.nextSetBit (0);
+    int nextBlock = volumeBitMap.nextSetBit (firstFreeBlock);
     if (nextBlock < 0)
       throw new DiskFullException ("Disk Full");
 
     volumeBitMap.set (nextBlock, false);      // mark as unavailable
+    firstFreeBlock = nextBlock + 1;
+    --freeBlocks;
 
     return nextBlock;
   }
 
+  // first run of free blocks that is long enough, returns -1 if there isn't one
+  // ---------------------------------------------------------------------------------//
+  int allocateBlocks (int totalBlocks)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (totalBlocks <= 0 || totalBlocks > freeBlocks)
+      return -1;
+
+    int start = volumeBitMap.nextSetBit (firstFreeBlock);
+    while (start >= 0)
+    {
+      int end = volumeBitMap.nextClearBit (start);      // first used block after the run
+      if (end - start >= totalBlocks)
+      {
+        volumeBitMap.clear (start, start + totalBlocks);
+        if (start == firstFreeBlock)
+          firstFreeBlock = start + totalBlocks;
+        freeBlocks -= totalBlocks;
+
+        return start;
+      }
+      start = volumeBitMap.nextSetBit (end);
+    }
+
+    return -1;
+  }
+
+  // return blocks from allocateBlocks () that were not used
+  // ---------------------------------------------------------------------------------//
+  void releaseBlocks (int firstBlock, int lastBlock)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (lastBlock < firstBlock)
+      return;
+
+    volumeBitMap.set (firstBlock, lastBlock + 1);
+    firstFreeBlock = Math.min (firstFreeBlock, firstBlock);
+    freeBlocks += lastBlock - firstBlock + 1;
+  }
+
   // ---------------------------------------------------------------------------------//
   private FileEntry findFreeSlot (int blockNo)
       throws DiskFullException, VolumeCatalogFullException
@@ -458,50 +709,53 @@ public class ProdosDisk
     if (blockNo == 2 && volumeDirectoryHeader.fileCount == 51)
       throw new VolumeCatalogFullException ("Volume Directory is full");   // stupid
 
-    // get the subdirectory header before the blockNo can change
-    SubdirectoryHeader subdirectoryHeader = subdirectoryHeaders.get (blockNo);
-
-    int lastBlockNo = 0;      // used for linking directory blocks
+    DirectoryHeader directoryHeader = getDirectoryHeader (blockNo);
 
-    do
+    // entries are only ever added, so the next free slot follows the last one used
+    while (directoryHeader.isBlockFull ())
     {
-      int offset = blockNo * BLOCK_SIZE;
-      int ptr = offset + 4;
+      int lastBlockNo = directoryHeader.lastBlockNo;
+      int nextBlockNo = getShort (getBlock (lastBlockNo), 2);
 
-      for (int i = 0; i < ENTRIES_PER_BLOCK; i++)
-      {
-        if (buffer[ptr] == 0)         // free slot
-          return new FileEntry (this, ptr);
+      if (nextBlockNo == 0)                   // no free slots, so add a new catalog block
+        nextBlockNo = addCatalogBlock (directoryHeader, lastBlockNo);
 
-        ptr += ENTRY_SIZE;
-      }
+      directoryHeader.lastBlockNo = nextBlockNo;
+      directoryHeader.freeSlotPtr = nextBlockNo * BLOCK_SIZE + 4;
+    }
 
-      lastBlockNo = blockNo;
-      blockNo = getShort (buffer, offset + 2);      // next block
-    } while (blockNo > 0);
+    FileEntry fileEntry = new FileEntry (this, directoryHeader.freeSlotPtr);
+    directoryHeader.freeSlotPtr += ENTRY_SIZE;
 
-    if (subdirectoryHeader == null)         // this should be impossible
+    return fileEntry;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private int addCatalogBlock (DirectoryHeader directoryHeader, int lastBlockNo)
+      throws DiskFullException, VolumeCatalogFullException
+  // ---------------------------------------------------------------------------------//
+  {
+    if (directoryHeader == volumeDirectoryHeader)     // should be impossible
       throw new VolumeCatalogFullException ("Volume Directory is full");
 
-    // no free slots, so add a new catalog block
-    blockNo = allocateNextBlock ();
+    int nextBlockNo = allocateNextBlock ();
 
     // update links
-    int ptr = blockNo * BLOCK_SIZE;
-    writeShort (buffer, lastBlockNo * BLOCK_SIZE + 2, blockNo);   // point to next block
-    writeShort (buffer, ptr, lastBlockNo);                        // point to previous block
+    writeShort (updateBlock (lastBlockNo), 2, nextBlockNo);      // next block
+    writeShort (updateBlock (nextBlockNo), 0, lastBlockNo);      // previous block
 
-    // update parent's file entry size (this is the subdirectory file entry
-    subdirectoryHeader.updateParentFileEntry ();
+    // update parent's file entry size (this is the subdirectory file entry)
+    ((SubdirectoryHeader) directoryHeader).updateParentFileEntry ();
 
-    return new FileEntry (this, ptr + 4);      // first slot in new block
+    return nextBlockNo;
   }
 
   // ---------------------------------------------------------------------------------//
   private void writeVolumeBitMap ()
   // ---------------------------------------------------------------------------------//
   {
-    int ptr = (2 + CATALOG_SIZE) * BLOCK_SIZE;
+    byte[] bitMap = new byte[((maxBlocks - 1) / BITS_PER_BLOCK + 1) * BLOCK_SIZE];
+    int ptr = 0;
     int val = 0;
     int blockNo = 0;
 
@@ -513,16 +767,60 @@ public class ProdosDisk
 
       if (blockNo % 8 == 0)
       {
-        buffer[ptr++] = (byte) val;
+        bitMap[ptr++] = (byte) val;
         val = 0;
       }
     }
+
+    if (blockNo % 8 != 0)                                 // last few blocks
+      bitMap[ptr] = (byte) (val << (8 - blockNo % 8));
+
+    writeData ((2 + CATALOG_SIZE) * BLOCK_SIZE, bitMap, 0, bitMap.length);
+  }
+
+  // file data, index blocks etc are only written once, so they go straight to the volume
+  // ---------------------------------------------------------------------------------//
+  void writeData (int ptr, byte[] data, int dataPtr, int length)
+  // ---------------------------------------------------------------------------------//
+  {
+    volume.put (ptr, data, dataPtr, length);
   }
 
+  // ---------------------------------------------------------------------------------//
+  byte[] getBlock (int blockNo)
+  // ---------------------------------------------------------------------------------//
+  {
+    return directoryBlocks.computeIfAbsent (blockNo, k -> new byte[BLOCK_SIZE]);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  byte[] updateBlock (int blockNo)
+  // ---------------------------------------------------------------------------------//
+  {
+    dirtyBlocks.set (blockNo);
+    return getBlock (blockNo);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void flush ()
+  // ---------------------------------------------------------------------------------//
+  {
+    for (int blockNo = dirtyBlocks.nextSetBit (0); blockNo >= 0;
+        blockNo = dirtyBlocks.nextSetBit (blockNo + 1))
+      volume.put (blockNo * BLOCK_SIZE, directoryBlocks.get (blockNo));
+
+    dirtyBlocks.clear ();
+  }
+
+  // only available when the volume is built in memory
   // ---------------------------------------------------------------------------------//
   public byte[] getBuffer ()
   // ---------------------------------------------------------------------------------//
   {
+    if (buffer == null)
+      throw new IllegalStateException ("Volume is being written to a file");
+
+    flush ();
     return buffer;
   }
 
@@ -14,6 +14,7 @@ public class SubdirectoryHeader extends DirectoryHeader
   private int parentPointer;
   private byte parentEntry;
   private byte parentEntryLength;
+  private FileEntry parentFileEntry;
 
   // ---------------------------------------------------------------------------------//
   public SubdirectoryHeader (ProdosDisk disk, int ptr)
@@ -32,17 +33,21 @@ public class SubdirectoryHeader extends DirectoryHeader
     parentPointer = fileEntry.getBlockNo ();
     parentEntry = (byte) fileEntry.getEntryNo ();
     parentEntryLength = ENTRY_SIZE;
+    parentFileEntry = fileEntry;
   }
 
   // ---------------------------------------------------------------------------------//
   FileEntry getParentFileEntry ()
   // ---------------------------------------------------------------------------------//
   {
-    FileEntry fileEntry = new FileEntry (disk,
-        parentPointer * BLOCK_SIZE + (parentEntry - 1) * ENTRY_SIZE + 4);
-    fileEntry.read ();
-
-    return fileEntry;
+    if (parentFileEntry == null)
+    {
+      parentFileEntry = new FileEntry (disk,
+          parentPointer * BLOCK_SIZE + (parentEntry - 1) * ENTRY_SIZE + 4);
+      parentFileEntry.read ();
+    }
+
+    return parentFileEntry;
   }
 
   // ---------------------------------------------------------------------------------//
@@ -63,9 +68,12 @@ public class SubdirectoryHeader extends DirectoryHeader
   {
     super.read ();
 
-    parentPointer = getShort (buffer, ptr + 0x23);
-    parentEntry = buffer[ptr + 0x25];
-    parentEntryLength = buffer[ptr + 0x26];
+    byte[] buffer = disk.getBlock (ptr / BLOCK_SIZE);
+    int offset = ptr % BLOCK_SIZE;
+
+    parentPointer = getShort (buffer, offset + 0x23);
+    parentEntry = buffer[offset + 0x25];
+    parentEntryLength = buffer[offset + 0x26];
 
     assert parentPointer > 0;
   }
@@ -77,18 +85,21 @@ public class SubdirectoryHeader extends DirectoryHeader
   {
     super.write ();
 
-    buffer[ptr + 0x10] = 0x75;                  // subdirectory header must be 0x75
+    byte[] buffer = disk.updateBlock (ptr / BLOCK_SIZE);
+    int offset = ptr % BLOCK_SIZE;
+
+    buffer[offset + 0x10] = 0x75;               // subdirectory header must be 0x75
 
     // these are supposed to be unused, but prodos fills them in
-    //    buffer[ptr + 0x11] = version;
-    //    buffer[ptr + 0x13] = access;
-    //    buffer[ptr + 0x14] = parentEntryLength;
-    //    buffer[ptr + 0x15] = entriesPerBlock;
+    //    buffer[offset + 0x11] = version;
+    //    buffer[offset + 0x13] = access;
+    //    buffer[offset + 0x14] = parentEntryLength;
+    //    buffer[offset + 0x15] = entriesPerBlock;
 
     // fields specific to subdirectory headers
-    writeShort (buffer, ptr + 0x23, parentPointer);
-    buffer[ptr + 0x25] = parentEntry;
-    buffer[ptr + 0x26] = parentEntryLength;
+    writeShort (buffer, offset + 0x23, parentPointer);
+    buffer[offset + 0x25] = parentEntry;
+    buffer[offset + 0x26] = parentEntryLength;
   }
 
   // ---------------------------------------------------------------------------------//
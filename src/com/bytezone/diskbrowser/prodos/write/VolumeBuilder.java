@@ -0,0 +1,450 @@
+package com.bytezone.diskbrowser.prodos.write;
+
+import static com.bytezone.diskbrowser.prodos.ProdosConstants.FILE_TYPE_NON;
+import static com.bytezone.diskbrowser.prodos.ProdosConstants.FILE_TYPE_TEXT;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Builds a ProDOS volume from a folder on the host. Reading the files, working out
+// their ProDOS types and preparing the buffers is done in parallel, only the block
+// allocation and catalog updates in ProdosDisk are sequential.
+//
+// File types come from (in order):
+//   - an AppleSingle header (ProDOS file info, real name and resource fork)
+//   - a NuLib/CiderPress style suffix, eg. BASIC.SYSTEM#FF2000
+//   - the file's extension, eg. .txt, .bas, .bin
+// -----------------------------------------------------------------------------------//
+public class VolumeBuilder
+// -----------------------------------------------------------------------------------//
+{
+  private static final int[] diskSizes = { 280, 800, 1600, 3200, 6400, 65535 };
+  private static final int APPLE_SINGLE = 0x00051600;
+  private static final Map<String, int[]> suffixTypes = new HashMap<> ();
+
+  private final Path folder;
+  private final String volumeName;
+  private final List<HostFile> hostFiles;
+  private final Map<String, Integer> catalogEntries = new TreeMap<> ();
+  private int totalBlocks;
+
+  static
+  {
+    suffixTypes.put ("txt", new int[] { 0x04, 0x0000 });
+    suffixTypes.put ("text", new int[] { 0x04, 0x0000 });
+    suffixTypes.put ("s", new int[] { 0x04, 0x0000 });
+    suffixTypes.put ("bin", new int[] { 0x06, 0x2000 });
+    suffixTypes.put ("int", new int[] { 0xFA, 0x0000 });
+    suffixTypes.put ("bas", new int[] { 0xFC, 0x0801 });
+    suffixTypes.put ("sys", new int[] { 0xFF, 0x2000 });
+    suffixTypes.put ("system", new int[] { 0xFF, 0x2000 });
+    suffixTypes.put ("shr", new int[] { 0xC1, 0x0000 });
+    suffixTypes.put ("pic", new int[] { 0xC1, 0x0000 });
+    suffixTypes.put ("awp", new int[] { 0x1A, 0x0000 });
+    suffixTypes.put ("shk", new int[] { 0xE0, 0x8002 });
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public VolumeBuilder (Path folder) throws IOException
+  // ---------------------------------------------------------------------------------//
+  {
+    this.folder = folder;
+    this.volumeName = getProdosName (folder.getFileName ().toString ());
+
+    List<Path> paths;
+    try (Stream<Path> stream = Files.walk (folder))
+    {
+      paths = stream.filter (path -> !path.equals (folder) && !isHidden (path)).sorted ()
+          .collect (Collectors.toList ());
+    }
+
+    // read and prepare every file using all cores, the order of the list is kept
+    hostFiles = paths.parallelStream ().map (this::prepare).filter (Objects::nonNull)
+        .collect (Collectors.toList ());
+
+    calculateTotalBlocks ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private boolean isHidden (Path path)
+  // ---------------------------------------------------------------------------------//
+  {
+    for (Path part : folder.relativize (path))
+      if (part.toString ().startsWith ("."))
+        return true;
+
+    return false;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private HostFile prepare (Path path)
+  // ---------------------------------------------------------------------------------//
+  {
+    try
+    {
+      return new HostFile (path);
+    }
+    catch (IOException e)
+    {
+      System.out.printf ("Error reading %s : %s%n", path, e.getMessage ());
+      return null;
+    }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private void calculateTotalBlocks ()
+  // ---------------------------------------------------------------------------------//
+  {
+    totalBlocks = 0;
+
+    for (HostFile hostFile : hostFiles)
+    {
+      int pos = hostFile.prodosPath.lastIndexOf ('/');
+      catalogEntries.merge (pos < 0 ? "" : hostFile.prodosPath.substring (0, pos), 1,
+          Integer::sum);
+
+      if (hostFile.isDirectory)
+        catalogEntries.putIfAbsent (hostFile.prodosPath, 0);
+      else
+      {
+        totalBlocks += ProdosDisk.getForkBlocks (hostFile.dataFork.length);
+        if (hostFile.resourceFork != null)
+          totalBlocks += ProdosDisk.getForkBlocks (hostFile.resourceFork.length) + 1;
+      }
+    }
+
+    for (Map.Entry<String, Integer> entry : catalogEntries.entrySet ())
+      if (!entry.getKey ().isEmpty ())          // volume directory is a fixed size
+        totalBlocks += ProdosDisk.getSubdirectoryBlocks (entry.getValue ());
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public int getTotalBlocks ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return totalBlocks;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public int getTotalFiles ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return hostFiles.size ();
+  }
+
+  // smallest standard size that holds everything
+  // ---------------------------------------------------------------------------------//
+  public int getVolumeSize () throws DiskFullException
+  // ---------------------------------------------------------------------------------//
+  {
+    for (int diskSize : diskSizes)
+      if (diskSize >= totalBlocks + ProdosDisk.getOverheadBlocks (diskSize))
+        return diskSize;
+
+    throw new DiskFullException ("Files need more than " + diskSizes[diskSizes.length - 1]
+        + " blocks");
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public ProdosDisk build () throws IOException, DiskFullException,
+      VolumeCatalogFullException
+  // ---------------------------------------------------------------------------------//
+  {
+    return build (new ProdosDisk (getVolumeSize (), volumeName));
+  }
+
+  // writes the volume directly to the image file
+  // ---------------------------------------------------------------------------------//
+  public ProdosDisk build (Path imageFile) throws IOException, DiskFullException,
+      VolumeCatalogFullException
+  // ---------------------------------------------------------------------------------//
+  {
+    ProdosDisk disk = new ProdosDisk (imageFile, getVolumeSize (), volumeName);
+    try
+    {
+      return build (disk);
+    }
+    finally
+    {
+      // if the build failed before closing the disk
+      if (!disk.discard ())
+        System.out.printf ("Unable to delete %s%n", imageFile);
+    }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private ProdosDisk build (ProdosDisk disk) throws DiskFullException,
+      VolumeCatalogFullException
+  // ---------------------------------------------------------------------------------//
+  {
+    for (HostFile hostFile : hostFiles)
+    {
+      if (hostFile.isDirectory)
+      {
+        disk.addDirectory (hostFile.prodosPath);
+        continue;
+      }
+
+      try
+      {
+        FileEntry fileEntry = disk.addFile (hostFile.prodosPath, (byte) hostFile.fileType,
+            hostFile.auxType, hostFile.created, hostFile.modified, hostFile.dataFork,
+            hostFile.dataFork.length);
+
+        if (hostFile.resourceFork != null)
+          disk.addResourceFork (fileEntry, hostFile.resourceFork,
+              hostFile.resourceFork.length);
+      }
+      catch (FileAlreadyExistsException e)
+      {
+        System.out.printf ("File %s not added (%s)%n", hostFile.prodosPath, hostFile.path);
+      }
+    }
+
+    disk.close ();
+
+    return disk;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private String getProdosPath (Path path, String name)
+  // ---------------------------------------------------------------------------------//
+  {
+    StringBuilder text = new StringBuilder ();
+
+    Path parent = folder.relativize (path).getParent ();
+    if (parent != null)
+      for (Path part : parent)
+        text.append (getProdosName (part.toString ())).append ('/');
+
+    return text.append (getProdosName (name)).toString ();
+  }
+
+  // letters, digits and periods, starting with a letter, 15 characters at most
+  // ---------------------------------------------------------------------------------//
+  static String getProdosName (String name)
+  // ---------------------------------------------------------------------------------//
+  {
+    StringBuilder text = new StringBuilder ();
+
+    for (char c : name.toUpperCase (Locale.ROOT).toCharArray ())
+      text.append ((c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') ? c : '.');
+
+    if (text.length () == 0 || text.charAt (0) < 'A' || text.charAt (0) > 'Z')
+      text.insert (0, 'A');
+
+    return text.length () > 15 ? text.substring (0, 15) : text.toString ();
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public static void main (String[] args)
+  // ---------------------------------------------------------------------------------//
+  {
+    if (args.length != 2)
+    {
+      System.out.println ("Usage: VolumeBuilder <folder> <image.po>");
+      return;
+    }
+
+    try
+    {
+      long start = System.nanoTime ();
+      VolumeBuilder builder = new VolumeBuilder (Paths.get (args[0]));
+      long prepared = System.nanoTime ();
+      ProdosDisk disk = builder.build (Paths.get (args[1]));
+      long built = System.nanoTime ();
+
+      System.out.printf ("%,d files, %,d blocks used of %,d%n", builder.getTotalFiles (),
+          builder.getVolumeSize () - disk.getFreeBlocks (), builder.getVolumeSize ());
+      System.out.printf ("prepare: %,d ms  build: %,d ms%n",
+          (prepared - start) / 1_000_000, (built - prepared) / 1_000_000);
+    }
+    catch (Exception e)
+    {
+      e.printStackTrace ();
+    }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private class HostFile
+  // ---------------------------------------------------------------------------------//
+  {
+    private final Path path;
+    private final boolean isDirectory;
+    private final LocalDateTime created;
+    private final LocalDateTime modified;
+
+    private String prodosPath;
+    private int fileType = FILE_TYPE_NON;
+    private int auxType;
+    private byte[] dataFork;
+    private byte[] resourceFork;
+
+    // -------------------------------------------------------------------------------//
+    HostFile (Path path) throws IOException
+    // -------------------------------------------------------------------------------//
+    {
+      this.path = path;
+
+      BasicFileAttributes attributes =
+          Files.readAttributes (path, BasicFileAttributes.class);
+      isDirectory = attributes.isDirectory ();
+      created = LocalDateTime.ofInstant (attributes.creationTime ().toInstant (),
+          ZoneId.systemDefault ());
+      modified = LocalDateTime.ofInstant (attributes.lastModifiedTime ().toInstant (),
+          ZoneId.systemDefault ());
+
+      String name = path.getFileName ().toString ();
+
+      if (isDirectory)
+      {
+        prodosPath = getProdosPath (path, name);
+        return;
+      }
+
+      dataFork = Files.readAllBytes (path);
+
+      if (dataFork.length >= 26 && ByteBuffer.wrap (dataFork).getInt () == APPLE_SINGLE)
+        name = readAppleSingle (name);
+      else
+        name = setFileType (name);
+
+      prodosPath = getProdosPath (path, name);
+    }
+
+    // -------------------------------------------------------------------------------//
+    private String setFileType (String name)
+    // -------------------------------------------------------------------------------//
+    {
+      // NAME#TTAAAA - file type and aux type in hex
+      int pos = name.lastIndexOf ('#');
+      if (pos > 0 && name.length () == pos + 7)
+        try
+        {
+          int value = Integer.parseInt (name.substring (pos + 1), 16);
+          fileType = value >>> 16;
+          auxType = value & 0xFFFF;
+          return name.substring (0, pos);
+        }
+        catch (NumberFormatException e)
+        {
+          // not a type suffix
+        }
+
+      pos = name.lastIndexOf ('.');
+      int[] types = pos > 0
+          ? suffixTypes.get (name.substring (pos + 1).toLowerCase (Locale.ROOT)) : null;
+
+      if (types != null)
+      {
+        fileType = types[0];
+        auxType = types[1];
+        name = name.substring (0, pos);
+
+        if (fileType == FILE_TYPE_TEXT)
+          dataFork = toProdosText (dataFork);
+      }
+
+      return name;
+    }
+
+    // -------------------------------------------------------------------------------//
+    private String readAppleSingle (String name)
+    // -------------------------------------------------------------------------------//
+    {
+      ByteBuffer buffer = ByteBuffer.wrap (dataFork);       // big-endian
+      int totalEntries = buffer.getShort (24) & 0xFFFF;
+      byte[] data = new byte[0];
+
+      int ptr = 26;
+      for (int i = 0; i < totalEntries && ptr + 12 <= dataFork.length; i++, ptr += 12)
+      {
+        int id = buffer.getInt (ptr);
+        int offset = buffer.getInt (ptr + 4);
+        int length = buffer.getInt (ptr + 8);
+
+        if (offset < 0 || length < 0 || offset + length > dataFork.length)
+          continue;
+
+        switch (id)
+        {
+          case 1:                                   // data fork
+            data = copy (offset, length);
+            break;
+
+          case 2:                                   // resource fork
+            if (length > 0)
+              resourceFork = copy (offset, length);
+            break;
+
+          case 3:                                   // real name
+            name = new String (dataFork, offset, length);
+            break;
+
+          case 11:                                  // ProDOS file info
+            if (length >= 8)
+            {
+              fileType = buffer.getShort (offset + 2) & 0xFF;
+              auxType = buffer.getInt (offset + 4) & 0xFFFF;
+            }
+            break;
+        }
+      }
+
+      dataFork = data;
+
+      return name;
+    }
+
+    // -------------------------------------------------------------------------------//
+    private byte[] copy (int offset, int length)
+    // -------------------------------------------------------------------------------//
+    {
+      byte[] buffer = new byte[length];
+      System.arraycopy (dataFork, offset, buffer, 0, length);
+      return buffer;
+    }
+
+    // host line endings (LF or CRLF) become CR
+    // -------------------------------------------------------------------------------//
+    private byte[] toProdosText (byte[] buffer)
+    // -------------------------------------------------------------------------------//
+    {
+      byte[] text = new byte[buffer.length];
+      int ptr = 0;
+
+      for (int i = 0; i < buffer.length; i++)
+      {
+        byte b = buffer[i];
+        if (b == 0x0A)
+        {
+          if (i > 0 && buffer[i - 1] == 0x0D)       // CR already copied
+            continue;
+          b = 0x0D;
+        }
+        text[ptr++] = b;
+      }
+
+      if (ptr == buffer.length)
+        return text;
+
+      byte[] exactBuffer = new byte[ptr];
+      System.arraycopy (text, 0, exactBuffer, 0, ptr);
+      return exactBuffer;
+    }
+  }
+}
@@ -1,5 +1,6 @@
 package com.bytezone.diskbrowser.prodos.write;
 
+import static com.bytezone.diskbrowser.prodos.ProdosConstants.BLOCK_SIZE;
 import static com.bytezone.diskbrowser.utilities.Utility.getShort;
 import static com.bytezone.diskbrowser.utilities.Utility.writeShort;
 
@@ -26,8 +27,11 @@ public class VolumeDirectoryHeader extends DirectoryHeader
   {
     super.read ();
 
-    bitMapPointer = getShort (buffer, ptr + 0x23);
-    totalBlocks = getShort (buffer, ptr + 0x25);
+    byte[] buffer = disk.getBlock (ptr / BLOCK_SIZE);
+    int offset = ptr % BLOCK_SIZE;
+
+    bitMapPointer = getShort (buffer, offset + 0x23);
+    totalBlocks = getShort (buffer, offset + 0x25);
   }
 
   // ---------------------------------------------------------------------------------//
@@ -37,8 +41,11 @@ public class VolumeDirectoryHeader extends DirectoryHeader
   {
     super.write ();
 
-    writeShort (buffer, ptr + 0x23, bitMapPointer);
-    writeShort (buffer, ptr + 0x25, totalBlocks);
+    byte[] buffer = disk.updateBlock (ptr / BLOCK_SIZE);
+    int offset = ptr % BLOCK_SIZE;
+
+    writeShort (buffer, offset + 0x23, bitMapPointer);
+    writeShort (buffer, offset + 0x25, totalBlocks);
   }
 
   // ---------------------------------------------------------------------------------//
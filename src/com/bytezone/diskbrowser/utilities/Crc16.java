@@ -0,0 +1,135 @@
+package com.bytezone.diskbrowser.utilities;
+
+import java.nio.ByteBuffer;
+import java.util.zip.Checksum;
+
+// CRC-16/XMODEM (polynomial 0x1021, msb first) as used by NuFX headers and threads.
+// The table is sliced eight ways so that long runs are processed a word at a time.
+// -----------------------------------------------------------------------------------//
+public class Crc16 implements Checksum
+// -----------------------------------------------------------------------------------//
+{
+  private static final int POLYNOMIAL = 0x1021;
+  private static final int[][] table = new int[8][256];
+
+  private final int initialValue;
+  private int crc;
+
+  // ---------------------------------------------------------------------------------//
+  static
+  // ---------------------------------------------------------------------------------//
+  {
+    for (int i = 0; i < 256; i++)
+    {
+      int crc = i << 8;
+      for (int bit = 0; bit < 8; bit++)
+        crc = (crc & 0x8000) != 0 ? (crc << 1) ^ POLYNOMIAL : crc << 1;
+      table[0][i] = crc & 0xFFFF;
+    }
+
+    // table[n][i] is the crc of byte i followed by n zero bytes
+    for (int n = 1; n < 8; n++)
+      for (int i = 0; i < 256; i++)
+      {
+        int crc = table[n - 1][i];
+        table[n][i] = ((crc << 8) ^ table[0][crc >>> 8]) & 0xFFFF;
+      }
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public Crc16 ()
+  // ---------------------------------------------------------------------------------//
+  {
+    this (0);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public Crc16 (int initialValue)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.initialValue = initialValue & 0xFFFF;
+    crc = this.initialValue;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  public static int crc16 (byte[] buffer, int offset, int length, int initialValue)
+  // ---------------------------------------------------------------------------------//
+  {
+    return update (initialValue & 0xFFFF, buffer, offset, length);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  private static int update (int crc, byte[] buffer, int offset, int length)
+  // ---------------------------------------------------------------------------------//
+  {
+    int max = offset + length;
+
+    while (offset + 8 <= max)
+    {
+      crc = table[7][((crc >>> 8) ^ buffer[offset]) & 0xFF]
+          ^ table[6][(crc ^ buffer[offset + 1]) & 0xFF]     //
+          ^ table[5][buffer[offset + 2] & 0xFF]             //
+          ^ table[4][buffer[offset + 3] & 0xFF]             //
+          ^ table[3][buffer[offset + 4] & 0xFF]             //
+          ^ table[2][buffer[offset + 5] & 0xFF]             //
+          ^ table[1][buffer[offset + 6] & 0xFF]             //
+          ^ table[0][buffer[offset + 7] & 0xFF];
+      offset += 8;
+    }
+
+    while (offset < max)
+      crc = ((crc << 8) ^ table[0][((crc >>> 8) ^ buffer[offset++]) & 0xFF]) & 0xFFFF;
+
+    return crc;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public void update (int b)
+  // ---------------------------------------------------------------------------------//
+  {
+    crc = ((crc << 8) ^ table[0][((crc >>> 8) ^ b) & 0xFF]) & 0xFFFF;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public void update (byte[] buffer, int offset, int length)
+  // ---------------------------------------------------------------------------------//
+  {
+    crc = update (crc, buffer, offset, length);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public void update (ByteBuffer buffer)
+  // ---------------------------------------------------------------------------------//
+  {
+    int position = buffer.position ();
+    int limit = buffer.limit ();
+
+    if (buffer.hasArray ())
+      crc = update (crc, buffer.array (), buffer.arrayOffset () + position,
+          limit - position);
+    else
+      for (int i = position; i < limit; i++)
+        update (buffer.get (i));
+
+    buffer.position (limit);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public long getValue ()
+  // ---------------------------------------------------------------------------------//
+  {
+    return crc;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  @Override
+  public void reset ()
+  // ---------------------------------------------------------------------------------//
+  {
+    crc = initialValue;
+  }
+}
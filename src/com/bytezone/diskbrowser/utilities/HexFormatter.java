@@ -1,5 +1,9 @@
 package com.bytezone.diskbrowser.utilities;
 
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+
 // -----------------------------------------------------------------------------------//
 public class HexFormatter
 // -----------------------------------------------------------------------------------//
@@ -7,6 +11,30 @@ public class HexFormatter
   private static String[] hex =
       { "0", "1", "2", "3", "4", "5", "6", "7", "8", "9", "A", "B", "C", "D", "E", "F" };
 
+  private static final int ROW_LENGTH = 8 + 3 + 48 + 2 + 16 + 2;    // with two newlines
+  private static final char[] hexDigits = "0123456789ABCDEF".toCharArray ();
+  private static final char[] hexPairs = new char[512];     // two digits for each byte
+  private static final char[] printable = new char[256];    // '.' if non-printable
+
+  static
+  {
+    for (int i = 0; i < 256; i++)
+    {
+      hexPairs[i * 2] = hexDigits[i >>> 4];
+      hexPairs[i * 2 + 1] = hexDigits[i & 0x0F];
+
+      int c = i;
+      if (c > 127)
+      {
+        if (c < 160)
+          c -= 64;
+        else
+          c -= 128;
+      }
+      printable[i] = c < 32 || c == 127 ? '.' : (char) c;
+    }
+  }
+
   // ---------------------------------------------------------------------------------//
   public static String format (byte[] buffer)
   // ---------------------------------------------------------------------------------//
@@ -55,73 +83,98 @@ public class HexFormatter
       int startingAddress)
   // ---------------------------------------------------------------------------------//
   {
-    StringBuilder line = new StringBuilder ();
-    int[] freq = new int[256];
+    StringBuilder text = new StringBuilder ((length / 16 + 2) * ROW_LENGTH);
+
+    try
+    {
+      format (text, buffer, offset, length, header, startingAddress);
+    }
+    catch (IOException e)
+    {
+      e.printStackTrace ();               // never thrown by a StringBuilder
+    }
+
+    return text.toString ();
+  }
+
+  // Writes the hex dump one row at a time, so a whole volume can be sent to a Writer
+  // without building the complete text first.
+  // ---------------------------------------------------------------------------------//
+  public static void format (Appendable out, byte[] buffer, int offset, int length,
+      boolean header, int startingAddress) throws IOException
+  // ---------------------------------------------------------------------------------//
+  {
+    char[] row = new char[ROW_LENGTH];
+    boolean started = false;                // anything written yet
     boolean startedOnBoundary = offset % 0x100 == 0;
 
     if (header)
     {
-      line.append ("      ");
+      int ptr = 0;
+      for (int i = 0; i < 6; i++)
+        row[ptr++] = ' ';
       for (int i = 0; i < 16; i++)
-        line.append ("  " + hex[i]);
+      {
+        row[ptr++] = ' ';
+        row[ptr++] = ' ';
+        row[ptr++] = hexDigits[i];
+      }
       if (offset == 0)
-        line.append ("\n");
+        row[ptr++] = '\n';
+      write (out, row, ptr);
+      started = true;
     }
 
-    for (int i = offset; i < offset + length; i += 16)
+    int last = offset + length;
+    for (int i = offset; i < last; i += 16)
     {
-      if (line.length () > 0 && i > 0)
-        line.append ("\n");
+      int ptr = 0;
+      if (started && i > 0)
+        row[ptr++] = '\n';
       if (i > offset && startedOnBoundary && (i % 0x200) == 0)
-        line.append ("\n");
-
-      // print offset
-      line.append (String.format ("%05X : ", (startingAddress + i - offset)));
-
-      // print hex values
-      StringBuffer trans = new StringBuffer ();
-      StringBuffer hexLine = new StringBuffer ();
-
-      int max = Math.min (i + 16, offset + length);
-      max = Math.min (max, buffer.length);
+        row[ptr++] = '\n';
+
+      // print offset, at least five digits
+      int address = startingAddress + i - offset;
+      int digits = Math.max (5, (35 - Integer.numberOfLeadingZeros (address)) / 4);
+      for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4)
+        row[ptr++] = hexDigits[(address >>> shift) & 0x0F];
+      row[ptr++] = ' ';
+      row[ptr++] = ':';
+      row[ptr++] = ' ';
+
+      // print hex values, padded to 16 columns, then the translation
+      int max = Math.min (Math.min (i + 16, last), buffer.length);
+      int hexEnd = ptr + 48;
+      int transPtr = hexEnd + 2;
       for (int j = i; j < max; j++)
       {
         int c = buffer[j] & 0xFF;
-        freq[c]++;
-        hexLine.append (String.format ("%02X ", c));
-
-        if (c > 127)
-        {
-          if (c < 160)
-            c -= 64;
-          else
-            c -= 128;
-        }
-        if (c < 32 || c == 127)         // non-printable
-          trans.append (".");
-        else                            // standard ascii
-          trans.append ((char) c);
+        row[ptr++] = hexPairs[c * 2];
+        row[ptr++] = hexPairs[c * 2 + 1];
+        row[ptr++] = ' ';
+        row[transPtr++] = printable[c];
       }
-      while (hexLine.length () < 48)
-        hexLine.append (" ");
+      while (ptr < hexEnd)
+        row[ptr++] = ' ';
+      row[ptr++] = ':';
+      row[ptr++] = ' ';
 
-      line.append (hexLine.toString () + ": " + trans.toString ());
+      write (out, row, transPtr);
+      started = true;
     }
+  }
 
-    if (false)
-    {
-      line.append ("\n\n");
-      int totalBits = 0;
-      for (int i = 0; i < freq.length; i++)
-        if (freq[i] > 0)
-        {
-          totalBits += (Integer.bitCount (i) * freq[i]);
-          line.append (
-              String.format ("%02X  %3d   %d%n", i, freq[i], Integer.bitCount (i)));
-        }
-      line.append (String.format ("%nTotal bits : %d%n", totalBits));
-    }
-    return line.toString ();
+  // ---------------------------------------------------------------------------------//
+  private static void write (Appendable out, char[] chars, int length) throws IOException
+  // ---------------------------------------------------------------------------------//
+  {
+    if (out instanceof StringBuilder text)
+      text.append (chars, 0, length);
+    else if (out instanceof Writer writer)
+      writer.write (chars, 0, length);
+    else
+      out.append (CharBuffer.wrap (chars, 0, length));
   }
 
   // ---------------------------------------------------------------------------------//
@@ -235,7 +288,7 @@ public class HexFormatter
     int max = Math.min (offset + length, buffer.length);
     for (int i = offset; i < max; i++)
     {
-      hex.append (String.format ("%02X", buffer[i]));
+      hex.append (hexPairs, (buffer[i] & 0xFF) * 2, 2);
       if (space)
         hex.append (' ');
     }
@@ -254,7 +307,7 @@ public class HexFormatter
     StringBuilder hex = new StringBuilder ();
     for (int i = length - 1; i >= 0; i--)
     {
-      hex.append (String.format ("%02X", buffer[offset + i]));
+      hex.append (hexPairs, (buffer[offset + i] & 0xFF) * 2, 2);
       if (space)
         hex.append (' ');
     }
@@ -0,0 +1,49 @@
+package com.bytezone.diskbrowser.wizardry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.bytezone.diskbrowser.disk.Disk;
+import com.bytezone.diskbrowser.disk.DiskAddress;
+
+// All the blocks of a file, read from the disk in one pass. Ranges of blocks are
+// found by their offset in the shared buffer instead of being read again.
+// -----------------------------------------------------------------------------------//
+class FileBlocks
+// -----------------------------------------------------------------------------------//
+{
+  final byte[] buffer;
+  final List<DiskAddress> blocks;
+  final int blockSize;
+
+  // ---------------------------------------------------------------------------------//
+  FileBlocks (Disk disk, List<DiskAddress> blocks)
+  // ---------------------------------------------------------------------------------//
+  {
+    this.blocks = blocks;
+    blockSize = disk.getBlockSize ();
+    buffer = disk.readBlocks (blocks);
+  }
+
+  // ---------------------------------------------------------------------------------//
+  int getOffset (int blockNo)
+  // ---------------------------------------------------------------------------------//
+  {
+    return blockNo * blockSize;
+  }
+
+  // ---------------------------------------------------------------------------------//
+  List<DiskAddress> getBlocks (int firstBlock, int totalBlocks)
+  // ---------------------------------------------------------------------------------//
+  {
+    return new ArrayList<> (blocks.subList (firstBlock, firstBlock + totalBlocks));
+  }
+
+  // ---------------------------------------------------------------------------------//
+  byte[] copy (int offset, int length)
+  // ---------------------------------------------------------------------------------//
+  {
+    return Arrays.copyOfRange (buffer, offset, offset + length);
+  }
+}
@@ -35,12 +35,14 @@ class Header
   public int scenarioID;
   List<ScenarioData> data = new ArrayList<> (8);
   FormattedDisk owner;
+  private final FileBlocks dataBlocks;
 
   // ---------------------------------------------------------------------------------//
-  Header (DefaultMutableTreeNode dataNode, FormattedDisk owner)
+  Header (DefaultMutableTreeNode dataNode, FormattedDisk owner, FileBlocks dataBlocks)
   // ---------------------------------------------------------------------------------//
   {
     this.owner = owner;
+    this.dataBlocks = dataBlocks;
 
     AppleFileSource afs = (AppleFileSource) dataNode.getUserObject ();
     List<DiskAddress> sectors = afs.getSectors ();
@@ -83,18 +85,19 @@ class Header
     if (scenarioID > 3)
       return;
 
-    int totalBlocks = data.get (0).sectors.size ();
-    linkText ("Text", data.get (0).sectors.get (0), headerNode);
+    int firstBlock = data.get (0).dataOffset;
+    int lastBlock = firstBlock + data.get (0).sectors.size () - 1;
+    linkText ("Text", firstBlock, headerNode);
 
     if (scenarioID < 3)
     {
-      linkPictures ("Alphabet", data.get (0).sectors.get (1), headerNode);
-      linkPictures ("Graphics", data.get (0).sectors.get (2), headerNode);
-      linkPictures ("Unknown", data.get (0).sectors.get (3), headerNode);
+      linkPictures ("Alphabet", firstBlock + 1, headerNode);
+      linkPictures ("Graphics", firstBlock + 2, headerNode);
+      linkPictures ("Unknown", firstBlock + 3, headerNode);
     }
 
-    linkSpells ("Mage spells", data.get (0).sectors.get (totalBlocks - 2), headerNode);
-    linkSpells ("Priest spells", data.get (0).sectors.get (totalBlocks - 1), headerNode);
+    linkSpells ("Mage spells", lastBlock - 1, headerNode);
+    linkSpells ("Priest spells", lastBlock, headerNode);
 
     if (false && scenarioID <= 2)
     {
@@ -104,16 +107,16 @@ class Header
   }
 
   // ---------------------------------------------------------------------------------//
-  private void linkText (String title, DiskAddress da, DefaultMutableTreeNode headerNode)
+  private void linkText (String title, int blockNo, DefaultMutableTreeNode headerNode)
   // ---------------------------------------------------------------------------------//
   {
-    List<DiskAddress> blocks = new ArrayList<> ();
-    blocks.add (da);
+    List<DiskAddress> blocks = dataBlocks.getBlocks (blockNo, 1);
 
     StringBuilder text = new StringBuilder (scenarioTitle + "\n\n");
 
-    int ptr = 106;
-    byte[] buffer = owner.getDisk ().readBlock (da);
+    int offset = dataBlocks.getOffset (blockNo);
+    int ptr = offset + 106;
+    byte[] buffer = dataBlocks.buffer;
     while (buffer[ptr] != -1)
     {
       text.append (HexFormatter.getPascalString (buffer, ptr) + "\n");
@@ -121,7 +124,7 @@ class Header
     }
     ptr += 2;
     text.append ("\n");
-    while (ptr < 512)
+    while (ptr < offset + 512)
     {
       int value = Utility.getShort (buffer, ptr);
       text.append (String.format ("%04X  %,6d%n", value, value));
@@ -137,15 +140,11 @@ class Header
   }
 
   // ---------------------------------------------------------------------------------//
-  private void linkPictures (String title, DiskAddress da,
-      DefaultMutableTreeNode headerNode)
+  private void linkPictures (String title, int blockNo, DefaultMutableTreeNode headerNode)
   // ---------------------------------------------------------------------------------//
   {
-    List<DiskAddress> blocks = new ArrayList<> ();
-    blocks.add (da);
-
-    byte[] buffer = owner.getDisk ().readBlock (da);
-    String text = printChars (buffer, 0);
+    List<DiskAddress> blocks = dataBlocks.getBlocks (blockNo, 1);
+    String text = printChars (dataBlocks.buffer, blockNo);
 
     DefaultAppleFileSource dafs = new DefaultAppleFileSource (title, text, owner);
     dafs.setSectors (blocks);
@@ -155,17 +154,15 @@ class Header
   }
 
   // ---------------------------------------------------------------------------------//
-  private void linkSpells (String title, DiskAddress da,
-      DefaultMutableTreeNode headerNode)
+  private void linkSpells (String title, int blockNo, DefaultMutableTreeNode headerNode)
   // ---------------------------------------------------------------------------------//
   {
-    List<DiskAddress> blocks = new ArrayList<> ();
-    blocks.add (da);
+    List<DiskAddress> blocks = dataBlocks.getBlocks (blockNo, 1);
     int level = 1;
 
     StringBuilder list = new StringBuilder ("Level " + level + ":\n");
-    byte[] buffer = owner.getDisk ().readBlock (da);
-    String text = HexFormatter.getString (buffer, 0, 512);
+    String text =
+        HexFormatter.getString (dataBlocks.buffer, dataBlocks.getOffset (blockNo), 512);
     String[] spells = text.split ("\n");
     for (String s : spells)
     {
@@ -96,7 +96,9 @@ public class Wizardry4BootDisk extends PascalDisk
       {
         fileEntry.setFile (null);
         scenarioNode.setAllowsChildren (true);
-        scenarioHeader = new Header (scenarioNode, this);
+        FileBlocks dataBlocks = new FileBlocks (disk, fileEntry.getSectors ());
+        fileEntry.getDataSource (dataBlocks.buffer);    // the header needs the file
+        scenarioHeader = new Header (scenarioNode, this, dataBlocks);
         linkMazeLevels4 (scenarioNode, fileEntry);
       }
     }
@@ -15,6 +15,7 @@ import com.bytezone.diskbrowser.disk.Disk;
 import com.bytezone.diskbrowser.disk.DiskAddress;
 import com.bytezone.diskbrowser.disk.SectorType;
 import com.bytezone.diskbrowser.gui.DataSource;
+import com.bytezone.diskbrowser.pascal.FileEntry;
 import com.bytezone.diskbrowser.pascal.PascalDisk;
 import com.bytezone.diskbrowser.utilities.HexFormatter;
 import com.bytezone.diskbrowser.utilities.Utility;
@@ -85,17 +86,20 @@ public class WizardryScenarioDisk extends PascalDisk
     dataNode.setAllowsChildren (true);
     msgNode.setAllowsChildren (true);
 
-    scenarioHeader = new Header (dataNode, this);
+    // each file is read once, and everything below works from its buffer
+    FileEntry fileEntry = (FileEntry) dataNode.getUserObject ();
+    FileBlocks sectors = new FileBlocks (disk, fileEntry.getSectors ());
+    fileEntry.getDataSource (sectors.buffer);         // the header needs the file
+
+    scenarioHeader = new Header (dataNode, this, sectors);
 
     // Process SCENARIO.MESGS (requires scenario)
     AppleFileSource afs = (AppleFileSource) msgNode.getUserObject ();
     //    DefaultMutableTreeNode node = linkNode ("Messages", "Messages string", msgNode);
-    extractMessages (msgNode, afs.getSectors ());
+    extractMessages (msgNode, new FileBlocks (disk, afs.getSectors ()));
     //		makeNodeVisible (node);
 
     // Process SCENARIO.DATA (requires scenario and messages)
-    afs = (AppleFileSource) dataNode.getUserObject ();
-    List<DiskAddress> sectors = afs.getSectors ();
 
     extractItems (linkNode ("Items", "Items string", dataNode), sectors);
     extractRewards (linkNode ("Rewards", "Treasure string", dataNode), sectors);
@@ -184,7 +188,7 @@ public class WizardryScenarioDisk extends PascalDisk
   }
 
   // ---------------------------------------------------------------------------------//
-  private void extractRewards (DefaultMutableTreeNode node, List<DiskAddress> sectors)
+  private void extractRewards (DefaultMutableTreeNode node, FileBlocks sectors)
   // ---------------------------------------------------------------------------------//
   {
     List<DiskAddress> nodeSectors = new ArrayList<> ();
@@ -195,10 +199,11 @@ public class WizardryScenarioDisk extends PascalDisk
     int seq = 0;
     for (int i = 0; i < max; i++)
     {
-      List<DiskAddress> blocks = getTwoBlocks (sd, i, sectors);
+      int blockNo = sd.dataOffset + i * 2;
+      List<DiskAddress> blocks = sectors.getBlocks (blockNo, 2);
       nodeSectors.addAll (blocks);
-      byte[] buffer = disk.readBlocks (blocks);
-      seq = addReward (buffer, blocks, node, seq);
+      int offset = sectors.getOffset (blockNo);
+      seq = addReward (sectors, offset, blocks, node, seq);
     }
 
     StringBuilder text = new StringBuilder ();
@@ -212,15 +217,14 @@ public class WizardryScenarioDisk extends PascalDisk
   }
 
   // ---------------------------------------------------------------------------------//
-  private int addReward (byte[] buffer, List<DiskAddress> blocks,
+  private int addReward (FileBlocks sectors, int offset, List<DiskAddress> blocks,
       DefaultMutableTreeNode node, int seq)
   // ---------------------------------------------------------------------------------//
   {
     int recLen = 168;
-    for (int ptr = 0; ptr < 1008; ptr += recLen)
+    for (int ptr = offset; ptr < offset + 1008; ptr += recLen)
     {
-      byte[] data2 = new byte[recLen];
-      System.arraycopy (buffer, ptr, data2, 0, recLen);
+      byte[] data2 = sectors.copy (ptr, recLen);
 
       Reward tt = new Reward ("Type " + seq, data2, seq++, items);
       rewards.add (tt);
@@ -230,7 +234,7 @@ public class WizardryScenarioDisk extends PascalDisk
   }
 
   // ---------------------------------------------------------------------------------//
-  private void extractCharacters (DefaultMutableTreeNode node, List<DiskAddress> sectors)
+  private void extractCharacters (DefaultMutableTreeNode node, FileBlocks sectors)
   // ---------------------------------------------------------------------------------//
   {
     List<DiskAddress> nodeSectors = new ArrayList<> ();
@@ -242,10 +246,11 @@ public class WizardryScenarioDisk extends PascalDisk
 
     for (int i = 0; i < max; i++)
     {
-      List<DiskAddress> blocks = getTwoBlocks (sd, i, sectors);
+      int blockNo = sd.dataOffset + i * 2;
+      List<DiskAddress> blocks = sectors.getBlocks (blockNo, 2);
       nodeSectors.addAll (blocks);
-      byte[] buffer = disk.readBlocks (blocks);
-      addCharacters (buffer, blocks, node);
+      int offset = sectors.getOffset (blockNo);
+      addCharacters (sectors, offset, blocks, node);
     }
 
     StringBuilder text = new StringBuilder ();
@@ -273,20 +278,20 @@ public class WizardryScenarioDisk extends PascalDisk
   }
 
   // ---------------------------------------------------------------------------------//
-  private void addCharacters (byte[] buffer, List<DiskAddress> blocks,
+  private void addCharacters (FileBlocks sectors, int offset, List<DiskAddress> blocks,
       DefaultMutableTreeNode node)
   // ---------------------------------------------------------------------------------//
   {
+    byte[] buffer = sectors.buffer;
     int recLen = 208;
-    for (int ptr = 0; ptr < 832; ptr += recLen)
+    for (int ptr = offset; ptr < offset + 832; ptr += recLen)
     {
       int nameLength = buffer[ptr] & 0xFF;
       if (nameLength == 0xC3 || buffer[ptr + 40] == 0x07)
         continue;
       String name = HexFormatter.getString (buffer, ptr + 1, nameLength);
 
-      byte[] data2 = new byte[recLen];
-      System.arraycopy (buffer, ptr, data2, 0, recLen);
+      byte[] data2 = sectors.copy (ptr, recLen);
 
       Character c = new Character (name, data2, scenarioHeader.scenarioID);
       characters.add (c);
@@ -295,7 +300,7 @@ public class WizardryScenarioDisk extends PascalDisk
   }
 
   // ---------------------------------------------------------------------------------//
-  private void extractMonsters (DefaultMutableTreeNode node, List<DiskAddress> sectors)
+  private void extractMonsters (DefaultMutableTreeNode node, FileBlocks sectors)
   // ---------------------------------------------------------------------------------//
   {
     List<DiskAddress> nodeSectors = new ArrayList<> ();
@@ -305,10 +310,11 @@ public class WizardryScenarioDisk extends PascalDisk
 
     for (int i = 0; i < max; i++)
     {
-      List<DiskAddress> blocks = getTwoBlocks (sd, i, sectors);
+      int blockNo = sd.dataOffset + i * 2;
+      List<DiskAddress> blocks = sectors.getBlocks (blockNo, 2);
       nodeSectors.addAll (blocks);
-      byte[] buffer = disk.readBlocks (blocks);
-      addMonsters (buffer, blocks, node);
+      int offset = sectors.getOffset (blockNo);
+      addMonsters (sectors, offset, blocks, node);
     }
 
     StringBuilder text = new StringBuilder ();
@@ -330,20 +336,20 @@ public class WizardryScenarioDisk extends PascalDisk
   }
 
   // ---------------------------------------------------------------------------------//
-  private void addMonsters (byte[] buffer, List<DiskAddress> blocks,
+  private void addMonsters (FileBlocks sectors, int offset, List<DiskAddress> blocks,
       DefaultMutableTreeNode node)
   // ---------------------------------------------------------------------------------//
   {
+    byte[] buffer = sectors.buffer;
     int recLen = 158;
-    for (int ptr = 0; ptr < 948; ptr += recLen)
+    for (int ptr = offset; ptr < offset + 948; ptr += recLen)
     {
       int nameLength = buffer[ptr + 32] & 0xFF;
       if (nameLength == 0 || nameLength == 255)
         break;
       String itemName = HexFormatter.getString (buffer, ptr + 33, nameLength);
 
-      byte[] data2 = new byte[recLen];
-      System.arraycopy (buffer, ptr, data2, 0, recLen);
+      byte[] data2 = sectors.copy (ptr, recLen);
 
       Monster m = new Monster (itemName, data2, rewards, monsters);
       monsters.add (m);
@@ -352,7 +358,7 @@ public class WizardryScenarioDisk extends PascalDisk
   }
 
   // ---------------------------------------------------------------------------------//
-  private void extractItems (DefaultMutableTreeNode node, List<DiskAddress> sectors)
+  private void extractItems (DefaultMutableTreeNode node, FileBlocks sectors)
   // ---------------------------------------------------------------------------------//
   {
     List<DiskAddress> nodeSectors = new ArrayList<> ();
@@ -362,10 +368,11 @@ public class WizardryScenarioDisk extends PascalDisk
 
     for (int i = 0; i < max; i++)
     {
-      List<DiskAddress> blocks = getTwoBlocks (sd, i, sectors);
+      int blockNo = sd.dataOffset + i * 2;
+      List<DiskAddress> blocks = sectors.getBlocks (blockNo, 2);
       nodeSectors.addAll (blocks);
-      byte[] buffer = disk.readBlocks (blocks);
-      addItems (buffer, blocks, node);
+      int offset = sectors.getOffset (blockNo);
+      addItems (sectors, offset, blocks, node);
     }
 
     StringBuilder text = new StringBuilder ();
@@ -387,19 +394,19 @@ public class WizardryScenarioDisk extends PascalDisk
   }
 
   // ---------------------------------------------------------------------------------//
-  private void addItems (byte[] buffer, List<DiskAddress> blocks,
+  private void addItems (FileBlocks sectors, int offset, List<DiskAddress> blocks,
       DefaultMutableTreeNode node)
   // ---------------------------------------------------------------------------------//
   {
+    byte[] buffer = sectors.buffer;
     int recLen = 78;
-    for (int ptr = 0; ptr < 1014; ptr += recLen)
+    for (int ptr = offset; ptr < offset + 1014; ptr += recLen)
     {
       if (buffer[ptr] == 0)
         break;
       String itemName = HexFormatter.getPascalString (buffer, ptr);
 
-      byte[] data2 = new byte[recLen];
-      System.arraycopy (buffer, ptr, data2, 0, recLen);
+      byte[] data2 = sectors.copy (ptr, recLen);
 
       Item i = new Item (itemName, data2);
       items.add (i);
@@ -408,19 +415,16 @@ public class WizardryScenarioDisk extends PascalDisk
   }
 
   // ---------------------------------------------------------------------------------//
-  private void extractSpells (DefaultMutableTreeNode node, List<DiskAddress> sectors)
+  private void extractSpells (DefaultMutableTreeNode node, FileBlocks sectors)
   // ---------------------------------------------------------------------------------//
   {
     spells = new ArrayList<> ();
-    List<DiskAddress> blocks = new ArrayList<> (2);
     int offset = scenarioHeader.scenarioID <= 2 ? 4 : 1;
-    blocks.add (sectors.get (offset));
-    blocks.add (sectors.get (offset + 1));
 
     SpellType spellType = SpellType.MAGE;
-    for (DiskAddress da : blocks)
+    for (int blockNo = offset; blockNo < offset + 2; blockNo++)
     {
-      byte[] buffer = disk.readBlock (da);
+      byte[] buffer = sectors.copy (sectors.getOffset (blockNo), sectors.blockSize);
       int level = 1;
       int ptr = -1;
       while (ptr < 255)
@@ -446,7 +450,7 @@ public class WizardryScenarioDisk extends PascalDisk
   }
 
   // ---------------------------------------------------------------------------------//
-  private void extractMessages (DefaultMutableTreeNode node, List<DiskAddress> sectors)
+  private void extractMessages (DefaultMutableTreeNode node, FileBlocks sectors)
   // ---------------------------------------------------------------------------------//
   {
     Message.resetMessageId ();
@@ -455,13 +459,12 @@ public class WizardryScenarioDisk extends PascalDisk
     // Copy first 504 bytes from each sector to a single contiguous buffer
     int recordLength = 42;
     int max = recordLength * 12;
-    byte[] buffer = new byte[sectors.size () * max];
+    byte[] buffer = new byte[sectors.blocks.size () * max];
     int offset = 0;
 
-    for (DiskAddress da : sectors)
+    for (int blockNo = 0; blockNo < sectors.blocks.size (); blockNo++)
     {
-      byte[] tempBuffer = disk.readBlock (da);
-      System.arraycopy (tempBuffer, 0, buffer, offset, max);
+      System.arraycopy (sectors.buffer, sectors.getOffset (blockNo), buffer, offset, max);
       offset += max;
     }
 
@@ -495,7 +498,7 @@ public class WizardryScenarioDisk extends PascalDisk
           offset = p2 % max;
           if (blockNo != lastBlock)
           {
-            messageBlocks.add (sectors.get (blockNo));
+            messageBlocks.add (sectors.blocks.get (blockNo));
             lastBlock = blockNo;
           }
         }
@@ -507,7 +510,7 @@ public class WizardryScenarioDisk extends PascalDisk
   }
 
   // ---------------------------------------------------------------------------------//
-  private void extractLevels (DefaultMutableTreeNode node, List<DiskAddress> sectors)
+  private void extractLevels (DefaultMutableTreeNode node, FileBlocks sectors)
   // ---------------------------------------------------------------------------------//
   {
     List<DiskAddress> nodeSectors = new ArrayList<> ();
@@ -517,11 +520,11 @@ public class WizardryScenarioDisk extends PascalDisk
 
     for (int i = 0; i < max; i++)
     {
-      List<DiskAddress> blocks = getTwoBlocks (sd, i, sectors);
+      int blockNo = sd.dataOffset + i * 2;
+      List<DiskAddress> blocks = sectors.getBlocks (blockNo, 2);
       nodeSectors.addAll (blocks);
-      byte[] buffer = disk.readBlocks (blocks);
-      byte[] data2 = new byte[896];
-      System.arraycopy (buffer, 0, data2, 0, data2.length);
+      int offset = sectors.getOffset (blockNo);
+      byte[] data2 = sectors.copy (offset, 896);
       //      System.out.println (HexFormatter.format (data2));
 
       MazeLevel mazeLevel = new MazeLevel (data2, i + 1);
@@ -543,7 +546,7 @@ public class WizardryScenarioDisk extends PascalDisk
   }
 
   // ---------------------------------------------------------------------------------//
-  private void extractImages (DefaultMutableTreeNode node, List<DiskAddress> sectors)
+  private void extractImages (DefaultMutableTreeNode node, FileBlocks sectors)
   // ---------------------------------------------------------------------------------//
   {
     List<DiskAddress> nodeSectors = new ArrayList<> ();
@@ -553,11 +556,9 @@ public class WizardryScenarioDisk extends PascalDisk
 
     for (int i = 0; i < max; i++)
     {
-      DiskAddress da = sectors.get (sd.dataOffset + i);
+      DiskAddress da = sectors.blocks.get (sd.dataOffset + i);
       nodeSectors.add (da);
-      byte[] buffer = disk.readBlock (da);
-      byte[] exactBuffer = new byte[480];
-      System.arraycopy (buffer, 0, exactBuffer, 0, exactBuffer.length);
+      int offset = sectors.getOffset (sd.dataOffset + i);
 
       String name = "Unknown";
       for (Monster m : monsters)
@@ -567,8 +568,9 @@ public class WizardryScenarioDisk extends PascalDisk
           break;
         }
 
-      AbstractImage mi = scenarioHeader.scenarioID < 3 ? new Image (name, buffer)
-          : new ImageV2 (name, exactBuffer);
+      AbstractImage mi =
+          scenarioHeader.scenarioID < 3 ? new Image (name, sectors.copy (offset, 512))
+              : new ImageV2 (name, sectors.copy (offset, 480));
       images.add (mi);
       addToNode (mi, node, da, imageSector);
     }
@@ -585,7 +587,7 @@ public class WizardryScenarioDisk extends PascalDisk
 
   // ---------------------------------------------------------------------------------//
   private void extractExperienceLevels (DefaultMutableTreeNode node,
-      List<DiskAddress> sectors)
+      FileBlocks sectors)
   // ---------------------------------------------------------------------------------//
   {
     List<DiskAddress> nodeSectors = new ArrayList<> ();
@@ -595,17 +597,17 @@ public class WizardryScenarioDisk extends PascalDisk
 
     for (int i = 0; i < max; i++)
     {
-      List<DiskAddress> blocks = getTwoBlocks (sd, i, sectors);
+      int blockNo = sd.dataOffset + i * 2;
+      List<DiskAddress> blocks = sectors.getBlocks (blockNo, 2);
       nodeSectors.addAll (blocks);
-      byte[] buffer = disk.readBlocks (blocks);
+      int offset = sectors.getOffset (blockNo);
 
-      for (int ptr = 0; ptr <= buffer.length; ptr += 78)
+      for (int ptr = offset; ptr + 78 <= offset + 1024; ptr += 78)
       {
-        if (buffer[ptr] == 0)
+        if (sectors.buffer[ptr] == 0)
           break;
 
-        byte[] newBuffer = new byte[78];
-        System.arraycopy (buffer, ptr, newBuffer, 0, newBuffer.length);
+        byte[] newBuffer = sectors.copy (ptr, 78);
         ExperienceLevel el = new ExperienceLevel ("exp", newBuffer);
         experiences.add (el);
         addToNode (el, node, blocks, experienceSector);
@@ -637,15 +639,4 @@ public class WizardryScenarioDisk extends PascalDisk
     node.add (childNode);
     childNode.setAllowsChildren (false);
   }
-
-  // ---------------------------------------------------------------------------------//
-  private List<DiskAddress> getTwoBlocks (ScenarioData sd, int i,
-      List<DiskAddress> sectors)
-  // ---------------------------------------------------------------------------------//
-  {
-    List<DiskAddress> blocks = new ArrayList<> (2);
-    blocks.add (sectors.get (sd.dataOffset + i * 2));
-    blocks.add (sectors.get (sd.dataOffset + i * 2 + 1));
-    return blocks;
-  }
 }
\ No newline at end of file